@@ -2,6 +2,8 @@ package org.togetherjava.event.elevator;
 
 import org.togetherjava.event.elevator.elevators.Elevator;
 import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.Benchmark;
+import org.togetherjava.event.elevator.simulation.HumanMode;
 import org.togetherjava.event.elevator.simulation.Simulation;
 
 public final class Main {
@@ -10,10 +12,17 @@ public final class Main {
      * <p>
      * Will create an elevator-system simulation, execute it until it is done
      * and pretty print the state to console.
+     * <p>
+     * If any arguments are given, runs a headless {@link Benchmark} instead.
      *
-     * @param args Not supported
+     * @param args the options of the benchmark, see {@link Benchmark}
      */
     public static void main(final String[] args) {
+        if (args.length > 0) {
+            Benchmark.main(args);
+            return;
+        }
+
         // Select a desired simulation for trying out your code.
         // Start with the simple simulations first, try out the bigger systems once you got it working.
         // Eventually try out the randomly generated systems. If you want to debug a problem you encountered
@@ -23,6 +32,7 @@ public final class Main {
         // Simulation simulation = Simulation.createSimpleSimulation();
         // Simulation simulation = Simulation.createRandomSimulation(5, 50, 10);
         // Simulation simulation = Simulation.createRandomSimulation(putDesiredSeedHere, 5, 50, 10);
+        // Simulation simulation = Simulation.createRandomSimulation(putDesiredSeedHere, 5, 50, 10, HumanMode.VIRTUAL_THREAD);
 
         simulation.printSummary();
 
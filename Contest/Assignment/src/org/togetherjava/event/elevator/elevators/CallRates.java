@@ -0,0 +1,80 @@
+package org.togetherjava.event.elevator.elevators;
+
+/**
+ * Exponentially decayed counters of hall calls per floor and direction, estimating where the next calls come from.
+ * <p>
+ * Instead of decaying all counters each step, new calls are weighted more the later they happen, which yields the
+ * same ratios between the counters. Recording a call therefore costs constant time.
+ */
+final class CallRates {
+    /**
+     * The amount of steps after which a call counts half as much as a new one.
+     */
+    static final int HALF_LIFE_STEPS = 200;
+    /**
+     * Weights are scaled back down once they get this big, long before doubles would overflow.
+     */
+    private static final double MAX_WEIGHT = 0x1p500;
+
+    private final int minFloor;
+    private final double[] upRates;
+    private final double[] downRates;
+    /**
+     * The step at which a call has a weight of 1.
+     */
+    private long baseStep;
+
+    CallRates(int minFloor, int maxFloor) {
+        this.minFloor = minFloor;
+        upRates = new double[maxFloor - minFloor + 1];
+        downRates = new double[maxFloor - minFloor + 1];
+    }
+
+    private CallRates(CallRates original) {
+        minFloor = original.minFloor;
+        upRates = original.upRates.clone();
+        downRates = original.downRates.clone();
+        baseStep = original.baseStep;
+    }
+
+    CallRates copy() {
+        return new CallRates(this);
+    }
+
+    /**
+     * Records a hall call.
+     *
+     * @param floor     the floor of the call
+     * @param direction the direction the caller wants to travel into
+     * @param step      the step the call was made in, never before the previous call
+     */
+    void record(int floor, TravelDirection direction, long step) {
+        double weight = Math.pow(2, (double) (step - baseStep) / HALF_LIFE_STEPS);
+        if (weight > MAX_WEIGHT) {
+            rescale(weight);
+            baseStep = step;
+            weight = 1;
+        }
+
+        double[] rates = direction == TravelDirection.UP ? upRates : downRates;
+        rates[floor - minFloor] += weight;
+    }
+
+    /**
+     * The relative rate of calls at the given floor, in both directions. Only comparable to other floors.
+     *
+     * @param floor the floor
+     * @return the rate, 0 if no call was ever made there
+     */
+    double rateOf(int floor) {
+        int index = floor - minFloor;
+        return index < 0 || index >= upRates.length ? 0 : upRates[index] + downRates[index];
+    }
+
+    private void rescale(double weight) {
+        for (int i = 0; i < upRates.length; i++) {
+            upRates[i] /= weight;
+            downRates[i] /= weight;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.togetherjava.event.elevator.elevators;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Weights of the cost function the {@link ElevatorSystem} uses to pick the elevator serving a hall call.
+ * The elevator with the lowest cost is picked, which is the sum of
+ * <ul>
+ *     <li>the distance to the floor of the call, times {@code distanceWeight},</li>
+ *     <li>{@code movingAwayPenalty} times the floors served, if the elevator moves away from the floor,</li>
+ *     <li>{@code fullPenalty} times the floors served, if the elevator is full,</li>
+ *     <li>the amount of passengers, times {@code loadWeight}, and</li>
+ *     <li>the amount of pending destinations, times {@code stopWeight}.</li>
+ * </ul>
+ * Only the ratio of the weights matters. Parameters are stored as properties files, see {@link #write(Path)}.
+ * The file given by the system property {@value #FILE_PROPERTY} is loaded the first time it is needed, and used by
+ * all elevator systems created afterwards. It is loaded again if the property changes.
+ *
+ * @param distanceWeight    cost per floor between the elevator and the call
+ * @param movingAwayPenalty cost for elevators moving away from the call, in floors served
+ * @param fullPenalty       cost for full elevators, in floors served
+ * @param loadWeight        cost per passenger
+ * @param stopWeight        cost per pending destination
+ */
+public record DispatchParameters(double distanceWeight, double movingAwayPenalty, double fullPenalty,
+        double loadWeight, double stopWeight) {
+    /**
+     * The system property holding the path of the parameter file to load, see {@link #configured()}.
+     */
+    public static final String FILE_PROPERTY = "elevator.dispatch.parameters";
+    /**
+     * The parameters used if no file is configured, picking the nearest elevator that is able to stop on its way.
+     */
+    public static final DispatchParameters DEFAULT = new DispatchParameters(1, 1, 2, 0, 0);
+    /**
+     * The parameters loaded by {@link #configured()} and the file they were loaded from, {@code null} until loaded.
+     */
+    private static volatile ConfiguredParameters configured;
+
+    public DispatchParameters {
+        if (!isValidWeight(distanceWeight) || !isValidWeight(movingAwayPenalty) || !isValidWeight(fullPenalty)
+                || !isValidWeight(loadWeight) || !isValidWeight(stopWeight)) {
+            throw new IllegalArgumentException("Dispatch weights must be finite and non-negative.");
+        }
+    }
+
+    /**
+     * The parameters configured for this run, loaded from the file given by {@value #FILE_PROPERTY}.
+     *
+     * @return the configured parameters, {@link #DEFAULT} if no file is configured
+     * @throws UncheckedIOException     if the configured file could not be read
+     * @throws IllegalArgumentException if the configured file is malformed
+     */
+    public static DispatchParameters configured() {
+        String file = System.getProperty(FILE_PROPERTY);
+        ConfiguredParameters loaded = configured;
+        if (loaded != null && Objects.equals(loaded.file(), file)) {
+            return loaded.parameters();
+        }
+
+        // Failures are not cached, so fixing the file or the property takes effect right away
+        DispatchParameters parameters = file == null || file.isBlank() ? DEFAULT : load(Path.of(file));
+        configured = new ConfiguredParameters(file, parameters);
+        return parameters;
+    }
+
+    /**
+     * Loads parameters from a properties file, as written by {@link #write(Path)}.
+     * Missing weights keep their {@link #DEFAULT} value.
+     *
+     * @param file the file to load
+     * @return the loaded parameters
+     * @throws UncheckedIOException     if the file could not be read
+     * @throws IllegalArgumentException if a weight is malformed or invalid
+     */
+    public static DispatchParameters load(Path file) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the dispatch parameters from " + file, e);
+        }
+
+        return new DispatchParameters(
+                weightOf(properties, "distanceWeight", DEFAULT.distanceWeight),
+                weightOf(properties, "movingAwayPenalty", DEFAULT.movingAwayPenalty),
+                weightOf(properties, "fullPenalty", DEFAULT.fullPenalty),
+                weightOf(properties, "loadWeight", DEFAULT.loadWeight),
+                weightOf(properties, "stopWeight", DEFAULT.stopWeight));
+    }
+
+    /**
+     * Writes these parameters to a properties file, so that they can be loaded again by {@link #load(Path)}.
+     *
+     * @param file the file to write to, overwritten if it already exists
+     * @throws UncheckedIOException if the file could not be written
+     */
+    public void write(Path file) {
+        Properties properties = new Properties();
+        properties.setProperty("distanceWeight", Double.toString(distanceWeight));
+        properties.setProperty("movingAwayPenalty", Double.toString(movingAwayPenalty));
+        properties.setProperty("fullPenalty", Double.toString(fullPenalty));
+        properties.setProperty("loadWeight", Double.toString(loadWeight));
+        properties.setProperty("stopWeight", Double.toString(stopWeight));
+
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, "Dispatch parameters, see " + DispatchParameters.class.getName());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the dispatch parameters to " + file, e);
+        }
+    }
+
+    /**
+     * The cost of the given elevator picking up a human at the given floor.
+     *
+     * @param elevator  the candidate elevator
+     * @param atFloor   the floor of the hall call
+     * @param isBlocked whether another car in the same shaft is in the way and has to make way first
+     * @return the cost, lower is better
+     */
+    double pickupCost(Elevator elevator, int atFloor, boolean isBlocked) {
+        double cost = distanceWeight * elevator.distanceTo(atFloor);
+
+        // Elevators that are moving away from the floor first have to finish their trip before turning around,
+        // blocked elevators have to wait for their neighbour to do so
+        boolean isMovingAway = elevator.getTravelDirection()
+                .map(direction -> direction == TravelDirection.UP
+                        ? atFloor < elevator.getCurrentFloor()
+                        : atFloor > elevator.topDeckFloor())
+                .orElse(false);
+        if (isMovingAway || isBlocked) {
+            cost += movingAwayPenalty * elevator.getFloorsServed();
+        }
+
+        // Full elevators first have to drop off humans before they can pick up anyone
+        if (elevator.isFull()) {
+            cost += fullPenalty * elevator.getFloorsServed();
+        }
+
+        return cost + loadWeight * elevator.getPassengerCount() + stopWeight * elevator.getPendingDestinationCount();
+    }
+
+    private static boolean isValidWeight(double weight) {
+        return Double.isFinite(weight) && weight >= 0;
+    }
+
+    private static double weightOf(Properties properties, String name, double defaultWeight) {
+        String value = properties.getProperty(name);
+        if (value == null) {
+            return defaultWeight;
+        }
+        try {
+            return Double.parseDouble(value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "The dispatch weight '%s' is not a number: %s".formatted(name, value), e);
+        }
+    }
+
+    /**
+     * Parameters loaded by {@link #configured()}.
+     *
+     * @param file       the value of {@value #FILE_PROPERTY} they were loaded for, {@code null} if not set
+     * @param parameters the loaded parameters
+     */
+    private record ConfiguredParameters(String file, DispatchParameters parameters) {
+    }
+}
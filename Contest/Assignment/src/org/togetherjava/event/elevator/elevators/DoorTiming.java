@@ -0,0 +1,41 @@
+package org.togetherjava.event.elevator.elevators;
+
+/**
+ * How long an elevator is held at a floor once it stops there, in steps.
+ * <p>
+ * The doors open, every human entering or exiting takes its transfer time and the doors close again.
+ * Only then the elevator continues its trip. Humans arriving at the floor while the doors are open may still enter,
+ * which extends the stop accordingly.
+ *
+ * @param openingSteps     the steps it takes to open the doors, at least 0
+ * @param closingSteps     the steps it takes to close the doors, at least 0
+ * @param stepsPerTransfer the steps a single human takes to enter or exit, at least 0.
+ *                         Fractions add up over all humans transferring during a stop.
+ */
+public record DoorTiming(int openingSteps, int closingSteps, double stepsPerTransfer) {
+    /**
+     * The default timing, humans enter and exit instantly without holding the elevator.
+     */
+    public static final DoorTiming INSTANT = new DoorTiming(0, 0, 0);
+
+    public DoorTiming {
+        if (openingSteps < 0 || closingSteps < 0 || !Double.isFinite(stepsPerTransfer) || stepsPerTransfer < 0) {
+            throw new IllegalArgumentException("Door timings must not be negative, but got %d, %d and %f."
+                    .formatted(openingSteps, closingSteps, stepsPerTransfer));
+        }
+    }
+
+    /**
+     * The amount of steps an elevator is held at a floor for a stop with the given amount of transfers.
+     *
+     * @param transfers the amount of humans that entered or exited during the stop
+     * @return the amount of steps the elevator stands at the floor after the step it stopped in
+     */
+    public int dwellSteps(int transfers) {
+        return openingSteps + (int) Math.ceil(transfers * stepsPerTransfer) + closingSteps;
+    }
+
+    public boolean isInstant() {
+        return equals(INSTANT);
+    }
+}
@@ -1,6 +1,12 @@
 package org.togetherjava.event.elevator.elevators;
 
+import org.togetherjava.event.elevator.logging.EventSink;
+
+import java.util.BitSet;
+import java.util.NavigableSet;
+import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -10,12 +16,87 @@ import java.util.concurrent.atomic.AtomicInteger;
  * The elevator will eventually move towards the requested floor and transport humans to their destinations.
  */
 public final class Elevator implements ElevatorPanel {
+    /**
+     * Capacity of elevators that can transport any amount of humans at once.
+     */
+    public static final int UNLIMITED_CAPACITY = Integer.MAX_VALUE;
     private static final AtomicInteger NEXT_ID = new AtomicInteger(0);
+    private static final int NO_FLOOR = -1;
 
     private final int id;
     private final int minFloor;
     private final int floorsServed;
+    private final int capacity;
+    private final int deckCount;
     private int currentFloor;
+    private int passengerCount;
+    /**
+     * All floors the elevator still has to stop at, requested either by humans inside or by the elevator system.
+     * May be shared with forks of this elevator, see {@link #destinationFloorsShared}.
+     */
+    private NavigableSet<Integer> destinationFloors = new TreeSet<>();
+    /**
+     * Whether the destination floors are shared with a fork, in which case they are copied before the next change.
+     */
+    private boolean destinationFloorsShared;
+    /**
+     * Destinations requested by the elevator system to pick up humans, which no passenger requested.
+     * They can be cancelled if another elevator picks up the humans first.
+     */
+    private BitSet pickupFloors = new BitSet();
+    /**
+     * Destination the elevator travels to before any other, ignoring the LOOK strategy,
+     * {@link #NO_FLOOR} if there is none. Set by the system for hall calls that waited too long.
+     */
+    private int priorityFloor = NO_FLOOR;
+    private SpeedProfile speedProfile = SpeedProfile.ONE_FLOOR_PER_STEP;
+    /**
+     * The amount of floors the elevator moved during the last step, 0 if it stopped or stands still.
+     */
+    private int speed;
+    private DoorTiming doorTiming = DoorTiming.INSTANT;
+    /**
+     * Whether the doors are open, from the step the elevator stopped or a human entered or exited,
+     * until it moves on.
+     */
+    private boolean doorsOpen;
+    /**
+     * The amount of humans that entered or exited since the doors opened.
+     */
+    private int transfersAtStop;
+    /**
+     * The amount of steps the elevator was held at its floor since the doors opened.
+     */
+    private int dwelledSteps;
+    /**
+     * The last direction the elevator traveled into, kept while it stands still, to count round trips.
+     */
+    private TravelDirection lastTravelDirection;
+    private long roundTripCount;
+    private long busyStepCount;
+    /**
+     * Sum of the hashes of all destination floors, kept up to date whenever a destination is added or removed.
+     */
+    private long destinationFloorsHash;
+    /**
+     * Sum of the hashes of all pickup floors, kept up to date whenever a pickup floor is added or removed.
+     */
+    private long pickupFloorsHash;
+    /**
+     * The direction the elevator is currently traveling into.
+     * This is {@code null} if the elevator has no destinations and stands still.
+     */
+    private TravelDirection travelDirection;
+    private long stopCount;
+    private EventSink eventSink = EventSink.noOp();
+    /**
+     * The system this elevator is registered at, {@code null} if it is not registered yet.
+     */
+    private ElevatorSystem elevatorSystem;
+    /**
+     * Position of this elevator within the elevators of its system, -1 if it is not registered yet.
+     */
+    private int index = -1;
 
     /**
      * Creates a new elevator.
@@ -26,17 +107,88 @@ public final class Elevator implements ElevatorPanel {
      * @param currentFloor the floor the elevator starts at, must be within the defined range of floors served by the elevator
      */
     public Elevator(int minFloor, int floorsServed, int currentFloor) {
-        if (minFloor <= 0 || floorsServed < 2) {
-            throw new IllegalArgumentException("Min floor must at least 1, floors served at least 2.");
+        this(minFloor, floorsServed, currentFloor, UNLIMITED_CAPACITY);
+    }
+
+    /**
+     * Creates a new elevator that can only transport a limited amount of humans at once.
+     *
+     * @param minFloor     the minimum floor that the elevator can serve, must be greater than or equal to 1.
+     * @param floorsServed the amount of floors served in total by this elevator, must be greater than or equal to 2.
+     *                     Together with the minFloor this forms a consecutive range of floors with no gaps in between.
+     * @param currentFloor the floor the elevator starts at, must be within the defined range of floors served by the elevator
+     * @param capacity     the maximal amount of humans inside the elevator at once, must be at least 1,
+     *                     {@link #UNLIMITED_CAPACITY} if there is no limit
+     */
+    public Elevator(int minFloor, int floorsServed, int currentFloor, int capacity) {
+        this(minFloor, floorsServed, currentFloor, capacity, 1);
+    }
+
+    /**
+     * Creates a new multi-deck elevator, whose cabs are stacked on top of each other and serve adjacent floors
+     * at once. Humans enter and exit at whichever cab is at their floor, the capacity is shared by all cabs.
+     *
+     * @param minFloor     the minimum floor that the elevator can serve, must be greater than or equal to 1.
+     * @param floorsServed the amount of floors served in total by this elevator, must be greater than the amount
+     *                     of decks. Together with the minFloor this forms a consecutive range of floors with no gaps
+     *                     in between.
+     * @param currentFloor the floor the lowest cab starts at, all cabs must be within the defined range of floors
+     *                     served by the elevator
+     * @param capacity     the maximal amount of humans inside the elevator at once, must be at least 1,
+     *                     {@link #UNLIMITED_CAPACITY} if there is no limit
+     * @param deckCount    the amount of cabs, must be at least 1
+     */
+    public Elevator(int minFloor, int floorsServed, int currentFloor, int capacity, int deckCount) {
+        if (deckCount < 1) {
+            throw new IllegalArgumentException("The amount of decks must be at least 1.");
+        }
+        if (minFloor <= 0 || floorsServed <= deckCount) {
+            throw new IllegalArgumentException("Min floor must at least 1, floors served at least %d."
+                    .formatted(deckCount + 1));
         }
-        if (currentFloor < minFloor || currentFloor >= minFloor + floorsServed) {
+        if (currentFloor < minFloor || currentFloor + deckCount > minFloor + floorsServed) {
             throw new IllegalArgumentException("The current floor must be between the floors served by the elevator.");
         }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be at least 1.");
+        }
 
         this.id = NEXT_ID.getAndIncrement();
         this.minFloor = minFloor;
         this.currentFloor = currentFloor;
         this.floorsServed = floorsServed;
+        this.capacity = capacity;
+        this.deckCount = deckCount;
+    }
+
+    /**
+     * Creates a fork of the given elevator, with the same ID, see {@link #fork()}.
+     */
+    private Elevator(Elevator original) {
+        id = original.id;
+        minFloor = original.minFloor;
+        floorsServed = original.floorsServed;
+        capacity = original.capacity;
+        deckCount = original.deckCount;
+        currentFloor = original.currentFloor;
+        passengerCount = original.passengerCount;
+        destinationFloors = original.destinationFloors;
+        destinationFloorsShared = true;
+        pickupFloors = (BitSet) original.pickupFloors.clone();
+        priorityFloor = original.priorityFloor;
+        speedProfile = original.speedProfile;
+        speed = original.speed;
+        doorTiming = original.doorTiming;
+        doorsOpen = original.doorsOpen;
+        transfersAtStop = original.transfersAtStop;
+        dwelledSteps = original.dwelledSteps;
+        lastTravelDirection = original.lastTravelDirection;
+        roundTripCount = original.roundTripCount;
+        busyStepCount = original.busyStepCount;
+        destinationFloorsHash = original.destinationFloorsHash;
+        pickupFloorsHash = original.pickupFloorsHash;
+        travelDirection = original.travelDirection;
+        stopCount = original.stopCount;
     }
 
     @Override
@@ -44,6 +196,11 @@ public final class Elevator implements ElevatorPanel {
         return id;
     }
 
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
     public int getMinFloor() {
         return minFloor;
     }
@@ -52,31 +209,641 @@ public final class Elevator implements ElevatorPanel {
         return floorsServed;
     }
 
+    public int getCapacity() {
+        return capacity;
+    }
+
     @Override
     public int getCurrentFloor() {
         return currentFloor;
     }
 
     @Override
-    public void requestDestinationFloor(int destinationFloor) {
-        // TODO Implement. This represents a human or the elevator system
-        //  itself requesting this elevator to eventually move to the given floor.
-        //  The elevator is supposed to memorize the destination in a way that
-        //  it can ensure to eventually reach it.
-        System.out.println("Request for destination floor received");
-    }
-
-    public void moveOneFloor() {
-        // TODO Implement. Essentially there are three possibilities:
-        //  - move up one floor
-        //  - move down one floor
-        //  - stand still
-        //  The elevator is supposed to move in a way that it will eventually reach
-        //  the floors requested by Humans via requestDestinationFloor(), ideally "fast" but also "fair",
-        //  meaning that the average time waiting (either in corridor or inside the elevator)
-        //  is minimized across all humans.
-        //  It is essential that this method updates the currentFloor field accordingly.
-        System.out.println("Request to move a floor received");
+    public int getDeckCount() {
+        return deckCount;
+    }
+
+    public synchronized int getPassengerCount() {
+        return passengerCount;
+    }
+
+    public synchronized boolean isFull() {
+        return passengerCount >= capacity;
+    }
+
+    @Override
+    public synchronized boolean tryEnter() {
+        if (isFull()) {
+            return false;
+        }
+        passengerCount++;
+        recordTransfer();
+        return true;
+    }
+
+    @Override
+    public synchronized void exit() {
+        if (passengerCount == 0) {
+            throw new IllegalStateException("Nobody is inside elevator %d, hence nobody can exit.".formatted(id));
+        }
+        passengerCount--;
+        recordTransfer();
+    }
+
+    /**
+     * The direction the elevator is currently traveling into.
+     *
+     * @return the current travel direction, empty if the elevator has no destinations and stands still
+     */
+    public synchronized Optional<TravelDirection> getTravelDirection() {
+        return Optional.ofNullable(travelDirection);
+    }
+
+    @Override
+    public boolean canServe(int floor) {
+        return floor >= minFloor && floor < minFloor + floorsServed;
+    }
+
+    /**
+     * The amount of floors this elevator still has to stop at.
+     *
+     * @return the amount of pending destinations
+     */
+    public synchronized int getPendingDestinationCount() {
+        return destinationFloors.size();
+    }
+
+    /**
+     * Sets the sink that events of this elevator, such as moving, are reported to.
+     *
+     * @param eventSink the sink to report events to
+     */
+    public void setEventSink(EventSink eventSink) {
+        this.eventSink = eventSink;
+    }
+
+    /**
+     * Registers this elevator at the given system, which is then informed whenever the elevator receives
+     * a request while it has no destinations.
+     *
+     * @param elevatorSystem the system the elevator is registered at
+     * @param index          position of this elevator within the elevators of the system
+     */
+    void attach(ElevatorSystem elevatorSystem, int index) {
+        this.elevatorSystem = elevatorSystem;
+        this.index = index;
+    }
+
+    /**
+     * Creates an independent copy of this elevator in its current state, which is not registered at any system.
+     * The destinations are shared until either elevator changes them, so forking is cheap.
+     *
+     * @return the fork, with the same ID as this elevator
+     */
+    synchronized Elevator fork() {
+        destinationFloorsShared = true;
+        return new Elevator(this);
+    }
+
+    /**
+     * The amount of times this elevator stopped at one of its destinations so far.
+     *
+     * @return the amount of stops
+     */
+    public synchronized long getStopCount() {
+        return stopCount;
+    }
+
+    @Override
+    public synchronized void requestDestinationFloor(int destinationFloor) {
+        if (!canServe(destinationFloor)) {
+            throw new IllegalArgumentException("The destination floor %d is not served by this elevator."
+                    .formatted(destinationFloor));
+        }
+
+        // Passengers rely on the elevator stopping there, so it can not be cancelled anymore
+        clearPickupFloor(destinationFloor);
+        if (destinationFloors.contains(destinationFloor)) {
+            return;
+        }
+        mutableDestinationFloors().add(destinationFloor);
+        destinationFloorsHash += hashOf(StateComponent.DESTINATION_FLOOR, destinationFloor);
+        if (destinationFloors.size() == 1 && elevatorSystem != null) {
+            elevatorSystem.elevatorRequested(this);
+        }
+        if (eventSink.isEnabled(EventSink.Level.TRACE)) {
+            eventSink.log(EventSink.Level.TRACE, "Elevator %d received request for destination floor %d"
+                    .formatted(id, destinationFloor));
+        }
+    }
+
+    /**
+     * Requests the elevator to move to the given floor to pick up humans waiting there.
+     * Unlike destinations requested by passengers, the request can be cancelled again,
+     * see {@link #cancelPickupFloor(int)}.
+     *
+     * @param pickupFloor the floor to pick up humans at, must be within the range served by this elevator
+     */
+    synchronized void requestPickupFloor(int pickupFloor) {
+        boolean isNewDestination = !destinationFloors.contains(pickupFloor);
+        requestDestinationFloor(pickupFloor);
+        if (isNewDestination) {
+            pickupFloors.set(pickupFloor);
+            pickupFloorsHash += hashOf(StateComponent.PICKUP_FLOOR, pickupFloor);
+        }
+    }
+
+    /**
+     * Cancels the request to pick up humans at the given floor, unless a passenger also wants to go there.
+     *
+     * @param pickupFloor the floor to no longer pick up humans at
+     * @return whether the floor is no destination of this elevator anymore
+     */
+    synchronized boolean cancelPickupFloor(int pickupFloor) {
+        return pickupFloors.get(pickupFloor) && removeDestinationFloor(pickupFloor);
+    }
+
+    /**
+     * Requests the elevator to pick up humans at the given floor before serving any other destination.
+     * Destinations on the way are still served. The priority ends once the elevator stops at the floor.
+     *
+     * @param priorityFloor the floor to pick up humans at, must be within the range served by this elevator
+     */
+    synchronized void requestPriorityFloor(int priorityFloor) {
+        requestPickupFloor(priorityFloor);
+        this.priorityFloor = priorityFloor;
+    }
+
+    /**
+     * Whether the elevator is currently on its way to a floor requested via {@link #requestPriorityFloor(int)}.
+     *
+     * @return {@code true} if the elevator has a priority floor
+     */
+    synchronized boolean hasPriorityFloor() {
+        return priorityFloor != NO_FLOOR;
+    }
+
+    /**
+     * Moves the elevator towards its destinations, or lets it stand still. Elevators with the
+     * {@link SpeedProfile#ONE_FLOOR_PER_STEP default speed profile} move by one floor, faster ones speed up
+     * and slow down according to their profile.
+     * <p>
+     * The elevator follows the <i>LOOK</i> strategy: it keeps traveling into its current direction as long as
+     * there are destinations left in that direction and only then turns around. A destination requested at the
+     * floor the elevator currently stands at is served by staying at the floor for this step, unless the elevator
+     * is full. The floor is then kept as destination and served once the elevator returns. Multi-deck elevators
+     * serve all destinations at the floors of their cabs at once, the leading cab stops at the next destination.
+     * A {@link #requestPriorityFloor(int) priority floor} overrides the strategy. The elevator only turns around
+     * once it is slow enough to stop. Destinations it can not stop at in time anymore are passed and served
+     * on the way back.
+     */
+    public synchronized void moveOneFloor() {
+        if (travelDirection != null) {
+            busyStepCount++;
+        }
+        if (remainingDwellSteps() > 0) {
+            dwelledSteps++;
+            return;
+        }
+        doorsOpen = false;
+
+        if (stopsAtCurrentFloor()) {
+            removeDestinationFloorsAtDecks();
+            speed = 0;
+            stopCount++;
+            openDoors();
+            return;
+        }
+
+        Motion motion = nextMotion(new Motion(currentFloor, speed, travelDirection, false));
+        setTravelDirection(motion.direction());
+        if (travelDirection == null) {
+            speed = 0;
+            return;
+        }
+        currentFloor = motion.floor();
+        speed = motion.speed();
+        if (motion.arrived()) {
+            removeDestinationFloorsAtDecks();
+            stopCount++;
+            openDoors();
+        }
+
+        if (eventSink.isEnabled(EventSink.Level.TRACE)) {
+            eventSink.log(EventSink.Level.TRACE, "Elevator %d moved %s to floor %d"
+                    .formatted(id, travelDirection, currentFloor));
+        }
+    }
+
+    /**
+     * Whether the elevator stood at its floor at the end of the last step, so that humans can enter and exit.
+     * Elevators moving {@link SpeedProfile#ONE_FLOOR_PER_STEP one floor per step} count as stopped at every floor.
+     *
+     * @return {@code true} if the elevator stopped or stands still, {@code false} if it is passing its floor
+     */
+    public synchronized boolean isStopped() {
+        return speed == 0 || speedProfile.stopsAtEveryFloor();
+    }
+
+    public synchronized SpeedProfile getSpeedProfile() {
+        return speedProfile;
+    }
+
+    /**
+     * Sets how fast the elevator travels. Defaults to {@link SpeedProfile#ONE_FLOOR_PER_STEP}.
+     * Must be set before the elevator starts moving.
+     *
+     * @param speedProfile the speed profile to use from now on
+     */
+    public synchronized void setSpeedProfile(SpeedProfile speedProfile) {
+        this.speedProfile = speedProfile;
+    }
+
+    public synchronized DoorTiming getDoorTiming() {
+        return doorTiming;
+    }
+
+    /**
+     * Sets how long the elevator is held at a floor when it stops. Defaults to {@link DoorTiming#INSTANT}.
+     *
+     * @param doorTiming the door timing to use from now on
+     */
+    public synchronized void setDoorTiming(DoorTiming doorTiming) {
+        this.doorTiming = doorTiming;
+    }
+
+    /**
+     * The amount of round trips this elevator completed so far, counted whenever it turns from traveling down
+     * to traveling up, possibly after standing still in between.
+     *
+     * @return the amount of round trips
+     */
+    public synchronized long getRoundTripCount() {
+        return roundTripCount;
+    }
+
+    /**
+     * The amount of steps this elevator was traveling or held at a floor during a trip, i.e. not standing idle.
+     *
+     * @return the amount of busy steps
+     */
+    public synchronized long getBusyStepCount() {
+        return busyStepCount;
+    }
+
+    /**
+     * Whether the elevator is slow enough to stand still during the next step.
+     *
+     * @return {@code true} if the elevator can be held at its floor
+     */
+    synchronized boolean canStop() {
+        return speedProfile.canStopFrom(speed);
+    }
+
+    /**
+     * Lets the elevator stand still for the current step instead of moving, see {@link #canStop()}.
+     */
+    synchronized void hold() {
+        speed = 0;
+        if (travelDirection != null) {
+            busyStepCount++;
+        }
+        if (remainingDwellSteps() > 0) {
+            dwelledSteps++;
+        }
+    }
+
+    /**
+     * The floor of the top cab, the same as the current floor for single-deck elevators.
+     *
+     * @return the floor of the top cab
+     */
+    int topDeckFloor() {
+        return currentFloor + deckCount - 1;
+    }
+
+    /**
+     * The amount of floors between the given floor and the closest cab.
+     *
+     * @param floor the floor to measure the distance to
+     * @return the amount of floors, 0 if a cab is at the floor
+     */
+    int distanceTo(int floor) {
+        if (floor < currentFloor) {
+            return currentFloor - floor;
+        }
+        return Math.max(0, floor - topDeckFloor());
+    }
+
+    /**
+     * The floor the elevator is at after the next call to {@link #moveOneFloor()}, unless it is held.
+     * Does not change the elevator.
+     *
+     * @return the floor of the lowest cab after the next step
+     */
+    synchronized int nextFloor() {
+        if (remainingDwellSteps() > 0 || stopsAtCurrentFloor()) {
+            return currentFloor;
+        }
+        return nextMotion(new Motion(currentFloor, speed, travelDirection, false)).floor();
+    }
+
+    /**
+     * The next destination ahead of the leading cab, where the elevator stops next unless it is too fast to do so.
+     *
+     * @return the destination, {@link #NO_FLOOR} if the elevator has no destination ahead of its cabs
+     */
+    synchronized int nextStopFloor() {
+        TravelDirection direction = nextTravelDirection(currentFloor, travelDirection);
+        if (direction == null) {
+            return NO_FLOOR;
+        }
+        Integer nextStop = direction == TravelDirection.UP
+                ? destinationFloors.higher(topDeckFloor())
+                : destinationFloors.lower(currentFloor);
+        return nextStop == null ? NO_FLOOR : nextStop;
+    }
+
+    /**
+     * A hash of everything that determines how this elevator behaves from now on: its floor, speed, travel
+     * direction, destinations, including a priority floor and pickups that may still be cancelled, and
+     * passengers. Two elevators with the same hash are, with overwhelming probability, in the same state. The hash
+     * is updated incrementally, so computing it is cheap.
+     *
+     * @return the hash of the current state
+     */
+    public synchronized long getStateHash() {
+        return destinationFloorsHash + pickupFloorsHash
+                + hashOf(StateComponent.CURRENT_FLOOR, currentFloor)
+                + hashOf(StateComponent.TRAVEL_DIRECTION, travelDirection == null ? -1 : travelDirection.ordinal())
+                + hashOf(StateComponent.PASSENGER_COUNT, passengerCount)
+                + (priorityFloor == NO_FLOOR ? 0 : hashOf(StateComponent.PRIORITY_FLOOR, priorityFloor))
+                + (speedProfile.stopsAtEveryFloor() ? 0 : hashOf(StateComponent.SPEED, speed))
+                + (doorTiming.isInstant() ? 0 : hashOf(StateComponent.DWELL_STEPS, remainingDwellSteps()));
+    }
+
+    /**
+     * The amount of steps until this elevator either stops at one of its destinations or reaches one of the given
+     * floors, assuming its destinations do not change in the meantime. Until then, the elevator merely passes floors.
+     * Elevators that are faster than {@link SpeedProfile#ONE_FLOOR_PER_STEP one floor per step} only cause events
+     * where they stop, so the given floors only matter if they stand at one.
+     *
+     * @param watchedFloors floors at which something may happen once the elevator reaches them
+     * @return the amount of steps, at least 1; {@link Integer#MAX_VALUE} if the elevator stands still forever
+     */
+    synchronized int stepsUntilNextEvent(NavigableSet<Integer> watchedFloors) {
+        boolean isAtWatchedFloor = isStopped() && hasFloorAtDecks(watchedFloors);
+        if (isAtWatchedFloor || stopsAtCurrentFloor()) {
+            return 1;
+        }
+
+        int dwellSteps = remainingDwellSteps();
+        if (dwellSteps > 0) {
+            // Nothing happens while the elevator is held at its floor, it continues as if it just stopped there
+            int stepsAfterDwelling = stepsUntilNextEventAfterDwelling(watchedFloors);
+            return stepsAfterDwelling == Integer.MAX_VALUE ? Integer.MAX_VALUE : dwellSteps + stepsAfterDwelling;
+        }
+        return stepsUntilNextEventAfterDwelling(watchedFloors);
+    }
+
+    private int stepsUntilNextEventAfterDwelling(NavigableSet<Integer> watchedFloors) {
+        if (!speedProfile.stopsAtEveryFloor()) {
+            Motion motion = new Motion(currentFloor, speed, travelDirection, false);
+            for (int steps = 1; ; steps++) {
+                motion = nextMotion(motion);
+                if (motion.direction() == null) {
+                    return steps == 1 && speed == 0 ? Integer.MAX_VALUE : steps;
+                }
+                if (motion.arrived()) {
+                    return steps;
+                }
+            }
+        }
+
+        TravelDirection direction = nextTravelDirection(currentFloor, travelDirection);
+        if (direction == null) {
+            return Integer.MAX_VALUE;
+        }
+        // The leading cab is the first to reach any floor ahead
+        int leadingFloor = direction == TravelDirection.UP ? topDeckFloor() : currentFloor;
+        Integer nextStop = direction == TravelDirection.UP
+                ? destinationFloors.higher(leadingFloor)
+                : destinationFloors.lower(leadingFloor);
+        Integer nextWatchedFloor = direction == TravelDirection.UP
+                ? watchedFloors.higher(leadingFloor)
+                : watchedFloors.lower(leadingFloor);
+
+        int steps = Math.abs(nextStop - leadingFloor);
+        return nextWatchedFloor == null ? steps : Math.min(steps, Math.abs(nextWatchedFloor - leadingFloor));
+    }
+
+    /**
+     * Moves the elevator as far as it travels during the given amount of steps, exactly as the same amount of calls
+     * to {@link #moveOneFloor()} would. The elevator must not stop at any of its destinations on the way,
+     * see {@link #stepsUntilNextEvent(NavigableSet)}.
+     *
+     * @param steps the amount of steps to skip
+     */
+    synchronized void skipSteps(int steps) {
+        int dwellSteps = Math.min(steps, remainingDwellSteps());
+        dwelledSteps += dwellSteps;
+        if (travelDirection != null) {
+            busyStepCount += dwellSteps;
+        }
+        int travelSteps = steps - dwellSteps;
+        if (travelSteps == 0) {
+            return;
+        }
+        doorsOpen = false;
+
+        int startFloor = currentFloor;
+        if (speedProfile.stopsAtEveryFloor()) {
+            // As in moveOneFloor, a step counts as busy if the elevator was traveling when the step started
+            boolean wasTraveling = travelDirection != null;
+            setTravelDirection(nextTravelDirection(currentFloor, travelDirection));
+            if (travelDirection == null) {
+                busyStepCount += wasTraveling ? 1 : 0;
+                return;
+            }
+            busyStepCount += wasTraveling ? travelSteps : travelSteps - 1;
+            currentFloor += travelDirection == TravelDirection.UP ? travelSteps : -travelSteps;
+        } else {
+            for (int i = 0; i < travelSteps; i++) {
+                if (travelDirection != null) {
+                    busyStepCount++;
+                }
+                Motion motion = nextMotion(new Motion(currentFloor, speed, travelDirection, false));
+                currentFloor = motion.floor();
+                speed = motion.speed();
+                setTravelDirection(motion.direction());
+            }
+        }
+
+        if (eventSink.isEnabled(EventSink.Level.TRACE)) {
+            eventSink.log(EventSink.Level.TRACE, "Elevator %d moved %s by %d floors to floor %d"
+                    .formatted(id, travelDirection, Math.abs(currentFloor - startFloor), currentFloor));
+        }
+    }
+
+    /**
+     * The amount of steps the elevator is still held at its floor for the current stop.
+     */
+    private int remainingDwellSteps() {
+        return doorsOpen ? Math.max(0, doorTiming.dwellSteps(transfersAtStop) - dwelledSteps) : 0;
+    }
+
+    private void openDoors() {
+        if (!doorsOpen) {
+            doorsOpen = true;
+            transfersAtStop = 0;
+            dwelledSteps = 0;
+        }
+    }
+
+    /**
+     * Records a human entering or exiting, which holds the elevator at its floor for a little longer.
+     * If the elevator did not plan to stop at the floor, it does now.
+     */
+    private void recordTransfer() {
+        openDoors();
+        transfersAtStop++;
+    }
+
+    private void setTravelDirection(TravelDirection travelDirection) {
+        if (travelDirection != null) {
+            if (travelDirection == TravelDirection.UP && lastTravelDirection == TravelDirection.DOWN) {
+                roundTripCount++;
+            }
+            lastTravelDirection = travelDirection;
+        }
+        this.travelDirection = travelDirection;
+    }
+
+    /**
+     * Where the elevator is after the next step, starting from the given motion and assuming it does not stop
+     * at its current floor. Does not change the elevator.
+     */
+    private Motion nextMotion(Motion motion) {
+        TravelDirection direction = speedProfile.canStopFrom(motion.speed())
+                ? nextTravelDirection(motion.floor(), motion.direction())
+                : motion.direction();
+        if (direction == null) {
+            return new Motion(motion.floor(), 0, null, false);
+        }
+        int sign = direction == TravelDirection.UP ? 1 : -1;
+
+        // Traveling up, the top cab is the leading one and stops at the next destination
+        int leadingFloor = direction == TravelDirection.UP ? motion.floor() + deckCount - 1 : motion.floor();
+        int minStopDistance = speedProfile.minStopDistance(motion.speed());
+        Integer nextStop = direction == TravelDirection.UP
+                ? destinationFloors.ceiling(leadingFloor + minStopDistance)
+                : destinationFloors.floor(leadingFloor - minStopDistance);
+        if (nextStop == null) {
+            // Too fast to stop at any destination ahead, slow down and serve them on the way back
+            int speed = motion.speed() - speedProfile.acceleration();
+            return new Motion(motion.floor() + sign * speed, speed, direction, false);
+        }
+
+        int distance = Math.abs(nextStop - leadingFloor);
+        int speed = speedProfile.nextSpeed(motion.speed(), distance);
+        boolean arrived = speed == distance;
+        return new Motion(motion.floor() + sign * speed, arrived ? 0 : speed, direction, arrived);
+    }
+
+    /**
+     * Whether the elevator stops at its current floor during the next step, to serve destinations at its cabs.
+     */
+    private boolean stopsAtCurrentFloor() {
+        return speedProfile.canStopFrom(speed) && !isFull() && hasFloorAtDecks(destinationFloors);
+    }
+
+    /**
+     * Removes all destinations at the floors of the cabs, which are served by stopping there.
+     */
+    private void removeDestinationFloorsAtDecks() {
+        for (int floor = currentFloor; floor < currentFloor + deckCount; floor++) {
+            removeDestinationFloor(floor);
+        }
+    }
+
+    /**
+     * Whether any of the given floors is a floor of one of the cabs.
+     */
+    private boolean hasFloorAtDecks(NavigableSet<Integer> floors) {
+        Integer floor = floors.ceiling(currentFloor);
+        return floor != null && floor < currentFloor + deckCount;
+    }
+
+    private boolean removeDestinationFloor(int floor) {
+        if (!destinationFloors.contains(floor)) {
+            return false;
+        }
+        mutableDestinationFloors().remove(floor);
+        clearPickupFloor(floor);
+        if (floor == priorityFloor) {
+            priorityFloor = NO_FLOOR;
+        }
+        destinationFloorsHash -= hashOf(StateComponent.DESTINATION_FLOOR, floor);
+        return true;
+    }
+
+    private void clearPickupFloor(int floor) {
+        if (pickupFloors.get(floor)) {
+            pickupFloors.clear(floor);
+            pickupFloorsHash -= hashOf(StateComponent.PICKUP_FLOOR, floor);
+        }
+    }
+
+    private NavigableSet<Integer> mutableDestinationFloors() {
+        if (destinationFloorsShared) {
+            destinationFloors = new TreeSet<>(destinationFloors);
+            destinationFloorsShared = false;
+        }
+        return destinationFloors;
+    }
+
+    /**
+     * Zobrist-style hash of a single component of the state, combined by adding them up.
+     */
+    private static long hashOf(StateComponent component, int value) {
+        // Finalizer of SplitMix64, spreads consecutive inputs over all bits
+        long hash = ((long) component.ordinal() << Integer.SIZE | value & 0xFFFF_FFFFL) * 0x9E37_79B9_7F4A_7C15L;
+        hash = (hash ^ (hash >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * The direction to travel into next, {@code null} if there is no destination other than the floors of the cabs.
+     */
+    private TravelDirection nextTravelDirection(int currentFloor, TravelDirection travelDirection) {
+        int topDeckFloor = currentFloor + deckCount - 1;
+        if (priorityFloor != NO_FLOOR && (priorityFloor < currentFloor || priorityFloor > topDeckFloor)) {
+            return priorityFloor > topDeckFloor ? TravelDirection.UP : TravelDirection.DOWN;
+        }
+
+        Integer nextFloorUp = destinationFloors.higher(topDeckFloor);
+        Integer nextFloorDown = destinationFloors.lower(currentFloor);
+
+        if (travelDirection == TravelDirection.UP && nextFloorUp != null) {
+            return TravelDirection.UP;
+        }
+        if (travelDirection == TravelDirection.DOWN && nextFloorDown != null) {
+            return TravelDirection.DOWN;
+        }
+        if (nextFloorUp == null && nextFloorDown == null) {
+            return null;
+        }
+        if (nextFloorUp == null) {
+            return TravelDirection.DOWN;
+        }
+        if (nextFloorDown == null) {
+            return TravelDirection.UP;
+        }
+        // Standing still with destinations in both directions, start with the closer one
+        return nextFloorUp - topDeckFloor <= currentFloor - nextFloorDown
+                ? TravelDirection.UP
+                : TravelDirection.DOWN;
     }
 
     @Override
@@ -85,6 +852,32 @@ public final class Elevator implements ElevatorPanel {
                 .add("minFloor=" + minFloor)
                 .add("floorsServed=" + floorsServed)
                 .add("currentFloor=" + currentFloor)
+                .add("deckCount=" + deckCount)
+                .add("passengerCount=" + passengerCount)
+                .add("travelDirection=" + travelDirection)
+                .add("destinationFloors=" + destinationFloors)
                 .toString();
     }
+
+    private enum StateComponent {
+        CURRENT_FLOOR,
+        TRAVEL_DIRECTION,
+        DESTINATION_FLOOR,
+        PICKUP_FLOOR,
+        PASSENGER_COUNT,
+        PRIORITY_FLOOR,
+        SPEED,
+        DWELL_STEPS
+    }
+
+    /**
+     * Where an elevator is after a step and how fast it moves.
+     *
+     * @param floor     the floor the elevator is at
+     * @param speed     the amount of floors the elevator moves per step, 0 if it stopped
+     * @param direction the direction the elevator travels into, {@code null} if it stands still
+     * @param arrived   whether the elevator stopped at its next destination
+     */
+    private record Motion(int floor, int speed, TravelDirection direction, boolean arrived) {
+    }
 }
@@ -12,6 +12,14 @@ public interface ElevatorPanel {
      */
     int getId();
 
+    /**
+     * The position of the elevator within the elevator system it is registered at. Indices are dense, from 0 up to
+     * the amount of registered elevators, so they can be used to index arrays.
+     *
+     * @return the index of the elevator, -1 if it is not registered at any system
+     */
+    int getIndex();
+
     /**
      * The floor the elevator is currently at.
      *
@@ -19,6 +27,44 @@ public interface ElevatorPanel {
      */
     int getCurrentFloor();
 
+    /**
+     * The amount of cabs stacked on top of each other, serving adjacent floors at once. The lowest cab is at the
+     * {@link #getCurrentFloor() current floor}, every further cab one floor above.
+     *
+     * @return the amount of cabs, 1 for a single-deck elevator
+     */
+    int getDeckCount();
+
+    /**
+     * Whether any cab of the elevator is at the given floor, so humans on that floor can enter and exit.
+     *
+     * @param floor the floor to check
+     * @return {@code true} if one of the cabs is at the floor
+     */
+    default boolean isAtFloor(int floor) {
+        return floor >= getCurrentFloor() && floor < getCurrentFloor() + getDeckCount();
+    }
+
+    /**
+     * Whether the given floor is within the range of floors served by this elevator.
+     *
+     * @param floor the floor to check
+     * @return {@code true} if the elevator can reach the floor, {@code false} otherwise
+     */
+    boolean canServe(int floor);
+
+    /**
+     * Lets a human enter the elevator, if it is not full yet.
+     *
+     * @return {@code true} if the human entered, {@code false} if the elevator is full
+     */
+    boolean tryEnter();
+
+    /**
+     * Lets a human that previously entered the elevator exit it again.
+     */
+    void exit();
+
     /**
      * Requesting the elevator to eventually move to the given destination floor, for humans to exit.
      *
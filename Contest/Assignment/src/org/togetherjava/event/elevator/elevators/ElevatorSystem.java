@@ -1,9 +1,22 @@
 package org.togetherjava.event.elevator.elevators;
 
 import org.togetherjava.event.elevator.humans.ElevatorListener;
+import org.togetherjava.event.elevator.logging.EventSink;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * System controlling all elevators of a building.
@@ -11,19 +24,281 @@ import java.util.List;
  * Once all elevators and humans have been registered via {@link #registerElevator(Elevator)}
  * and {@link #registerElevatorListener(ElevatorListener)} respectively,
  * the system can be made ready using {@link #ready()}.
+ * <p>
+ * Each elevator travels in a shaft of its own, unless several cars are registered to share a shaft
+ * via {@link #registerShaft(List)}.
  */
 public final class ElevatorSystem implements FloorPanelSystem {
+    /**
+     * Maximal wait of hall calls that never escalate, see {@link #setMaxWaitSteps(long)}.
+     */
+    public static final long UNLIMITED_WAIT = Long.MAX_VALUE;
+    private static final int NO_FLOOR = -1;
+
     private final List<Elevator> elevators = new ArrayList<>();
     private final List<ElevatorListener> elevatorListeners = new ArrayList<>();
+    /**
+     * Indices of the cars of each shaft shared by several cars, ordered from the bottom to the top car.
+     */
+    private final List<int[]> shafts = new ArrayList<>();
+    private HallCallQueue openHallCalls = new HallCallQueue();
+    /**
+     * Calls closed during the current step with the step they were requested at. Humans that did not fit into
+     * the serving elevator request again during the step, and their call keeps its age.
+     */
+    private final Map<HallCall, Long> hallCallsClosedThisStep = new HashMap<>();
+    /**
+     * Hall calls opened ({@code true}) or closed ({@code false}) since the changes were taken last,
+     * {@code null} unless enabled via {@link #recordHallCallChanges()}.
+     */
+    private Map<HallCall, Boolean> hallCallChanges;
+    private long maxWaitSteps = UNLIMITED_WAIT;
+    private long listenerCallbackCount;
+    private EventSink eventSink = EventSink.noOp();
+    private DispatchParameters dispatchParameters = DispatchParameters.configured();
+    /**
+     * Whether only elevators with pending destinations are moved and cause arrival events.
+     */
+    private boolean skipIdleElevators;
+    /**
+     * Indices of the elevators that are moved each step, only maintained if idle elevators are skipped.
+     */
+    private final BitSet activeElevators = new BitSet();
+    /**
+     * Elevators that received a request while having no destinations since the last step, possibly concurrently.
+     */
+    private final Queue<Elevator> requestedElevators = new ConcurrentLinkedQueue<>();
+    private ParkingPolicy parkingPolicy = ParkingPolicy.STAY;
+    /**
+     * Recent hall calls, only recorded with a parking policy. {@code null} until the first call.
+     */
+    private CallRates callRates;
+    /**
+     * Indices of idle elevators that were already told where to park, only maintained with a parking policy.
+     */
+    private final BitSet parkedElevators = new BitSet();
+    /**
+     * The floor each elevator was sent to for parking, {@link #NO_FLOOR} if it was not sent anywhere.
+     */
+    private int[] parkingFloors = new int[0];
+    /**
+     * Keeps elevators evenly spaced, {@code null} unless headway control is enabled.
+     */
+    private HeadwayController headwayController;
+    private long stepCount;
 
+    /**
+     * Registers the given elevator, which is assigned the next free index, see {@link ElevatorPanel#getIndex()}.
+     *
+     * @param elevator the elevator to register
+     */
     public void registerElevator(Elevator elevator) {
+        elevator.attach(this, elevators.size());
         elevators.add(elevator);
+        elevator.setEventSink(eventSink);
+    }
+
+    /**
+     * Registers the given cars, which share a single shaft and travel independently of each other.
+     * Each car is assigned the next free index, see {@link ElevatorPanel#getIndex()}.
+     * <p>
+     * Cars can never pass each other. Each step, a car that would come too close to its neighbour is stopped
+     * instead, and the neighbour is told to make way: a lower car moves below where the upper car is heading,
+     * an idle upper car moves above where the lower car is heading. To be always able to make way, each car must
+     * reach floors below all floors of the car above it, and floors above all floors of the car below it.
+     * The zones served by neighbouring cars may overlap otherwise, hall calls there are dispatched to the car
+     * that is not blocked by its neighbour, if possible.
+     *
+     * @param cars the cars sharing the shaft, ordered from the bottom to the top car, each with its cabs strictly
+     *             below the cabs of the next car
+     */
+    public void registerShaft(List<Elevator> cars) {
+        if (cars.isEmpty()) {
+            throw new IllegalArgumentException("A shaft needs at least one car.");
+        }
+        for (int i = 1; i < cars.size(); i++) {
+            Elevator lower = cars.get(i - 1);
+            Elevator upper = cars.get(i);
+            if (lower.topDeckFloor() >= upper.getCurrentFloor()) {
+                throw new IllegalArgumentException("The cars of a shaft must be ordered from bottom to top without"
+                        + " overlapping, but '%s' is not below '%s'.".formatted(lower, upper));
+            }
+            boolean canMakeWay = upper.getMinFloor() >= lower.getMinFloor() + lower.getDeckCount()
+                    && maxFloorOf(upper) >= maxFloorOf(lower) + upper.getDeckCount();
+            if (!canMakeWay) {
+                throw new IllegalArgumentException("Neighbouring cars of a shaft must be able to make way for each"
+                        + " other, but '%s' and '%s' can not.".formatted(lower, upper));
+            }
+        }
+
+        int[] shaft = new int[cars.size()];
+        for (int i = 0; i < cars.size(); i++) {
+            shaft[i] = elevators.size();
+            registerElevator(cars.get(i));
+        }
+        if (shaft.length > 1) {
+            shafts.add(shaft);
+        }
+    }
+
+    /**
+     * All shafts shared by several cars, see {@link #registerShaft(List)}.
+     *
+     * @return the cars of each shared shaft, ordered from the bottom to the top car
+     */
+    public List<List<Elevator>> getSharedShafts() {
+        return shafts.stream()
+                .map(shaft -> Arrays.stream(shaft).mapToObj(elevators::get).toList())
+                .toList();
+    }
+
+    /**
+     * Creates an independent copy of this system with forks of all elevators, see {@link Elevator#fork()},
+     * and the same open hall calls, dispatch parameters and idle elevators. Listeners are not copied. The fork
+     * costs time proportional to the amount of elevators and open hall calls, so it can be used to try out
+     * what-ifs without changing this system.
+     *
+     * @return the fork, ready to receive elevator requests
+     */
+    public synchronized ElevatorSystem fork() {
+        ElevatorSystem fork = new ElevatorSystem();
+        fork.dispatchParameters = dispatchParameters;
+        elevators.forEach(elevator -> fork.registerElevator(elevator.fork()));
+        fork.shafts.addAll(shafts);
+        fork.openHallCalls = openHallCalls.copy();
+        fork.maxWaitSteps = maxWaitSteps;
+        fork.skipIdleElevators = skipIdleElevators;
+        fork.activeElevators.or(activeElevators);
+        requestedElevators.forEach(elevator -> fork.activeElevators.set(elevator.getIndex()));
+        fork.parkingPolicy = parkingPolicy;
+        fork.callRates = callRates == null ? null : callRates.copy();
+        fork.parkedElevators.or(parkedElevators);
+        fork.parkingFloors = parkingFloors.clone();
+        fork.headwayController = headwayController == null ? null : headwayController.copy();
+        fork.stepCount = stepCount;
+        return fork;
+    }
+
+    public List<Elevator> getElevators() {
+        return Collections.unmodifiableList(elevators);
     }
 
     public void registerElevatorListener(ElevatorListener listener) {
         elevatorListeners.add(listener);
     }
 
+    /**
+     * Sets the sink that events of this system and all its elevators, such as dispatching, are reported to.
+     *
+     * @param eventSink the sink to report events to
+     */
+    public void setEventSink(EventSink eventSink) {
+        this.eventSink = eventSink;
+        elevators.forEach(elevator -> elevator.setEventSink(eventSink));
+    }
+
+    /**
+     * Sets the weights used to pick the elevator serving a hall call.
+     * Defaults to the {@link DispatchParameters#configured() configured} parameters.
+     *
+     * @param dispatchParameters the weights to use from now on
+     */
+    public synchronized void setDispatchParameters(DispatchParameters dispatchParameters) {
+        this.dispatchParameters = dispatchParameters;
+    }
+
+    /**
+     * Sets whether elevators without any destinations are skipped when moving elevators. Such idle elevators then
+     * cost nothing per step and the arrival events they would cause at their floor are suppressed.
+     * <p>
+     * Elevators join the set of active elevators once they receive a request and leave it again
+     * after they stood still for a step without any destinations left. Must be set before the system is ready.
+     *
+     * @param skipIdleElevators {@code true} to skip idle elevators, {@code false} to move all elevators each step
+     */
+    public void setSkipIdleElevators(boolean skipIdleElevators) {
+        this.skipIdleElevators = skipIdleElevators;
+    }
+
+    /**
+     * Sets what elevators do once they have no destinations left. Defaults to {@link ParkingPolicy#STAY}.
+     *
+     * @param parkingPolicy the policy to use from now on
+     */
+    public synchronized void setParkingPolicy(ParkingPolicy parkingPolicy) {
+        this.parkingPolicy = parkingPolicy;
+    }
+
+    /**
+     * Sets whether elevators traveling into the same direction are kept evenly spaced, by holding elevators that
+     * follow another one too closely and by cancelling pickups that another elevator already served,
+     * see {@link HeadwayController}. Must be set after all elevators are registered. Disabled by default.
+     *
+     * @param headwayControl {@code true} to keep elevators spaced, {@code false} to let them travel freely
+     */
+    public synchronized void setHeadwayControl(boolean headwayControl) {
+        headwayController = headwayControl ? new HeadwayController(minServedFloor(), maxServedFloor()) : null;
+    }
+
+    /**
+     * Sets how many steps a hall call may wait until it is served before anything else. The closest empty elevator
+     * then travels to the call right away, see {@link Elevator#requestPriorityFloor(int)}, so no call waits much
+     * longer than the bound plus the time to travel there. Overdue calls are escalated oldest first, and only once
+     * an elevator is empty, which keeps passengers from being taken on detours. If the building is overloaded and
+     * no elevator ever empties, calls can therefore wait longer. Defaults to {@link #UNLIMITED_WAIT}, leaving the
+     * order of all calls to the elevators.
+     *
+     * @param maxWaitSteps the amount of steps, at least 1
+     */
+    public synchronized void setMaxWaitSteps(long maxWaitSteps) {
+        if (maxWaitSteps < 1) {
+            throw new IllegalArgumentException("The maximal wait must be at least 1 step, but got " + maxWaitSteps);
+        }
+        this.maxWaitSteps = maxWaitSteps;
+    }
+
+    /**
+     * Whether the next step also depends on how long hall calls waited or how many steps in a row elevators were
+     * held, which {@link Elevator#getStateHash()} does not cover. That is the case with headway control, see
+     * {@link #setHeadwayControl(boolean)}, or a maximal wait, see {@link #setMaxWaitSteps(long)}.
+     *
+     * @return {@code true} if equal hashes of all elevators do not imply that the system behaves the same
+     */
+    public synchronized boolean dependsOnHistory() {
+        return headwayController != null || maxWaitSteps != UNLIMITED_WAIT;
+    }
+
+    /**
+     * Records which hall calls are opened and closed from now on, to be taken via {@link #takeHallCallChanges()}.
+     */
+    public synchronized void recordHallCallChanges() {
+        if (hallCallChanges == null) {
+            hallCallChanges = new LinkedHashMap<>();
+        }
+    }
+
+    /**
+     * Takes all hall call changes recorded since this was called last. A call that was closed and opened again
+     * in between, for example because not all humans fit into the serving elevator, did not change.
+     *
+     * @return the changes, in the order the calls first changed
+     * @throws IllegalStateException if changes are not recorded, see {@link #recordHallCallChanges()}
+     */
+    public synchronized List<HallCallChange> takeHallCallChanges() {
+        if (hallCallChanges == null) {
+            throw new IllegalStateException("Hall call changes are not recorded.");
+        }
+        if (hallCallChanges.isEmpty()) {
+            return List.of();
+        }
+
+        List<HallCallChange> changes = new ArrayList<>(hallCallChanges.size());
+        hallCallChanges.forEach((hallCall, opened) ->
+                changes.add(new HallCallChange(hallCall.floor(), hallCall.direction(), opened)));
+        hallCallChanges.clear();
+        return changes;
+    }
+
     /**
      * Upon calling this, the system is ready to receive elevator requests. Elevators may now start moving.
      */
@@ -32,18 +307,520 @@ public final class ElevatorSystem implements FloorPanelSystem {
     }
 
     @Override
-    public void requestElevator(int atFloor, TravelDirection desiredTravelDirection) {
-        // TODO Implement. This represents a human standing in the corridor,
-        //  requesting that an elevator comes to pick them up for travel into the given direction.
-        //  The system is supposed to make sure that an elevator will eventually reach this floor to pick up the human.
-        //  The human can then enter the elevator and request their actual destination within the elevator.
-        //  Ideally this has to select the best elevator among all which can reduce the time
-        //  for the human spending waiting (either in corridor or in the elevator itself).
-        System.out.println("Request for elevator received");
+    public synchronized void requestElevator(int atFloor, TravelDirection desiredTravelDirection) {
+        Elevator elevator = elevators.stream()
+                .filter(candidate -> candidate.canServe(atFloor))
+                .min(Comparator.comparingDouble(candidate -> pickupCost(candidate, atFloor)))
+                .orElseThrow(() -> new IllegalStateException(
+                        "No elevator is able to serve the floor %d.".formatted(atFloor)));
+        dispatch(elevator, atFloor, desiredTravelDirection);
+    }
+
+    @Override
+    public synchronized void requestElevatorTo(int atFloor, int destinationFloor) {
+        Elevator elevator = elevators.stream()
+                .filter(candidate -> candidate.canServe(atFloor) && candidate.canServe(destinationFloor))
+                .min(Comparator.comparingDouble(candidate -> pickupCost(candidate, atFloor)))
+                .orElseThrow(() -> new IllegalStateException(
+                        "No elevator is able to serve the floors %d and %d.".formatted(atFloor, destinationFloor)));
+        dispatch(elevator, atFloor, destinationFloor > atFloor ? TravelDirection.UP : TravelDirection.DOWN);
+    }
+
+    private double pickupCost(Elevator candidate, int atFloor) {
+        boolean isBlocked = !shafts.isEmpty() && isBlockedInShaft(candidate, atFloor);
+        return dispatchParameters.pickupCost(candidate, atFloor, isBlocked);
+    }
+
+    /**
+     * Whether a neighbouring car in the shaft of the given car is at or beyond the given floor,
+     * so that it has to make way before the car can get there.
+     */
+    private boolean isBlockedInShaft(Elevator car, int floor) {
+        for (int[] shaft : shafts) {
+            for (int i = 0; i < shaft.length; i++) {
+                if (shaft[i] != car.getIndex()) {
+                    continue;
+                }
+                if (floor > car.topDeckFloor()) {
+                    return i + 1 < shaft.length && elevators.get(shaft[i + 1]).getCurrentFloor() <= floor;
+                }
+                return floor < car.getCurrentFloor() && i > 0 && elevators.get(shaft[i - 1]).topDeckFloor() >= floor;
+            }
+        }
+        return false;
+    }
+
+    private void dispatch(Elevator elevator, int atFloor, TravelDirection desiredTravelDirection) {
+        elevator.requestPickupFloor(atFloor);
+        HallCall hallCall = new HallCall(atFloor, desiredTravelDirection);
+        if (openHallCalls.open(hallCall, hallCallsClosedThisStep.getOrDefault(hallCall, stepCount))) {
+            recordHallCallChange(hallCall, true);
+        }
+        if (parkingPolicy != ParkingPolicy.STAY) {
+            callRates().record(atFloor, desiredTravelDirection, stepCount);
+        }
+
+        if (eventSink.isEnabled(EventSink.Level.DEBUG)) {
+            eventSink.log(EventSink.Level.DEBUG, "Hall call at floor %d going %s assigned to elevator %d"
+                    .formatted(atFloor, desiredTravelDirection, elevator.getId()));
+        }
     }
 
     public void moveOneFloor() {
-        elevators.forEach(Elevator::moveOneFloor);
-        elevators.forEach(elevator -> elevatorListeners.forEach(listener -> listener.onElevatorArrivedAtFloor(elevator)));
+        hallCallsClosedThisStep.clear();
+        if (maxWaitSteps != UNLIMITED_WAIT) {
+            escalateOverdueHallCalls();
+        }
+
+        List<Elevator> steppedElevators = collectSteppedElevators();
+        BitSet heldElevators = headwayController == null
+                ? new BitSet()
+                : headwayController.elevatorsToHold(steppedElevators, elevators.size());
+        List<Runnable> wayMakers = new ArrayList<>();
+        BitSet stoppedElevators = shafts.isEmpty()
+                ? heldElevators
+                : avoidCollisions(steppedElevators, heldElevators, wayMakers);
+        for (Elevator elevator : steppedElevators) {
+            // Held elevators stand still for the step, but humans may still enter and exit
+            if (stoppedElevators.get(elevator.getIndex())) {
+                elevator.hold();
+            } else {
+                elevator.moveOneFloor();
+            }
+        }
+        // Only once all cars moved, so cars making way do not move into a neighbour during this step
+        wayMakers.forEach(Runnable::run);
+
+        // Fast elevators passing a floor cause no events there, humans can neither enter nor exit
+        List<Elevator> arrivedElevators = collectStoppedElevators(steppedElevators);
+        if (!openHallCalls.isEmpty()) {
+            // Humans enter any elevator at their floor, so every elevator serves the calls on its floor.
+            // Humans that do not fit anymore, or want to go where it does not go, request again while being notified.
+            arrivedElevators.forEach(this::closeHallCallsAt);
+        }
+
+        arrivedElevators.forEach(elevator -> elevatorListeners.forEach(listener -> listener.onElevatorArrivedAtFloor(elevator)));
+        listenerCallbackCount += (long) arrivedElevators.size() * elevatorListeners.size();
+        stepCount++;
+
+        if (headwayController != null) {
+            headwayController.recordHolds(steppedElevators, heldElevators);
+        }
+        if (parkingPolicy != ParkingPolicy.STAY) {
+            parkIdleElevators(steppedElevators);
+        }
+        if (skipIdleElevators) {
+            deactivateIdleElevators(steppedElevators);
+        }
+    }
+
+    /**
+     * Stops cars that would come too close to a neighbouring car in their shaft during this step and collects
+     * the requests that make the neighbour give way. If two cars approach each other, the lower one is stopped first.
+     *
+     * @param steppedElevators the elevators that move during this step
+     * @param heldElevators    indices of the elevators that are held anyway
+     * @param wayMakers        receives the requests, to be run once all cars moved
+     * @return indices of all elevators that stand still during this step, including the held ones
+     */
+    private BitSet avoidCollisions(List<Elevator> steppedElevators, BitSet heldElevators, List<Runnable> wayMakers) {
+        BitSet movingElevators = new BitSet();
+        steppedElevators.forEach(elevator -> movingElevators.set(elevator.getIndex()));
+        movingElevators.andNot(heldElevators);
+        BitSet stoppedElevators = (BitSet) heldElevators.clone();
+
+        for (int[] shaft : shafts) {
+            int[] floors = new int[shaft.length];
+            int[] nextFloors = new int[shaft.length];
+            for (int i = 0; i < shaft.length; i++) {
+                Elevator car = elevators.get(shaft[i]);
+                floors[i] = car.getCurrentFloor();
+                nextFloors[i] = movingElevators.get(shaft[i]) ? car.nextFloor() : floors[i];
+            }
+
+            // Stopping a car may bring it too close to the car behind it, so repeat until no car is too close
+            boolean isResolved;
+            do {
+                isResolved = true;
+                for (int i = 0; i + 1 < shaft.length; i++) {
+                    Elevator lower = elevators.get(shaft[i]);
+                    Elevator upper = elevators.get(shaft[i + 1]);
+                    if (nextFloors[i] + lower.getDeckCount() <= nextFloors[i + 1]) {
+                        continue;
+                    }
+                    isResolved = false;
+
+                    if (nextFloors[i] > floors[i]) {
+                        nextFloors[i] = floors[i];
+                        stoppedElevators.set(shaft[i]);
+                        wayMakers.add(() -> makeWayUp(upper, lower));
+                    } else if (nextFloors[i + 1] < floors[i + 1]) {
+                        nextFloors[i + 1] = floors[i + 1];
+                        stoppedElevators.set(shaft[i + 1]);
+                        wayMakers.add(() -> makeWayDown(lower, upper));
+                    } else {
+                        throw new IllegalStateException("The cars '%s' and '%s' of a shaft overlap."
+                                .formatted(lower, upper));
+                    }
+                }
+            } while (!isResolved);
+        }
+        return stoppedElevators;
+    }
+
+    /**
+     * Sends the given upper car above the next stop of the blocked car below it, if it is idle. Busy upper cars
+     * either travel up anyway, or travel down until they are blocked themselves, and the blocked car makes way.
+     */
+    private void makeWayUp(Elevator upper, Elevator blocked) {
+        int blockedStop = blocked.nextStopFloor();
+        if (isIdle(upper) && blockedStop != NO_FLOOR) {
+            upper.requestPickupFloor(Math.min(maxFloorOf(upper), blockedStop + upper.getDeckCount()));
+        }
+    }
+
+    /**
+     * Sends the given lower car below the next stop of the blocked car above it, before serving anything else.
+     */
+    private void makeWayDown(Elevator lower, Elevator blocked) {
+        int blockedStop = blocked.nextStopFloor();
+        if (blockedStop == NO_FLOOR) {
+            return;
+        }
+        int wayFloor = Math.max(lower.getMinFloor(), blockedStop - lower.getDeckCount());
+        if (wayFloor < lower.getCurrentFloor()) {
+            lower.requestPriorityFloor(wayFloor);
+        }
+    }
+
+    /**
+     * Informs the system that the given elevator received a request while having no destinations.
+     * May be called concurrently, for example by humans running as agents.
+     */
+    void elevatorRequested(Elevator elevator) {
+        if (skipIdleElevators) {
+            requestedElevators.add(elevator);
+        }
+    }
+
+    /**
+     * The elevators to move during a step, all elevators unless idle elevators are skipped.
+     */
+    private List<Elevator> collectSteppedElevators() {
+        if (!skipIdleElevators) {
+            return elevators;
+        }
+
+        Elevator requestedElevator;
+        while ((requestedElevator = requestedElevators.poll()) != null) {
+            activeElevators.set(requestedElevator.getIndex());
+        }
+
+        // Iterating in index order keeps the order of arrival events the same as without skipping
+        List<Elevator> steppedElevators = new ArrayList<>(activeElevators.cardinality());
+        for (int i = activeElevators.nextSetBit(0); i >= 0; i = activeElevators.nextSetBit(i + 1)) {
+            steppedElevators.add(elevators.get(i));
+        }
+        return steppedElevators;
+    }
+
+    /**
+     * The given elevators that stopped during the last step, the given list itself if all of them stopped.
+     */
+    private static List<Elevator> collectStoppedElevators(List<Elevator> steppedElevators) {
+        boolean allStopped = true;
+        for (Elevator elevator : steppedElevators) {
+            if (!elevator.isStopped()) {
+                allStopped = false;
+                break;
+            }
+        }
+        if (allStopped) {
+            return steppedElevators;
+        }
+
+        List<Elevator> stoppedElevators = new ArrayList<>(steppedElevators.size());
+        for (Elevator elevator : steppedElevators) {
+            if (elevator.isStopped()) {
+                stoppedElevators.add(elevator);
+            }
+        }
+        return stoppedElevators;
+    }
+
+    private void deactivateIdleElevators(List<Elevator> steppedElevators) {
+        for (Elevator elevator : steppedElevators) {
+            // Elevators that just reached their last destination still count as traveling. They have to stand
+            // still for a step first, as without skipping, so that they settle and cause arrival events there.
+            if (isIdle(elevator)) {
+                activeElevators.clear(elevator.getIndex());
+            }
+        }
+    }
+
+    /**
+     * Sends elevators that just became idle to the floor they are predicted to be needed at next.
+     */
+    private synchronized void parkIdleElevators(List<Elevator> steppedElevators) {
+        if (parkingFloors.length < elevators.size()) {
+            int oldLength = parkingFloors.length;
+            parkingFloors = Arrays.copyOf(parkingFloors, elevators.size());
+            Arrays.fill(parkingFloors, oldLength, parkingFloors.length, NO_FLOOR);
+        }
+
+        for (Elevator elevator : steppedElevators) {
+            int index = elevator.getIndex();
+            if (!isIdle(elevator)) {
+                parkedElevators.clear(index);
+                continue;
+            }
+            if (parkedElevators.get(index)) {
+                continue;
+            }
+
+            parkedElevators.set(index);
+            parkingFloors[index] = NO_FLOOR;
+            int parkingFloor = predictParkingFloor(elevator);
+            if (parkingFloor != elevator.getCurrentFloor()) {
+                parkingFloors[index] = parkingFloor;
+                elevator.requestDestinationFloor(parkingFloor);
+            }
+        }
+    }
+
+    /**
+     * The served floor with the highest rate of recent calls that is not claimed by another elevator yet, either
+     * because it is idle there or on its way to park there. Ties are broken in favour of closer floors.
+     */
+    private int predictParkingFloor(Elevator elevator) {
+        if (callRates == null) {
+            return elevator.getCurrentFloor();
+        }
+
+        BitSet claimedFloors = new BitSet();
+        for (Elevator other : elevators) {
+            if (other == elevator) {
+                continue;
+            }
+            if (parkingFloors[other.getIndex()] != NO_FLOOR) {
+                claimedFloors.set(parkingFloors[other.getIndex()]);
+            } else if (isIdle(other)) {
+                claimedFloors.set(other.getCurrentFloor());
+            }
+        }
+
+        int parkingFloor = elevator.getCurrentFloor();
+        double highestRate = 0;
+        int maxFloor = maxFloorOf(elevator);
+        for (int floor = elevator.getMinFloor(); floor <= maxFloor; floor++) {
+            double rate = callRates.rateOf(floor);
+            if (claimedFloors.get(floor) || rate < highestRate) {
+                continue;
+            }
+            boolean isCloser = Math.abs(floor - elevator.getCurrentFloor())
+                    < Math.abs(parkingFloor - elevator.getCurrentFloor());
+            if (rate > highestRate || isCloser) {
+                parkingFloor = floor;
+                highestRate = rate;
+            }
+        }
+        return parkingFloor;
+    }
+
+    private CallRates callRates() {
+        if (callRates == null) {
+            callRates = new CallRates(minServedFloor(), maxServedFloor());
+        }
+        return callRates;
+    }
+
+    private int minServedFloor() {
+        return elevators.stream().mapToInt(Elevator::getMinFloor).min().orElse(1);
+    }
+
+    private int maxServedFloor() {
+        return elevators.stream()
+                .mapToInt(ElevatorSystem::maxFloorOf)
+                .max()
+                .orElse(minServedFloor());
+    }
+
+    private static int maxFloorOf(Elevator elevator) {
+        return elevator.getMinFloor() + elevator.getFloorsServed() - 1;
+    }
+
+    private static boolean isIdle(Elevator elevator) {
+        return elevator.getPendingDestinationCount() == 0 && elevator.getTravelDirection().isEmpty();
+    }
+
+    /**
+     * The amount of steps until the next step in which anything can happen, i.e. an elevator stops at one of its
+     * destinations or reaches a floor with humans waiting. All steps before are idle, elevators merely pass floors.
+     * Must only be called between steps.
+     *
+     * @return the amount of steps, at least 1; {@link Integer#MAX_VALUE} if nothing is going to happen anymore
+     */
+    public synchronized int stepsUntilNextEvent() {
+        List<Elevator> steppedElevators = collectSteppedElevators();
+
+        // Humans waiting at a floor always have an open hall call there, since they request again if they
+        // could not enter an elevator
+        NavigableSet<Integer> waitingFloors = new TreeSet<>();
+        openHallCalls.calls().forEach(hallCall -> waitingFloors.add(hallCall.floor()));
+
+        if (headwayController != null
+                && !headwayController.elevatorsToHold(steppedElevators, elevators.size()).isEmpty()) {
+            // Gaps between elevators traveling into the same direction only change when one of them stops or turns,
+            // so elevators are never held during skipped steps
+            return 1;
+        }
+
+        int steps = Integer.MAX_VALUE;
+        HallCallQueue.AgedHallCall oldestWaitingCall = openHallCalls.oldestWaitingCall();
+        if (maxWaitSteps != UNLIMITED_WAIT && oldestWaitingCall != null) {
+            // The call escalates during the step that starts once it waited for the maximal amount of steps
+            long stepsUntilEscalation = oldestWaitingCall.requestedAtStep() + maxWaitSteps - stepCount + 1;
+            steps = (int) Math.max(1, Math.min(Integer.MAX_VALUE, stepsUntilEscalation));
+        }
+        for (int[] shaft : shafts) {
+            steps = Math.min(steps, stepsUntilCarsMayMeet(shaft));
+        }
+        for (Elevator elevator : steppedElevators) {
+            if (parkingPolicy != ParkingPolicy.STAY && elevator.getPendingDestinationCount() == 0
+                    && !parkedElevators.get(elevator.getIndex())) {
+                // The elevator is about to become idle and may be sent to park
+                return 1;
+            }
+            steps = Math.min(steps, elevator.stepsUntilNextEvent(waitingFloors));
+        }
+        return steps;
+    }
+
+    /**
+     * The amount of steps in which no car of the given shaft can come too close to its neighbour, even if both
+     * travel towards each other at full speed.
+     */
+    private int stepsUntilCarsMayMeet(int[] shaft) {
+        int steps = Integer.MAX_VALUE;
+        for (int i = 0; i + 1 < shaft.length; i++) {
+            Elevator lower = elevators.get(shaft[i]);
+            Elevator upper = elevators.get(shaft[i + 1]);
+            if (isIdle(lower) && isIdle(upper)) {
+                continue;
+            }
+            int freeFloors = upper.getCurrentFloor() - lower.topDeckFloor() - 1;
+            int approachPerStep = lower.getSpeedProfile().maxFloorsPerStep()
+                    + upper.getSpeedProfile().maxFloorsPerStep();
+            steps = Math.min(steps, Math.max(1, freeFloors / approachPerStep));
+        }
+        return steps;
+    }
+
+    /**
+     * Executes the given amount of idle steps at once, moving all elevators without notifying any listener.
+     * Must be less than {@link #stepsUntilNextEvent()}.
+     *
+     * @param steps the amount of steps to skip
+     */
+    public void skipSteps(int steps) {
+        List<Elevator> steppedElevators = collectSteppedElevators();
+        steppedElevators.forEach(elevator -> elevator.skipSteps(steps));
+        stepCount += steps;
+        hallCallsClosedThisStep.clear();
+        if (headwayController != null) {
+            headwayController.recordHolds(steppedElevators, new BitSet());
+        }
+    }
+
+    /**
+     * The amount of hall calls that were requested but not served by any elevator yet.
+     *
+     * @return the amount of open hall calls
+     */
+    public synchronized int getOpenHallCallCount() {
+        return openHallCalls.size();
+    }
+
+    /**
+     * The amount of steps the oldest open hall call waits already.
+     *
+     * @return the amount of steps, 0 if no hall call is open
+     */
+    public synchronized long getOldestHallCallAge() {
+        return stepCount - openHallCalls.oldestRequestedAtStep().orElse(stepCount);
+    }
+
+    /**
+     * The total amount of {@link ElevatorListener#onElevatorArrivedAtFloor(ElevatorPanel)} callbacks
+     * fired by this system so far.
+     *
+     * @return the amount of fired arrival callbacks
+     */
+    public long getListenerCallbackCount() {
+        return listenerCallbackCount;
+    }
+
+    private synchronized void closeHallCallsAt(Elevator servingElevator) {
+        for (int floor = servingElevator.getCurrentFloor(); floor <= servingElevator.topDeckFloor(); floor++) {
+            boolean closedAnyCall = closeHallCall(new HallCall(floor, TravelDirection.UP));
+            closedAnyCall |= closeHallCall(new HallCall(floor, TravelDirection.DOWN));
+
+            if (closedAnyCall && headwayController != null) {
+                // Nobody waits at the floor anymore, so other elevators sent there can serve other floors instead
+                // of chasing the serving elevator
+                for (Elevator elevator : elevators) {
+                    if (elevator != servingElevator) {
+                        elevator.cancelPickupFloor(floor);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean closeHallCall(HallCall hallCall) {
+        OptionalLong requestedAtStep = openHallCalls.close(hallCall);
+        if (requestedAtStep.isEmpty()) {
+            return false;
+        }
+        hallCallsClosedThisStep.put(hallCall, requestedAtStep.getAsLong());
+        recordHallCallChange(hallCall, false);
+        return true;
+    }
+
+    private void recordHallCallChange(HallCall hallCall, boolean opened) {
+        if (hallCallChanges != null && hallCallChanges.remove(hallCall) == null) {
+            hallCallChanges.put(hallCall, opened);
+        }
+    }
+
+    /**
+     * Sends an elevator to each hall call that waited for the maximal amount of steps, oldest first.
+     * If no elevator is available, the calls stay waiting and are escalated during a later step.
+     */
+    private synchronized void escalateOverdueHallCalls() {
+        HallCallQueue.AgedHallCall oldestCall;
+        while ((oldestCall = openHallCalls.oldestWaitingCall()) != null
+                && stepCount - oldestCall.requestedAtStep() >= maxWaitSteps) {
+            int floor = oldestCall.call().floor();
+            Elevator closestElevator = null;
+            for (Elevator elevator : elevators) {
+                boolean isAvailable = elevator.canServe(floor) && elevator.getPassengerCount() == 0
+                        && !elevator.hasPriorityFloor();
+                if (isAvailable && (closestElevator == null
+                        || elevator.distanceTo(floor) < closestElevator.distanceTo(floor))) {
+                    closestElevator = elevator;
+                }
+            }
+            if (closestElevator == null) {
+                return;
+            }
+
+            closestElevator.requestPriorityFloor(floor);
+            openHallCalls.escalate(oldestCall);
+            if (eventSink.isEnabled(EventSink.Level.DEBUG)) {
+                eventSink.log(EventSink.Level.DEBUG, "Hall call at floor %d waited %d steps, escalated to elevator %d"
+                        .formatted(floor, stepCount - oldestCall.requestedAtStep(), closestElevator.getId()));
+            }
+        }
     }
 }
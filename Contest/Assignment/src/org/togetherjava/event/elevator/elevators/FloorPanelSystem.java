@@ -14,4 +14,18 @@ public interface FloorPanelSystem {
      * requesting that an elevator comes to pick them up for travel into the given direction.
      */
     void requestElevator(int atFloor, TravelDirection desiredTravelDirection);
+
+    /**
+     * Requests an elevator to move to the given floor to pick up a human, which can also take them to their
+     * destination floor. Elevators that do not serve the destination are not sent.
+     *
+     * @param atFloor          the floor to pick up the human at, must be within the range served by the system
+     * @param destinationFloor the floor the human wants to travel to, must differ from the pickup floor
+     * @apiNote This represents a destination panel in the corridor, where humans enter their destination instead of
+     * a direction. Systems that do not distinguish elevators by their floors just request an elevator for the
+     * direction of travel.
+     */
+    default void requestElevatorTo(int atFloor, int destinationFloor) {
+        requestElevator(atFloor, destinationFloor > atFloor ? TravelDirection.UP : TravelDirection.DOWN);
+    }
 }
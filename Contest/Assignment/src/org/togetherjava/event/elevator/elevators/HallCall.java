@@ -0,0 +1,10 @@
+package org.togetherjava.event.elevator.elevators;
+
+/**
+ * A request for an elevator made by a human in the corridor, which is not served yet.
+ *
+ * @param floor     the floor the human waits at
+ * @param direction the direction the human wants to travel into
+ */
+record HallCall(int floor, TravelDirection direction) {
+}
@@ -0,0 +1,11 @@
+package org.togetherjava.event.elevator.elevators;
+
+/**
+ * A hall call that was opened or closed, see {@link ElevatorSystem#takeHallCallChanges()}.
+ *
+ * @param floor     the floor of the call
+ * @param direction the direction the humans at the floor want to travel into
+ * @param opened    whether the call was opened, {@code false} if it was served and closed
+ */
+public record HallCallChange(int floor, TravelDirection direction, boolean opened) {
+}
@@ -0,0 +1,135 @@
+package org.togetherjava.event.elevator.elevators;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The open hall calls of a system, each with the step it was requested at.
+ * <p>
+ * Calls are additionally ordered by age, so the oldest call is found in {@code O(log n)}. Overdue calls are moved
+ * from the waiting to the escalated calls once an elevator was sent to serve them before anything else.
+ */
+final class HallCallQueue {
+    private static final Comparator<AgedHallCall> BY_AGE = Comparator.comparingLong(AgedHallCall::requestedAtStep)
+            .thenComparingInt(agedCall -> agedCall.call().floor())
+            .thenComparing(agedCall -> agedCall.call().direction());
+
+    private final Map<HallCall, Long> callToRequestedAtStep;
+    private final NavigableSet<AgedHallCall> waitingCalls;
+    private final NavigableSet<AgedHallCall> escalatedCalls;
+
+    HallCallQueue() {
+        callToRequestedAtStep = new HashMap<>();
+        waitingCalls = new TreeSet<>(BY_AGE);
+        escalatedCalls = new TreeSet<>(BY_AGE);
+    }
+
+    private HallCallQueue(HallCallQueue original) {
+        callToRequestedAtStep = new HashMap<>(original.callToRequestedAtStep);
+        waitingCalls = new TreeSet<>(original.waitingCalls);
+        escalatedCalls = new TreeSet<>(original.escalatedCalls);
+    }
+
+    HallCallQueue copy() {
+        return new HallCallQueue(this);
+    }
+
+    /**
+     * Opens the given call, unless it is open already, in which case it keeps its original age.
+     *
+     * @param call            the call to open
+     * @param requestedAtStep the step the call was requested at
+     * @return whether the call was opened, {@code false} if it was open already
+     */
+    boolean open(HallCall call, long requestedAtStep) {
+        if (callToRequestedAtStep.putIfAbsent(call, requestedAtStep) != null) {
+            return false;
+        }
+        waitingCalls.add(new AgedHallCall(requestedAtStep, call));
+        return true;
+    }
+
+    /**
+     * Closes the given call, if it is open.
+     *
+     * @param call the call to close
+     * @return the step the call was requested at, empty if it was not open
+     */
+    OptionalLong close(HallCall call) {
+        Long requestedAtStep = callToRequestedAtStep.remove(call);
+        if (requestedAtStep == null) {
+            return OptionalLong.empty();
+        }
+
+        AgedHallCall agedCall = new AgedHallCall(requestedAtStep, call);
+        if (!waitingCalls.remove(agedCall)) {
+            escalatedCalls.remove(agedCall);
+        }
+        return OptionalLong.of(requestedAtStep);
+    }
+
+    /**
+     * The oldest call that was not escalated yet.
+     *
+     * @return the call with the step it was requested at, {@code null} if no call is waiting
+     */
+    AgedHallCall oldestWaitingCall() {
+        return waitingCalls.isEmpty() ? null : waitingCalls.first();
+    }
+
+    /**
+     * Marks the given waiting call as escalated, so it is not returned by {@link #oldestWaitingCall()} anymore.
+     *
+     * @param agedCall the call to escalate, as returned by {@link #oldestWaitingCall()}
+     */
+    void escalate(AgedHallCall agedCall) {
+        if (waitingCalls.remove(agedCall)) {
+            escalatedCalls.add(agedCall);
+        }
+    }
+
+    /**
+     * The step the oldest open call was requested at, whether it was escalated or not.
+     *
+     * @return the step, empty if no call is open
+     */
+    OptionalLong oldestRequestedAtStep() {
+        if (waitingCalls.isEmpty() && escalatedCalls.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        if (escalatedCalls.isEmpty()) {
+            return OptionalLong.of(waitingCalls.first().requestedAtStep());
+        }
+        if (waitingCalls.isEmpty()) {
+            return OptionalLong.of(escalatedCalls.first().requestedAtStep());
+        }
+        return OptionalLong.of(Math.min(waitingCalls.first().requestedAtStep(),
+                escalatedCalls.first().requestedAtStep()));
+    }
+
+    Set<HallCall> calls() {
+        return callToRequestedAtStep.keySet();
+    }
+
+    boolean isEmpty() {
+        return callToRequestedAtStep.isEmpty();
+    }
+
+    int size() {
+        return callToRequestedAtStep.size();
+    }
+
+    /**
+     * An open hall call together with the step it was requested at.
+     *
+     * @param requestedAtStep the step the call was first requested at
+     * @param call            the call
+     */
+    record AgedHallCall(long requestedAtStep, HallCall call) {
+    }
+}
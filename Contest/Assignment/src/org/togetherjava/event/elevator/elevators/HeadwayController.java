@@ -0,0 +1,98 @@
+package org.togetherjava.event.elevator.elevators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps elevators traveling into the same direction evenly spaced, so that they do not bunch up and travel
+ * together, which would leave long gaps for the floors behind them.
+ * <p>
+ * Elevators moving into the same direction are ordered by how far they got. Whenever an elevator follows the one
+ * ahead of it closer than the target headway, it is held at its floor for a step, which lets the gap grow again.
+ * The target headway spreads all elevators moving into a direction evenly across the building. To not delay its
+ * passengers for too long, only empty elevators are held, for at most as many steps in a row as the target headway.
+ * <p>
+ * Bunched elevators also tend to chase the same floors: an elevator sent to pick up humans finds them gone,
+ * because another elevator passed by first. With headway control enabled, the {@link ElevatorSystem} therefore
+ * also cancels such pickups, see {@link Elevator#cancelPickupFloor(int)}.
+ */
+final class HeadwayController {
+    private final int minFloor;
+    private final int maxFloor;
+    /**
+     * How many steps in a row each elevator was held, by index.
+     */
+    private int[] consecutiveHolds = new int[0];
+
+    HeadwayController(int minFloor, int maxFloor) {
+        this.minFloor = minFloor;
+        this.maxFloor = maxFloor;
+    }
+
+    HeadwayController copy() {
+        HeadwayController copy = new HeadwayController(minFloor, maxFloor);
+        copy.consecutiveHolds = consecutiveHolds.clone();
+        return copy;
+    }
+
+    /**
+     * The elevators to hold during the next step, without changing any state.
+     *
+     * @param elevators         the elevators that are moved during the next step
+     * @param amountOfElevators the amount of elevators registered at the system
+     * @return the indices of the elevators to hold
+     */
+    BitSet elevatorsToHold(List<Elevator> elevators, int amountOfElevators) {
+        if (consecutiveHolds.length < amountOfElevators) {
+            consecutiveHolds = Arrays.copyOf(consecutiveHolds, amountOfElevators);
+        }
+
+        BitSet heldElevators = new BitSet();
+        holdFollowers(elevators, TravelDirection.UP, heldElevators);
+        holdFollowers(elevators, TravelDirection.DOWN, heldElevators);
+        return heldElevators;
+    }
+
+    /**
+     * Records which elevators were held during the last step.
+     *
+     * @param steppedElevators the elevators that were moved or held during the step
+     * @param heldElevators    the indices of the held elevators
+     */
+    void recordHolds(List<Elevator> steppedElevators, BitSet heldElevators) {
+        for (Elevator elevator : steppedElevators) {
+            int index = elevator.getIndex();
+            consecutiveHolds[index] = heldElevators.get(index) ? consecutiveHolds[index] + 1 : 0;
+        }
+    }
+
+    private void holdFollowers(List<Elevator> elevators, TravelDirection direction, BitSet heldElevators) {
+        List<Elevator> movingElevators = new ArrayList<>();
+        for (Elevator elevator : elevators) {
+            if (elevator.getTravelDirection().orElse(null) == direction) {
+                movingElevators.add(elevator);
+            }
+        }
+        if (movingElevators.size() < 2) {
+            return;
+        }
+
+        // The elevator that got the furthest comes first, ties in index order
+        Comparator<Elevator> byProgress = Comparator.comparingInt(Elevator::getCurrentFloor);
+        movingElevators.sort(direction == TravelDirection.UP ? byProgress.reversed() : byProgress);
+
+        int targetHeadway = Math.max(1, (maxFloor - minFloor) / movingElevators.size());
+        for (int i = 1; i < movingElevators.size(); i++) {
+            Elevator leader = movingElevators.get(i - 1);
+            Elevator follower = movingElevators.get(i);
+            int headway = Math.abs(leader.getCurrentFloor() - follower.getCurrentFloor());
+            if (headway < targetHeadway && follower.getPassengerCount() == 0 && follower.canStop()
+                    && consecutiveHolds[follower.getIndex()] < targetHeadway) {
+                heldElevators.set(follower.getIndex());
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.togetherjava.event.elevator.elevators;
+
+/**
+ * What an elevator does once it has no destinations left.
+ *
+ * @see ElevatorSystem#setParkingPolicy(ParkingPolicy)
+ */
+public enum ParkingPolicy {
+    /**
+     * Idle elevators stay wherever they served their last destination.
+     */
+    STAY,
+    /**
+     * Idle elevators travel to the floors most likely to request an elevator next, so that the next hall calls
+     * are served quickly. The likelihood of each floor is estimated from the recent hall calls, with older calls
+     * counting less and less. Each floor is claimed by at most one idle elevator.
+     */
+    PREDICTED_DEMAND
+}
@@ -0,0 +1,78 @@
+package org.togetherjava.event.elevator.elevators;
+
+/**
+ * How fast an elevator travels, in floors per step.
+ * <p>
+ * An elevator speeds up by the given acceleration each step until it reaches its maximal speed, and slows down
+ * by the same amount in time to stop at its next destination. Long express runs are therefore covered in few
+ * steps, while short hops stay slow. The elevator only stops at floors it reaches at most at its acceleration,
+ * floors it passes faster cause no arrival events.
+ * <p>
+ * Elevators moving {@link #ONE_FLOOR_PER_STEP} can stop at any floor, so every floor they reach counts as
+ * a stop, as in the original model.
+ *
+ * @param maxFloorsPerStep the maximal speed, at least 1
+ * @param acceleration     by how many floors per step the speed changes each step, at least 1
+ */
+public record SpeedProfile(int maxFloorsPerStep, int acceleration) {
+    /**
+     * The default profile, one floor each step.
+     */
+    public static final SpeedProfile ONE_FLOOR_PER_STEP = new SpeedProfile(1, 1);
+
+    public SpeedProfile {
+        if (maxFloorsPerStep < 1 || acceleration < 1) {
+            throw new IllegalArgumentException("The maximal speed and the acceleration must be at least 1, but got %d and %d."
+                    .formatted(maxFloorsPerStep, acceleration));
+        }
+    }
+
+    /**
+     * Whether every floor an elevator reaches counts as a stop, which is the case if it moves at most one floor
+     * each step.
+     *
+     * @return {@code true} if listeners are notified at every floor
+     */
+    public boolean stopsAtEveryFloor() {
+        return maxFloorsPerStep == 1;
+    }
+
+    /**
+     * Whether an elevator at the given speed can stand still during the next step.
+     */
+    boolean canStopFrom(int speed) {
+        return speed <= acceleration;
+    }
+
+    /**
+     * The shortest distance ahead at which an elevator at the given speed can still stop exactly,
+     * while slowing down by at most the acceleration each step.
+     */
+    int minStopDistance(int speed) {
+        int slowestSpeed = Math.max(1, speed - acceleration);
+        return slowestSpeed + brakingDistance(slowestSpeed);
+    }
+
+    /**
+     * The fastest speed for the next step that still allows to stop exactly at a floor the given amount of floors
+     * ahead, which must be at least the {@link #minStopDistance(int) minimal stop distance}.
+     */
+    int nextSpeed(int speed, int distance) {
+        int nextSpeed = Math.min(Math.min(maxFloorsPerStep, speed + acceleration), distance);
+        while (distance - nextSpeed < brakingDistance(nextSpeed)) {
+            nextSpeed--;
+        }
+        return nextSpeed;
+    }
+
+    /**
+     * The amount of floors covered while slowing down from the given speed until the elevator can stop.
+     */
+    private int brakingDistance(int speed) {
+        int distance = 0;
+        for (int nextSpeed = speed - acceleration; nextSpeed > 0; nextSpeed -= acceleration) {
+            distance += nextSpeed;
+        }
+        return distance;
+    }
+}
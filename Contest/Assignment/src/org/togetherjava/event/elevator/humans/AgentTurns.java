@@ -0,0 +1,144 @@
+package org.togetherjava.event.elevator.humans;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets the human agents woken up by the same step act one after another, in the same order as listeners are
+ * notified in the callback model: arrival by arrival, and for each arrival in the order the humans were spawned.
+ * <p>
+ * Requesting elevators and entering them depends on what other humans did before, for example once elevators
+ * are full or the dispatcher weighs their load. Without a fixed order, results would depend on how the agent
+ * threads are scheduled. Each agent takes a turn for every arrival it reacts to, see {@link #ticket(int, int)},
+ * and ends its last turn by parking or finishing. Turns are only handed out once every agent woken up by the
+ * step is waiting for one, lowest ticket first.
+ * <p>
+ * Uses a {@link ReentrantLock} instead of {@code synchronized} so that waiting virtual threads
+ * never pin their carrier thread. Every waiting agent has a condition of its own, so handing out a turn
+ * only wakes up the agent whose turn it is.
+ */
+final class AgentTurns {
+    private static final long NO_TURN = -1;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeMap<Long, Condition> waitingTickets = new TreeMap<>();
+    /**
+     * Agents that are woken up, but did not take their turn yet, or are taking it right now.
+     */
+    private int pendingAgents;
+    private long currentTurn = NO_TURN;
+    /**
+     * Whether the stepping thread is still waking up agents, so not all agents of the step may be waiting yet.
+     */
+    private boolean wakingUp;
+
+    /**
+     * Holds back all turns until {@link #endWakingUp()}, while the stepping thread wakes up agents.
+     */
+    void beginWakingUp() {
+        lock.lock();
+        try {
+            wakingUp = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts the given amount of agents that will wait for a turn.
+     */
+    void agentsWokenUp(int amount) {
+        lock.lock();
+        try {
+            pendingAgents += amount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void endWakingUp() {
+        lock.lock();
+        try {
+            wakingUp = false;
+            grantNextTurn();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The ticket of an agent for reacting to an arrival, ordered by the arrival first.
+     *
+     * @param arrivalIndex the index of the arrival within its step, 0 when the agent starts
+     * @param order        the order of the agent, unique among all agents
+     * @return the ticket
+     */
+    static long ticket(int arrivalIndex, int order) {
+        return (long) arrivalIndex << Integer.SIZE | order;
+    }
+
+    /**
+     * Waits for the first turn of an agent since it woke up.
+     *
+     * @param ticket the ticket of the turn
+     * @throws InterruptedException if the agent was interrupted while waiting, i.e. the runtime was closed
+     */
+    void awaitTurn(long ticket) throws InterruptedException {
+        lock.lock();
+        try {
+            awaitNextTurn(ticket);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the current turn of an agent and waits for its next turn within the same step.
+     *
+     * @param ticket the ticket of the next turn, higher than the current one
+     * @throws InterruptedException if the agent was interrupted while waiting, i.e. the runtime was closed
+     */
+    void passTurn(long ticket) throws InterruptedException {
+        lock.lock();
+        try {
+            currentTurn = NO_TURN;
+            awaitNextTurn(ticket);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitNextTurn(long ticket) throws InterruptedException {
+        Condition turnGranted = lock.newCondition();
+        waitingTickets.put(ticket, turnGranted);
+        grantNextTurn();
+        while (currentTurn != ticket) {
+            turnGranted.await();
+        }
+    }
+
+    /**
+     * Ends the turn of the agent acting right now, once it parked or finished.
+     */
+    void endTurn() {
+        lock.lock();
+        try {
+            currentTurn = NO_TURN;
+            pendingAgents--;
+            grantNextTurn();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void grantNextTurn() {
+        if (currentTurn != NO_TURN || wakingUp || waitingTickets.isEmpty() || waitingTickets.size() != pendingAgents) {
+            return;
+        }
+        Map.Entry<Long, Condition> nextTurn = waitingTickets.pollFirstEntry();
+        currentTurn = nextTurn.getKey();
+        nextTurn.getValue().signal();
+    }
+}
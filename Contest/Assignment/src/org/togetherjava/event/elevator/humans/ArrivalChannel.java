@@ -0,0 +1,137 @@
+package org.togetherjava.event.elevator.humans;
+
+import org.togetherjava.event.elevator.elevators.ElevatorPanel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Channel that human agents block on until elevators arrive.
+ * <p>
+ * There is one channel per floor, for humans waiting in the corridor, and one per elevator,
+ * for humans traveling with it. Arrivals are staged during a simulation step and published
+ * all at once afterwards, waking up only the agents that are parked on this channel.
+ * <p>
+ * Uses a {@link ReentrantLock} instead of {@code synchronized} so that parked virtual threads
+ * never pin their carrier thread.
+ */
+final class ArrivalChannel {
+    private final HumanAgentRuntime runtime;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+
+    /**
+     * Arrivals collected during the current step, only touched by the stepping thread.
+     */
+    private final List<Arrival> stagedArrivals = new ArrayList<>();
+    private Arrivals lastArrivals = new Arrivals(0, List.of());
+    /**
+     * Generation this channel is about to be published as, {@link Long#MAX_VALUE} if not known yet.
+     */
+    private long upcomingGeneration = Long.MAX_VALUE;
+    /**
+     * Agents that will be woken up by the next call to {@link #publish(long)}.
+     */
+    private int parkedAgents;
+    /**
+     * Agents that already reacted to the current step and parked here before this channel was published
+     * for the same step. They must not be woken up before the step after.
+     */
+    private int lateAgents;
+
+    ArrivalChannel(HumanAgentRuntime runtime) {
+        this.runtime = runtime;
+    }
+
+    /**
+     * Stages an arrival for the current step. Must only be called by the stepping thread.
+     *
+     * @param arrival the elevator that arrived
+     * @return {@code true} if this is the first arrival staged for this step
+     */
+    boolean stage(Arrival arrival) {
+        stagedArrivals.add(arrival);
+        return stagedArrivals.size() == 1;
+    }
+
+    /**
+     * Announces the generation the staged arrivals will be published as. Must be called by the stepping thread
+     * for all staged channels, before any of them is published.
+     *
+     * @param generation the generation the arrivals will be published as
+     */
+    void prepare(long generation) {
+        lock.lock();
+        try {
+            upcomingGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes all staged arrivals as the given generation and wakes up all parked agents.
+     * Must only be called by the stepping thread.
+     *
+     * @param generation the generation of the arrivals, strictly increasing with each step
+     */
+    void publish(long generation) {
+        lock.lock();
+        try {
+            lastArrivals = new Arrivals(generation, List.copyOf(stagedArrivals));
+            upcomingGeneration = Long.MAX_VALUE;
+            runtime.agentsWokenUp(parkedAgents);
+            parkedAgents = lateAgents;
+            lateAgents = 0;
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        stagedArrivals.clear();
+    }
+
+    /**
+     * Parks the calling agent until arrivals of a generation newer than the given one are published.
+     *
+     * @param seenGeneration the latest generation the agent already reacted to
+     * @return the published arrivals
+     * @throws InterruptedException if the agent was interrupted while parked, i.e. the runtime was closed
+     */
+    Arrivals await(long seenGeneration) throws InterruptedException {
+        lock.lock();
+        try {
+            if (upcomingGeneration <= seenGeneration) {
+                lateAgents++;
+            } else {
+                parkedAgents++;
+            }
+            runtime.agentParked();
+            while (lastArrivals.generation() <= seenGeneration) {
+                published.await();
+            }
+            return lastArrivals;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * All elevators that arrived during a single step.
+     *
+     * @param generation the generation the arrivals have been published as
+     * @param arrivals   the elevators that arrived, in the order they arrived
+     */
+    record Arrivals(long generation, List<Arrival> arrivals) {
+    }
+
+    /**
+     * An elevator that arrived during a step.
+     *
+     * @param index         the position of the arrival among all arrivals of the step, starting at 0
+     * @param elevatorPanel the elevator that arrived
+     */
+    record Arrival(int index, ElevatorPanel elevatorPanel) {
+    }
+}
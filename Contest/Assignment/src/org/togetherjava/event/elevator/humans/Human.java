@@ -2,6 +2,7 @@ package org.togetherjava.event.elevator.humans;
 
 import org.togetherjava.event.elevator.elevators.ElevatorPanel;
 import org.togetherjava.event.elevator.elevators.FloorPanelSystem;
+import org.togetherjava.event.elevator.logging.EventSink;
 
 import java.util.OptionalInt;
 import java.util.StringJoiner;
@@ -14,14 +15,26 @@ import java.util.StringJoiner;
  * for example requesting an elevator, eventually entering and exiting them.
  */
 public final class Human implements ElevatorListener {
+    private static final int NO_ELEVATOR = -1;
+
     private State currentState;
     private final int startingFloor;
     private final int destinationFloor;
     /**
      * If the human is currently inside an elevator, this is its unique ID.
-     * Otherwise, this is {@code null} to indicate that the human is currently on the corridor.
+     * Otherwise, this is {@link #NO_ELEVATOR} to indicate that the human is currently on the corridor.
+     */
+    private int currentEnteredElevatorId = NO_ELEVATOR;
+    /**
+     * If the human is currently inside an elevator, this is its index within the elevator system.
+     * Otherwise, this is {@link #NO_ELEVATOR}.
+     */
+    private int currentEnteredElevatorIndex = NO_ELEVATOR;
+    /**
+     * The system to request elevators with, {@code null} until the elevator system is ready.
      */
-    private Integer currentEnteredElevatorId;
+    private FloorPanelSystem floorPanelSystem;
+    private EventSink eventSink = EventSink.noOp();
 
     /**
      * Creates a new human.
@@ -55,37 +68,109 @@ public final class Human implements ElevatorListener {
         return destinationFloor;
     }
 
+    /**
+     * Sets the sink that events of this human, such as entering an elevator, are reported to.
+     *
+     * @param eventSink the sink to report events to
+     */
+    public void setEventSink(EventSink eventSink) {
+        this.eventSink = eventSink;
+    }
+
     @Override
     public void onElevatorSystemReady(FloorPanelSystem floorPanelSystem) {
-        // TODO Implement. The system is now ready and the human should leave
-        //  their initial IDLE state, requesting an elevator by clicking on the buttons of
-        //  the floor panel system. The human will now enter the WAITING_FOR_ELEVATOR state.
-        System.out.println("Ready-event received");
+        if (currentState != State.IDLE) {
+            return;
+        }
+        if (startingFloor == destinationFloor) {
+            currentState = State.ARRIVED;
+            return;
+        }
+
+        this.floorPanelSystem = floorPanelSystem;
+        requestElevator();
+        currentState = State.WAITING_FOR_ELEVATOR;
     }
 
     @Override
     public void onElevatorArrivedAtFloor(ElevatorPanel elevatorPanel) {
-        // TODO Implement. If the human is currently waiting for an elevator and
-        //  this event represents arrival at the humans current floor, the human can now enter the
-        //  elevator and request their actual destination floor. The state has to change to TRAVELING_WITH_ELEVATOR.
-        //  If the human is currently traveling with this elevator and the event represents
-        //  arrival at the human's destination floor, the human can now exit the elevator.
-        System.out.println("Arrived-event received");
+        switch (currentState) {
+            case WAITING_FOR_ELEVATOR -> {
+                if (elevatorPanel.isAtFloor(startingFloor)) {
+                    enterElevator(elevatorPanel);
+                }
+            }
+            case TRAVELING_WITH_ELEVATOR -> {
+                if (elevatorPanel.getId() == currentEnteredElevatorId
+                        && elevatorPanel.isAtFloor(destinationFloor)) {
+                    exitElevator(elevatorPanel);
+                }
+            }
+            default -> {
+                // Neither waiting nor traveling, elevators are of no interest
+            }
+        }
+    }
+
+    private void requestElevator() {
+        floorPanelSystem.requestElevatorTo(startingFloor, destinationFloor);
+    }
+
+    private void enterElevator(ElevatorPanel elevatorPanel) {
+        if (!elevatorPanel.canServe(destinationFloor) || !elevatorPanel.tryEnter()) {
+            // The elevator does not go there or is full, wait for the next one
+            requestElevator();
+            return;
+        }
+
+        currentEnteredElevatorId = elevatorPanel.getId();
+        currentEnteredElevatorIndex = elevatorPanel.getIndex();
+        elevatorPanel.requestDestinationFloor(destinationFloor);
+        currentState = State.TRAVELING_WITH_ELEVATOR;
+
+        if (eventSink.isEnabled(EventSink.Level.DEBUG)) {
+            eventSink.log(EventSink.Level.DEBUG, "Human at floor %d entered elevator %d to floor %d"
+                    .formatted(startingFloor, currentEnteredElevatorId, destinationFloor));
+        }
+    }
+
+    private void exitElevator(ElevatorPanel elevatorPanel) {
+        elevatorPanel.exit();
+        if (eventSink.isEnabled(EventSink.Level.DEBUG)) {
+            eventSink.log(EventSink.Level.DEBUG, "Human exited elevator %d at floor %d"
+                    .formatted(currentEnteredElevatorId, destinationFloor));
+        }
+
+        currentEnteredElevatorId = NO_ELEVATOR;
+        currentEnteredElevatorIndex = NO_ELEVATOR;
+        currentState = State.ARRIVED;
     }
 
     public OptionalInt getCurrentEnteredElevatorId() {
-        return currentEnteredElevatorId == null
+        return currentEnteredElevatorId == NO_ELEVATOR
                 ? OptionalInt.empty()
                 : OptionalInt.of(currentEnteredElevatorId);
     }
 
+    /**
+     * The index of the elevator the human is currently inside, see {@link ElevatorPanel#getIndex()}.
+     *
+     * @return the index of the current elevator, empty if the human is not inside an elevator
+     */
+    public OptionalInt getCurrentEnteredElevatorIndex() {
+        return currentEnteredElevatorIndex == NO_ELEVATOR
+                ? OptionalInt.empty()
+                : OptionalInt.of(currentEnteredElevatorIndex);
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", Human.class.getSimpleName() + "[", "]")
                 .add("currentState=" + currentState)
                 .add("startingFloor=" + startingFloor)
                 .add("destinationFloor=" + destinationFloor)
-                .add("currentEnteredElevatorId=" + currentEnteredElevatorId)
+                .add("currentEnteredElevatorId="
+                        + (currentEnteredElevatorId == NO_ELEVATOR ? null : currentEnteredElevatorId))
                 .toString();
     }
 
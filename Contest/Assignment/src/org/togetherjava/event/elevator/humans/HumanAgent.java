@@ -0,0 +1,73 @@
+package org.togetherjava.event.elevator.humans;
+
+import org.togetherjava.event.elevator.elevators.FloorPanelSystem;
+
+/**
+ * The life of a single human, run as its own virtual thread by {@link HumanAgentRuntime}.
+ * <p>
+ * The agent requests an elevator, blocks on the channel of its floor until an elevator arrives,
+ * then blocks on the channel of the entered elevator until it reaches the destination. Before reacting to
+ * anything, it waits for its turn, see {@link AgentTurns}.
+ */
+final class HumanAgent implements Runnable {
+    private final Human human;
+    /**
+     * The order the agent takes its turns in, see {@link AgentTurns}.
+     */
+    private final int order;
+    private final FloorPanelSystem floorPanelSystem;
+    private final HumanAgentRuntime runtime;
+    /**
+     * The generation of arrivals published before the agent was started, which it must not react to anymore.
+     */
+    private final long startGeneration;
+
+    HumanAgent(Human human, int order, FloorPanelSystem floorPanelSystem, HumanAgentRuntime runtime,
+            long startGeneration) {
+        this.human = human;
+        this.order = order;
+        this.floorPanelSystem = floorPanelSystem;
+        this.runtime = runtime;
+        this.startGeneration = startGeneration;
+    }
+
+    @Override
+    public void run() {
+        try {
+            live();
+            runtime.agentFinished();
+        } catch (InterruptedException e) {
+            // The runtime was closed, the human gives up
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            runtime.agentFailed(e);
+        }
+    }
+
+    private void live() throws InterruptedException {
+        runtime.turns().awaitTurn(AgentTurns.ticket(0, order));
+        human.onElevatorSystemReady(floorPanelSystem);
+
+        long seenGeneration = startGeneration;
+        while (human.getCurrentState() != Human.State.ARRIVED) {
+            ArrivalChannel channel = human.getCurrentState() == Human.State.WAITING_FOR_ELEVATOR
+                    ? runtime.floorChannel(human.getStartingFloor())
+                    : runtime.elevatorChannel(human.getCurrentEnteredElevatorId().orElseThrow());
+
+            ArrivalChannel.Arrivals arrivals = channel.await(seenGeneration);
+            seenGeneration = arrivals.generation();
+
+            boolean firstTurn = true;
+            for (ArrivalChannel.Arrival arrival : arrivals.arrivals()) {
+                long ticket = AgentTurns.ticket(arrival.index(), order);
+                if (firstTurn) {
+                    runtime.turns().awaitTurn(ticket);
+                    firstTurn = false;
+                } else {
+                    runtime.turns().passTurn(ticket);
+                }
+                human.onElevatorArrivedAtFloor(arrival.elevatorPanel());
+            }
+        }
+    }
+}
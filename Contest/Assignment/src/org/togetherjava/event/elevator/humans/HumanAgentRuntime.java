@@ -0,0 +1,180 @@
+package org.togetherjava.event.elevator.humans;
+
+import org.togetherjava.event.elevator.elevators.ElevatorPanel;
+import org.togetherjava.event.elevator.elevators.FloorPanelSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs each human as its own virtual thread, instead of driving them passively via callbacks.
+ * <p>
+ * The runtime is registered as the only {@link ElevatorListener} of the elevator system. Arrival events are
+ * routed into one {@link ArrivalChannel} per floor and per elevator, on which the human agents block.
+ * After each step, {@link #publishArrivals()} wakes up only the agents affected by the arrivals and waits
+ * until all of them are parked again. Hence, the state of all humans is stable between steps, exactly as
+ * in the callback model.
+ * <p>
+ * Agents act on their human by calling its regular {@link ElevatorListener} methods. Agents woken up by the
+ * same step act one after another, in the order the callback model notifies its listeners, see
+ * {@link AgentTurns}. Hence, results match the callback model even once elevators are full or the dispatcher
+ * weighs their load. Behavior that needs a thread of its own, such as giving up or taking the stairs, can be
+ * modelled in {@link HumanAgent}.
+ */
+public final class HumanAgentRuntime implements ElevatorListener, AutoCloseable {
+    private final List<Human> initialHumans;
+    private FloorPanelSystem floorPanelSystem;
+    private final Map<Integer, ArrivalChannel> floorToChannel = new ConcurrentHashMap<>();
+    private final Map<Integer, ArrivalChannel> elevatorIdToChannel = new ConcurrentHashMap<>();
+    private final List<ArrivalChannel> stagedChannels = new ArrayList<>();
+    private final List<Thread> agentThreads = new ArrayList<>();
+    private final ThreadFactory agentFactory = Thread.ofVirtual().name("human-agent-", 0).factory();
+    private final AgentTurns turns = new AgentTurns();
+    /**
+     * Amount of agents that are currently acting, i.e. neither parked on a channel nor finished.
+     */
+    private final AtomicInteger busyAgents = new AtomicInteger();
+    private final AtomicReference<RuntimeException> agentFailure = new AtomicReference<>();
+    private volatile Thread steppingThread;
+    /**
+     * Generation of the arrivals published last, increases with each step.
+     */
+    private long generation;
+    /**
+     * Amount of elevators that arrived during the current step.
+     */
+    private int stepArrivals;
+
+    /**
+     * Creates a new runtime for the given humans. The agents are started once the elevator system is ready.
+     *
+     * @param initialHumans the humans to run as agents, more can be added later via {@link #spawn(List)}
+     */
+    public HumanAgentRuntime(List<Human> initialHumans) {
+        this.initialHumans = List.copyOf(initialHumans);
+    }
+
+    @Override
+    public void onElevatorSystemReady(FloorPanelSystem floorPanelSystem) {
+        this.floorPanelSystem = floorPanelSystem;
+        spawn(initialHumans);
+    }
+
+    /**
+     * Starts agents for the given humans, which enter the simulation only now, and waits until all of them
+     * requested an elevator. Must be called by the stepping thread, after the elevator system is ready.
+     *
+     * @param humans the humans to run as agents
+     */
+    public void spawn(List<Human> humans) {
+        if (floorPanelSystem == null) {
+            throw new IllegalStateException("Humans can only be spawned once the elevator system is ready.");
+        }
+
+        steppingThread = Thread.currentThread();
+        busyAgents.addAndGet(humans.size());
+
+        turns.beginWakingUp();
+        turns.agentsWokenUp(humans.size());
+        for (Human human : humans) {
+            Thread agentThread = agentFactory.newThread(
+                    new HumanAgent(human, agentThreads.size(), floorPanelSystem, this, generation));
+            agentThreads.add(agentThread);
+            agentThread.start();
+        }
+        turns.endWakingUp();
+
+        awaitAgentsParked();
+    }
+
+    @Override
+    public void onElevatorArrivedAtFloor(ElevatorPanel elevatorPanel) {
+        ArrivalChannel.Arrival arrival = new ArrivalChannel.Arrival(stepArrivals++, elevatorPanel);
+        for (int deck = 0; deck < elevatorPanel.getDeckCount(); deck++) {
+            stage(floorChannel(elevatorPanel.getCurrentFloor() + deck), arrival);
+        }
+        stage(elevatorChannel(elevatorPanel.getId()), arrival);
+    }
+
+    /**
+     * Publishes all arrivals of the current step to the agents and waits until they finished reacting to it.
+     * Must be called by the stepping thread after each step.
+     */
+    public void publishArrivals() {
+        steppingThread = Thread.currentThread();
+        generation++;
+
+        turns.beginWakingUp();
+        stagedChannels.forEach(channel -> channel.prepare(generation));
+        stagedChannels.forEach(channel -> channel.publish(generation));
+        stagedChannels.clear();
+        stepArrivals = 0;
+        turns.endWakingUp();
+
+        awaitAgentsParked();
+    }
+
+    /**
+     * Interrupts all agents that did not finish yet, for example when the simulation is aborted.
+     */
+    @Override
+    public void close() {
+        agentThreads.forEach(Thread::interrupt);
+    }
+
+    ArrivalChannel floorChannel(int floor) {
+        return floorToChannel.computeIfAbsent(floor, key -> new ArrivalChannel(this));
+    }
+
+    ArrivalChannel elevatorChannel(int elevatorId) {
+        return elevatorIdToChannel.computeIfAbsent(elevatorId, key -> new ArrivalChannel(this));
+    }
+
+    void agentsWokenUp(int amount) {
+        busyAgents.addAndGet(amount);
+        turns.agentsWokenUp(amount);
+    }
+
+    AgentTurns turns() {
+        return turns;
+    }
+
+    void agentParked() {
+        turns.endTurn();
+        if (busyAgents.decrementAndGet() == 0) {
+            LockSupport.unpark(steppingThread);
+        }
+    }
+
+    void agentFinished() {
+        agentParked();
+    }
+
+    void agentFailed(RuntimeException failure) {
+        agentFailure.compareAndSet(null, failure);
+        agentParked();
+    }
+
+    private void stage(ArrivalChannel channel, ArrivalChannel.Arrival arrival) {
+        if (channel.stage(arrival)) {
+            stagedChannels.add(channel);
+        }
+    }
+
+    private void awaitAgentsParked() {
+        while (busyAgents.get() != 0) {
+            LockSupport.park(this);
+        }
+
+        RuntimeException failure = agentFailure.get();
+        if (failure != null) {
+            throw new IllegalStateException("A human agent failed while reacting to elevator events.", failure);
+        }
+    }
+}
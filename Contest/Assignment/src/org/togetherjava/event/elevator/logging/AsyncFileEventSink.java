@@ -0,0 +1,186 @@
+package org.togetherjava.event.elevator.logging;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sink that writes events to a file, without blocking the simulation on file I/O.
+ * <p>
+ * Events are put into a bounded ring buffer, which a background thread drains into the file in batches.
+ * The simulation only waits if the buffer is full, i.e. if events are produced faster than they can be written.
+ * Every event that was accepted before the sink is closed is written, events after that are rejected.
+ */
+public final class AsyncFileEventSink implements EventSink, Closeable {
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_BATCH_SIZE = 1 << 10;
+
+    private final Level maxLevel;
+    private final BlockingQueue<String> buffer;
+    private final BufferedWriter writer;
+    private final Thread writerThread;
+    /**
+     * Guards adding events against closing, so that no event is added after the writer drained the buffer.
+     */
+    private final Lock closeLock = new ReentrantLock();
+    private volatile boolean closed;
+    private volatile IOException writeFailure;
+
+    /**
+     * Creates a new sink with a buffer of a default size and starts writing to the given file,
+     * overwriting it if it already exists.
+     *
+     * @param file     the file to write events to
+     * @param maxLevel the most detailed level to write, all less important levels are written as well
+     * @throws UncheckedIOException if the file could not be opened
+     */
+    public AsyncFileEventSink(Path file, Level maxLevel) {
+        this(file, maxLevel, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new sink and starts writing to the given file, overwriting it if it already exists.
+     *
+     * @param file     the file to write events to
+     * @param maxLevel the most detailed level to write, all less important levels are written as well
+     * @param capacity the amount of events the buffer can hold before the simulation has to wait
+     * @throws UncheckedIOException if the file could not be opened
+     */
+    public AsyncFileEventSink(Path file, Level maxLevel, int capacity) {
+        this.maxLevel = maxLevel;
+        buffer = new ArrayBlockingQueue<>(capacity);
+        try {
+            writer = Files.newBufferedWriter(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the event file " + file, e);
+        }
+
+        writerThread = new Thread(this::drainUntilClosed, "event-sink-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public boolean isEnabled(Level level) {
+        return maxLevel.includes(level);
+    }
+
+    /**
+     * Records the given event, if its level is enabled. Waits if the buffer is full.
+     *
+     * @param level   the level of the event
+     * @param message the message describing the event
+     * @throws IllegalStateException if the sink is already closed, or if the thread was interrupted while waiting
+     *                               for space in the buffer, in which case the event is not written
+     */
+    @Override
+    public void log(Level level, String message) {
+        if (!isEnabled(level)) {
+            return;
+        }
+
+        closeLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The sink is already closed.");
+            }
+            buffer.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for space in the buffer, the event is lost: "
+                    + message, e);
+        } finally {
+            closeLock.unlock();
+        }
+    }
+
+    /**
+     * Writes all remaining events and closes the file.
+     * <p>
+     * Waits for events that are added concurrently, events added afterwards are rejected.
+     *
+     * @throws UncheckedIOException if writing any of the events failed
+     */
+    @Override
+    public void close() {
+        closeLock.lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.unlock();
+        }
+
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (writeFailure != null) {
+            throw new UncheckedIOException("Unable to write all events", writeFailure);
+        }
+    }
+
+    private void drainUntilClosed() {
+        List<String> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        try {
+            while (!closed) {
+                String first = buffer.poll(10, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+                writeBatch(batch);
+                batch.clear();
+            }
+
+            // No events are added anymore once closed, so this drains all of them
+            while (buffer.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeWriter();
+        }
+    }
+
+    private void writeBatch(List<String> batch) {
+        if (writeFailure != null) {
+            // Keep draining without writing, so that the simulation is never blocked by a broken file
+            return;
+        }
+
+        try {
+            for (String message : batch) {
+                writer.write(message);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            writeFailure = e;
+        }
+    }
+
+    private void closeWriter() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            if (writeFailure == null) {
+                writeFailure = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.togetherjava.event.elevator.logging;
+
+/**
+ * Sink that prints events to the console, meant for debugging small simulations.
+ */
+public final class ConsoleEventSink implements EventSink {
+    private final Level maxLevel;
+
+    /**
+     * Creates a new console sink.
+     *
+     * @param maxLevel the most detailed level to print, all less important levels are printed as well
+     */
+    public ConsoleEventSink(Level maxLevel) {
+        this.maxLevel = maxLevel;
+    }
+
+    @Override
+    public boolean isEnabled(Level level) {
+        return maxLevel.includes(level);
+    }
+
+    @Override
+    public void log(Level level, String message) {
+        if (isEnabled(level)) {
+            System.out.println(message);
+        }
+    }
+}
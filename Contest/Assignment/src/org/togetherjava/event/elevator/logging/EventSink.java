@@ -0,0 +1,69 @@
+package org.togetherjava.event.elevator.logging;
+
+/**
+ * Receiver of events that happen during a simulation, for example elevators moving or humans entering them.
+ * <p>
+ * Events are gated by their {@link Level}. Callers are expected to check {@link #isEnabled(Level)} before
+ * building a message, so that disabled events cost nothing:
+ * <pre>{@code
+ * if (eventSink.isEnabled(EventSink.Level.TRACE)) {
+ *     eventSink.log(EventSink.Level.TRACE, "Elevator %d moved to floor %d".formatted(id, currentFloor));
+ * }
+ * }</pre>
+ * The default sink, {@link #noOp()}, discards everything. As it is the only implementation seen by
+ * most runs, the JIT inlines the check and removes the whole block.
+ */
+public interface EventSink {
+    /**
+     * A sink that discards all events.
+     *
+     * @return the sink
+     */
+    static EventSink noOp() {
+        return NoOpEventSink.INSTANCE;
+    }
+
+    /**
+     * Whether events of the given level are recorded by this sink.
+     *
+     * @param level the level to check
+     * @return {@code true} if events of the level are recorded, {@code false} if they are discarded
+     */
+    boolean isEnabled(Level level);
+
+    /**
+     * Records the given event, if its level is enabled.
+     *
+     * @param level   the level of the event
+     * @param message the message describing the event
+     */
+    void log(Level level, String message);
+
+    /**
+     * Severity of events, from the most important to the most detailed.
+     */
+    enum Level {
+        /**
+         * Events that describe a simulation as a whole, for example the seed it was created with.
+         */
+        INFO,
+        /**
+         * Events that happen a few times per human, for example entering an elevator.
+         */
+        DEBUG,
+        /**
+         * Events that happen every step, for example elevators moving.
+         */
+        TRACE;
+
+        /**
+         * Whether events of the given level are recorded, if this is the most detailed level recorded.
+         *
+         * @param level the level to check
+         * @return {@code true} if events of the given level are at least as important as this level
+         */
+        public boolean includes(Level level) {
+            return level.ordinal() <= ordinal();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.togetherjava.event.elevator.logging;
+
+/**
+ * Sink that discards all events.
+ *
+ * @see EventSink#noOp()
+ */
+enum NoOpEventSink implements EventSink {
+    INSTANCE;
+
+    @Override
+    public boolean isEnabled(Level level) {
+        return false;
+    }
+
+    @Override
+    public void log(Level level, String message) {
+        // Discards all events
+    }
+}
@@ -0,0 +1,430 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.DispatchParameters;
+import org.togetherjava.event.elevator.elevators.ParkingPolicy;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Measures how fast simulations run and how well they serve their humans, without any console rendering.
+ * <p>
+ * Every seed is simulated once, after a few warm-up runs of the first seed that are not measured. The same
+ * command always simulates the same scenarios, so it can be run nightly to spot regressions:
+ * <pre>
+ * java org.togetherjava.event.elevator.simulation.Benchmark --scenario template:OFFICE_UP_PEAK --seeds 0:10 --format csv
+ * </pre>
+ * Options, all optional:
+ * <pre>
+ * --scenario   SCENARIO   single, simple, random:ELEVATORSxHUMANSxFLOORS, template:NAME or file:PATH
+ *                         (default random:5x500x30)
+ * --seeds      FROM:TO    seeds to simulate, FROM inclusive and TO exclusive (default 0:5),
+ *                         scenarios that are not generated randomly run once
+ * --dispatch   PATH       properties file with the dispatch parameters, see {@link DispatchParameters#load(Path)}
+ * --parking    POLICY     what idle elevators do, see {@link ParkingPolicy} (default STAY)
+ * --engine     MODE       how the simulation advances, see {@link EngineMode} (default STEP_BY_STEP)
+ * --human-mode MODE       how humans are driven, callback or virtual-thread, see {@link HumanMode}
+ *                         (default callback), only for random and template scenarios
+ * --step-limit STEPS      maximal steps per run, runs exceeding it fail (default 1000000)
+ * --warm-up    RUNS       unmeasured runs before the first measured run (default 2)
+ * --format     FORMAT     table, csv or json (default table)
+ * </pre>
+ * The allocation rate only covers the thread running the simulation. With {@code --human-mode virtual-thread},
+ * allocations of the virtual threads of the human agents are not included.
+ */
+public final class Benchmark {
+    private static final String USAGE = "Usage: Benchmark [--scenario SCENARIO] [--seeds FROM:TO] [--dispatch PATH]"
+            + " [--parking POLICY] [--engine MODE] [--human-mode callback|virtual-thread] [--step-limit STEPS]"
+            + " [--warm-up RUNS] [--format table|csv|json]";
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+
+    private final ScenarioFactory scenario;
+    private final boolean seeded;
+    private long fromSeed;
+    private long toSeed = 5;
+    private DispatchParameters dispatchParameters = DispatchParameters.configured();
+    private ParkingPolicy parkingPolicy = ParkingPolicy.STAY;
+    private EngineMode engineMode = EngineMode.STEP_BY_STEP;
+    private HumanMode humanMode = HumanMode.CALLBACK;
+    private int stepLimit = 1_000_000;
+    private int warmUpRuns = 2;
+    private OutputFormat outputFormat = OutputFormat.TABLE;
+
+    /**
+     * Creates a benchmark of the given scenario with default settings.
+     *
+     * @param scenario the scenario, as given to the {@code --scenario} option
+     * @throws IllegalArgumentException if the scenario is unknown or malformed
+     */
+    public Benchmark(String scenario) {
+        String[] kindAndValue = scenario.split(":", 2);
+        String value = kindAndValue.length == 2 ? kindAndValue[1] : "";
+        switch (kindAndValue[0]) {
+            case "single" ->
+                    this.scenario = (seed, humanMode) -> Simulation.createSingleElevatorSingleHumanSimulation();
+            case "simple" -> this.scenario = (seed, humanMode) -> Simulation.createSimpleSimulation();
+            case "random" -> {
+                String[] shape = value.split("x");
+                if (shape.length != 3) {
+                    throw new IllegalArgumentException(
+                            "Random scenarios are given as random:ELEVATORSxHUMANSxFLOORS, but got " + scenario);
+                }
+                int amountOfElevators = parseInt(shape[0], "elevators");
+                int amountOfHumans = parseInt(shape[1], "humans");
+                int floorsServed = parseInt(shape[2], "floors");
+                this.scenario = (seed, humanMode) -> Simulation.createRandomSimulation(seed, amountOfElevators,
+                        amountOfHumans, floorsServed, humanMode);
+            }
+            case "template" -> {
+                BuildingTemplate template = parseEnum(BuildingTemplate.class, value, "template");
+                this.scenario = (seed, humanMode) -> template.builder(seed).humanMode(humanMode).build();
+            }
+            case "file" -> {
+                Path file = Path.of(value);
+                this.scenario = (seed, humanMode) -> Simulation.fromFile(file);
+            }
+            default -> throw new IllegalArgumentException("Unknown scenario " + scenario);
+        }
+        seeded = kindAndValue[0].equals("random") || kindAndValue[0].equals("template");
+    }
+
+    /**
+     * Creates a benchmark from command line arguments, see {@link Benchmark}.
+     *
+     * @param args the command line arguments
+     * @return the benchmark
+     * @throws IllegalArgumentException if any argument is unknown or malformed
+     */
+    public static Benchmark fromArguments(String... args) {
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Every option needs a value, but got " + String.join(" ", args));
+        }
+
+        String scenario = "random:5x500x30";
+        for (int i = 0; i < args.length; i += 2) {
+            if (args[i].equals("--scenario")) {
+                scenario = args[i + 1];
+            }
+        }
+        Benchmark benchmark = new Benchmark(scenario);
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--scenario" -> {
+                    // Already applied
+                }
+                case "--seeds" -> {
+                    String[] range = value.split(":");
+                    if (range.length != 2) {
+                        throw new IllegalArgumentException("Seeds are given as FROM:TO, but got " + value);
+                    }
+                    benchmark.seeds(parseLong(range[0], "seed"), parseLong(range[1], "seed"));
+                }
+                case "--dispatch" -> benchmark.dispatchParameters(DispatchParameters.load(Path.of(value)));
+                case "--parking" -> benchmark.parkingPolicy(parseEnum(ParkingPolicy.class, value, "parking policy"));
+                case "--engine" -> benchmark.engineMode(parseEnum(EngineMode.class, value, "engine mode"));
+                case "--human-mode" -> benchmark.humanMode(parseEnum(HumanMode.class, value, "human mode"));
+                case "--step-limit" -> benchmark.stepLimit(parseInt(value, "step limit"));
+                case "--warm-up" -> benchmark.warmUpRuns(parseInt(value, "warm-up runs"));
+                case "--format" -> benchmark.outputFormat(parseEnum(OutputFormat.class, value, "format"));
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        return benchmark;
+    }
+
+    /**
+     * Runs the benchmark given by the command line arguments and prints its results.
+     *
+     * @param args the command line arguments, see {@link Benchmark}
+     */
+    public static void main(String[] args) {
+        Benchmark benchmark;
+        try {
+            benchmark = fromArguments(args);
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        System.out.print(format(benchmark.run(), benchmark.outputFormat));
+    }
+
+    /**
+     * Sets the seeds to simulate. Defaults to the seeds 0 to 4.
+     *
+     * @param fromSeed the first seed, inclusive
+     * @param toSeed   the last seed, exclusive
+     * @return this benchmark
+     */
+    public Benchmark seeds(long fromSeed, long toSeed) {
+        if (fromSeed >= toSeed) {
+            throw new IllegalArgumentException("The seed range [%d, %d) is empty.".formatted(fromSeed, toSeed));
+        }
+        this.fromSeed = fromSeed;
+        this.toSeed = toSeed;
+        return this;
+    }
+
+    public Benchmark dispatchParameters(DispatchParameters dispatchParameters) {
+        this.dispatchParameters = Objects.requireNonNull(dispatchParameters);
+        return this;
+    }
+
+    public Benchmark parkingPolicy(ParkingPolicy parkingPolicy) {
+        this.parkingPolicy = Objects.requireNonNull(parkingPolicy);
+        return this;
+    }
+
+    public Benchmark engineMode(EngineMode engineMode) {
+        this.engineMode = Objects.requireNonNull(engineMode);
+        return this;
+    }
+
+    /**
+     * Sets how humans are driven. Defaults to {@link HumanMode#CALLBACK}.
+     *
+     * @param humanMode the mode to drive humans with
+     * @return this benchmark
+     * @throws IllegalArgumentException if the scenario is neither random nor a template, as only generated
+     *                                  scenarios can drive their humans with virtual threads
+     */
+    public Benchmark humanMode(HumanMode humanMode) {
+        if (!seeded && humanMode != HumanMode.CALLBACK) {
+            throw new IllegalArgumentException(
+                    "Only random and template scenarios support the human mode " + humanMode);
+        }
+        this.humanMode = Objects.requireNonNull(humanMode);
+        return this;
+    }
+
+    public Benchmark stepLimit(int stepLimit) {
+        if (stepLimit < 1) {
+            throw new IllegalArgumentException("The step limit must be at least 1, but got " + stepLimit);
+        }
+        this.stepLimit = stepLimit;
+        return this;
+    }
+
+    public Benchmark warmUpRuns(int warmUpRuns) {
+        if (warmUpRuns < 0) {
+            throw new IllegalArgumentException(
+                    "The amount of warm-up runs must not be negative, but got " + warmUpRuns);
+        }
+        this.warmUpRuns = warmUpRuns;
+        return this;
+    }
+
+    public Benchmark outputFormat(OutputFormat outputFormat) {
+        this.outputFormat = Objects.requireNonNull(outputFormat);
+        return this;
+    }
+
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    /**
+     * Runs the warm-up runs and then measures every seed, one after another on the calling thread.
+     *
+     * @return one result per seed, in order of the seeds
+     * @throws IllegalStateException if a run exceeds the step limit
+     */
+    public List<Result> run() {
+        for (int i = 0; i < warmUpRuns; i++) {
+            measure(fromSeed);
+        }
+
+        long lastSeed = seeded ? toSeed : fromSeed + 1;
+        List<Result> results = new ArrayList<>();
+        for (long seed = fromSeed; seed < lastSeed; seed++) {
+            results.add(measure(seed));
+        }
+        return results;
+    }
+
+    private Result measure(long seed) {
+        Simulation simulation = scenario.create(seed, humanMode);
+        simulation.getElevatorSystem().setDispatchParameters(dispatchParameters);
+        simulation.getElevatorSystem().setParkingPolicy(parkingPolicy);
+        simulation.setEngineMode(engineMode);
+
+        long allocatedBytesBefore = allocatedBytes();
+        long startNanos = System.nanoTime();
+        simulation.startAndExecuteUntilDone(stepLimit);
+        long nanos = System.nanoTime() - startNanos;
+        long allocatedBytes = allocatedBytes() - allocatedBytesBefore;
+
+        return new Result(seeded ? seed : -1, simulation.getStepCount(), simulation.getHumans().size(), nanos,
+                allocatedBytesBefore < 0 ? -1 : allocatedBytes,
+                percentilesOf(simulation, Human.State.WAITING_FOR_ELEVATOR),
+                percentilesOf(simulation, Human.State.TRAVELING_WITH_ELEVATOR));
+    }
+
+    private static long[] percentilesOf(Simulation simulation, Human.State state) {
+        long[] steps = new long[PERCENTILES.length];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            steps[i] = simulation.getStepsForStateAtPercentile(state, PERCENTILES[i]);
+        }
+        return steps;
+    }
+
+    /**
+     * The bytes allocated by the current thread so far, or -1 if the JVM does not measure allocations.
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * Formats the given results.
+     *
+     * @param results the results to format, as returned by {@link #run()}
+     * @param format  the format to use
+     * @return the formatted results, ending with a line break
+     */
+    public static String format(List<Result> results, OutputFormat format) {
+        StringBuilder output = new StringBuilder();
+        switch (format) {
+            case TABLE -> {
+                output.append("%6s %8s %7s %10s %14s %10s %14s %14s%n".formatted("seed", "steps", "humans", "steps/s",
+                        "human-steps/s", "MB/s", "wait p50/90/99", "ride p50/90/99"));
+                for (Result result : results) {
+                    output.append(String.format(Locale.ROOT, "%6d %8d %7d %10.0f %14.0f %10.1f %14s %14s%n",
+                            result.seed(), result.steps(), result.humans(), result.stepsPerSecond(),
+                            result.humanStepsPerSecond(), result.allocationRate() / 1e6,
+                            joined(result.waitingSteps(), "/"), joined(result.ridingSteps(), "/")));
+                }
+            }
+            case CSV -> {
+                output.append("seed,steps,humans,nanos,steps_per_second,human_steps_per_second,allocated_bytes,"
+                        + "allocated_bytes_per_second,wait_p50,wait_p90,wait_p99,ride_p50,ride_p90,ride_p99\n");
+                for (Result result : results) {
+                    output.append(String.format(Locale.ROOT, "%d,%d,%d,%d,%.1f,%.1f,%d,%.1f,%s,%s%n",
+                            result.seed(), result.steps(), result.humans(), result.nanos(), result.stepsPerSecond(),
+                            result.humanStepsPerSecond(), result.allocatedBytes(), result.allocationRate(),
+                            joined(result.waitingSteps(), ","), joined(result.ridingSteps(), ",")));
+                }
+            }
+            case JSON -> {
+                output.append("[");
+                for (int i = 0; i < results.size(); i++) {
+                    Result result = results.get(i);
+                    output.append(i == 0 ? "\n" : ",\n").append(String.format(Locale.ROOT,
+                            "  {\"seed\":%d,\"steps\":%d,\"humans\":%d,\"nanos\":%d,\"stepsPerSecond\":%.1f,"
+                                    + "\"humanStepsPerSecond\":%.1f,\"allocatedBytes\":%d,\"allocatedBytesPerSecond\":%.1f,"
+                                    + "\"waitingSteps\":[%s],\"ridingSteps\":[%s]}",
+                            result.seed(), result.steps(), result.humans(), result.nanos(), result.stepsPerSecond(),
+                            result.humanStepsPerSecond(), result.allocatedBytes(), result.allocationRate(),
+                            joined(result.waitingSteps(), ","), joined(result.ridingSteps(), ",")));
+                }
+                output.append("\n]\n");
+            }
+        }
+        return output.toString();
+    }
+
+    private static String joined(long[] values, String separator) {
+        StringBuilder joined = new StringBuilder();
+        for (long value : values) {
+            joined.append(joined.isEmpty() ? "" : separator).append(value);
+        }
+        return joined.toString();
+    }
+
+    private static int parseInt(String value, String name) {
+        long number = parseLong(value, name);
+        if (number < Integer.MIN_VALUE || number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The %s must be between %d and %d, but got %s"
+                    .formatted(name, Integer.MIN_VALUE, Integer.MAX_VALUE, value));
+        }
+        return (int) number;
+    }
+
+    private static long parseLong(String value, String name) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The %s must be a number, but got %s".formatted(name, value), e);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String name) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown %s %s".formatted(name, value), e);
+        }
+    }
+
+    /**
+     * Creates the simulation of a run.
+     */
+    @FunctionalInterface
+    private interface ScenarioFactory {
+        Simulation create(long seed, HumanMode humanMode);
+    }
+
+    /**
+     * How {@link #format(List, OutputFormat)} formats results.
+     */
+    public enum OutputFormat {
+        /**
+         * Aligned columns for humans to read.
+         */
+        TABLE,
+        /**
+         * Comma separated values, with a header line and one line per run.
+         */
+        CSV,
+        /**
+         * A JSON array with one object per run.
+         */
+        JSON
+    }
+
+    /**
+     * The measurements of a single run.
+     *
+     * @param seed           the seed of the simulation, -1 if it was not generated randomly
+     * @param steps          the amount of steps until all humans arrived
+     * @param humans         the amount of humans
+     * @param nanos          how long the run took
+     * @param allocatedBytes the bytes allocated by the run, -1 if the JVM does not measure allocations
+     * @param waitingSteps   the steps humans waited for an elevator, at the 50th, 90th and 99th percentile
+     * @param ridingSteps    the steps humans rode an elevator, at the 50th, 90th and 99th percentile
+     */
+    public record Result(long seed, long steps, int humans, long nanos, long allocatedBytes, long[] waitingSteps,
+            long[] ridingSteps) {
+        public double stepsPerSecond() {
+            return steps * 1e9 / nanos;
+        }
+
+        /**
+         * The steps simulated per second times the amount of humans, comparable across scenarios of different sizes.
+         *
+         * @return the human steps per second
+         */
+        public double humanStepsPerSecond() {
+            return stepsPerSecond() * humans;
+        }
+
+        /**
+         * @return the bytes allocated per second, -1 if the JVM does not measure allocations
+         */
+        public double allocationRate() {
+            return allocatedBytes < 0 ? -1 : allocatedBytes * 1e9 / nanos;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.togetherjava.event.elevator.simulation;
+
+import java.util.function.Function;
+
+/**
+ * Typical buildings and traffic patterns, to stress elevator dispatching with realistic scenarios.
+ * <p>
+ * Each template provides a {@link ScenarioBuilder} that is fully configured, but can still be adjusted,
+ * for example to change the amount of humans.
+ */
+public enum BuildingTemplate {
+    /**
+     * Office building in the morning. Almost everyone enters at the lobby and travels up to their office.
+     */
+    OFFICE_UP_PEAK(30, 8, 3_000, BuildingTemplate::upPeakTrips, true),
+    /**
+     * Residential building in the morning. Almost everyone leaves their apartment and travels down to the lobby.
+     */
+    RESIDENTIAL_DOWN_PEAK(25, 4, 1_500, BuildingTemplate::downPeakTrips, false),
+    /**
+     * Hotel in the evening. Guests travel between the lobby, the restaurant on the floor above and their rooms,
+     * in both directions.
+     */
+    HOTEL_TWO_WAY(20, 4, 2_000, BuildingTemplate::hotelTrips, false),
+    /**
+     * Skyscraper with 200 floors and 50 elevators. Humans travel between the lobby, two sky lobbies and all
+     * other floors.
+     */
+    MEGA_TOWER(200, 50, 100_000, BuildingTemplate::towerTrips, false);
+
+    private static final int LOBBY_FLOOR = 1;
+
+    private final int floorsServed;
+    private final int amountOfElevators;
+    private final int amountOfHumans;
+    private final Function<Integer, OriginDestinationMatrix> tripsForFloors;
+    private final boolean elevatorsStartAtLobby;
+
+    BuildingTemplate(int floorsServed, int amountOfElevators, int amountOfHumans,
+            Function<Integer, OriginDestinationMatrix> tripsForFloors, boolean elevatorsStartAtLobby) {
+        this.floorsServed = floorsServed;
+        this.amountOfElevators = amountOfElevators;
+        this.amountOfHumans = amountOfHumans;
+        this.tripsForFloors = tripsForFloors;
+        this.elevatorsStartAtLobby = elevatorsStartAtLobby;
+    }
+
+    /**
+     * Creates a builder configured for this template.
+     *
+     * @param seed the seed to generate the scenario with
+     * @return the configured builder
+     */
+    public ScenarioBuilder builder(long seed) {
+        ScenarioBuilder builder = new ScenarioBuilder().seed(seed)
+                .floors(LOBBY_FLOOR, floorsServed)
+                .elevators(amountOfElevators)
+                .humans(amountOfHumans)
+                .trips(tripsForFloors.apply(floorsServed));
+        if (elevatorsStartAtLobby) {
+            builder.elevatorsStartingAt(LOBBY_FLOOR);
+        }
+        return builder;
+    }
+
+    /**
+     * The trip distribution of this template, for a building with the given amount of floors.
+     *
+     * @param floorsServed the amount of floors of the building, starting at the lobby
+     * @return the trip distribution
+     */
+    public OriginDestinationMatrix trips(int floorsServed) {
+        return tripsForFloors.apply(floorsServed);
+    }
+
+    private static OriginDestinationMatrix upPeakTrips(int floorsServed) {
+        return lobbyTrips(floorsServed, 0.85, 0.05, 0.10);
+    }
+
+    private static OriginDestinationMatrix downPeakTrips(int floorsServed) {
+        return lobbyTrips(floorsServed, 0.05, 0.85, 0.10);
+    }
+
+    /**
+     * Trips that either start or end at the lobby, or go between two other floors.
+     */
+    private static OriginDestinationMatrix lobbyTrips(int floorsServed, double fromLobby, double toLobby,
+            double interfloor) {
+        int upperFloors = floorsServed - 1;
+        return OriginDestinationMatrix.fromWeights(LOBBY_FLOOR, floorsServed, (origin, destination) -> {
+            if (origin == destination) {
+                return 0;
+            }
+            if (origin == LOBBY_FLOOR) {
+                return fromLobby / upperFloors;
+            }
+            if (destination == LOBBY_FLOOR) {
+                return toLobby / upperFloors;
+            }
+            return upperFloors < 2 ? 0 : interfloor / (upperFloors * (upperFloors - 1));
+        });
+    }
+
+    private static OriginDestinationMatrix hotelTrips(int floorsServed) {
+        int restaurantFloor = LOBBY_FLOOR + 1;
+        int roomFloors = Math.max(1, floorsServed - 2);
+        return OriginDestinationMatrix.fromWeights(LOBBY_FLOOR, floorsServed, (origin, destination) -> {
+            if (origin == destination) {
+                return 0;
+            }
+            boolean isOriginRoom = origin > restaurantFloor;
+            boolean isDestinationRoom = destination > restaurantFloor;
+            if (isOriginRoom && isDestinationRoom) {
+                return 0.10 / (roomFloors * roomFloors);
+            }
+            if (isOriginRoom || isDestinationRoom) {
+                return (origin == LOBBY_FLOOR || destination == LOBBY_FLOOR ? 0.35 : 0.10) / roomFloors;
+            }
+            // Between lobby and restaurant
+            return 0.0;
+        });
+    }
+
+    private static OriginDestinationMatrix towerTrips(int floorsServed) {
+        int firstSkyLobby = LOBBY_FLOOR + floorsServed / 3;
+        int secondSkyLobby = LOBBY_FLOOR + 2 * floorsServed / 3;
+        double perFloor = 1.0 / floorsServed;
+        return OriginDestinationMatrix.fromWeights(LOBBY_FLOOR, floorsServed, (origin, destination) -> {
+            if (origin == destination) {
+                return 0;
+            }
+            if (origin == LOBBY_FLOOR || destination == LOBBY_FLOOR) {
+                return 0.30 * perFloor;
+            }
+            if (origin == firstSkyLobby || origin == secondSkyLobby
+                    || destination == firstSkyLobby || destination == secondSkyLobby) {
+                return 0.10 * perFloor;
+            }
+            return 0.20 * perFloor * perFloor;
+        });
+    }
+}
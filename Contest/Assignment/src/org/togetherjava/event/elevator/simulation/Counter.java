@@ -0,0 +1,33 @@
+package org.togetherjava.event.elevator.simulation;
+
+/**
+ * Metric that only ever goes up, for example the amount of humans that boarded an elevator so far.
+ *
+ * @see MetricsRegistry#counter(String)
+ */
+public final class Counter {
+    private long value;
+
+    Counter() {
+    }
+
+    public void increment() {
+        value++;
+    }
+
+    /**
+     * Adds the given amount to the counter.
+     *
+     * @param amount the amount to add, must not be negative
+     */
+    public void add(long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Counters can not be decreased, but got " + amount);
+        }
+        value += amount;
+    }
+
+    public long get() {
+        return value;
+    }
+}
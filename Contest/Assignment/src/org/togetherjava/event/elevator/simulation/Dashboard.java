@@ -0,0 +1,298 @@
+package org.togetherjava.event.elevator.simulation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live view of a running {@link Simulation} in the browser, as a lightweight alternative to
+ * {@link Simulation#prettyPrint()} for big buildings.
+ * <p>
+ * The dashboard subscribes to the {@link Simulation#getStepPublisher() step deltas} and keeps its own state:
+ * the floor of each elevator, how many humans wait on each floor and percentiles of how long humans wait and
+ * ride. An HTTP server bound to the loopback address serves a page at {@code /}, which receives frames of this
+ * state from {@code /events} as server-sent events.
+ * <p>
+ * Frames are coalesced: at most {@value #FRAMES_PER_SECOND} frames per second are rendered, and each client is
+ * sent the latest frame once it is ready for the next one, skipping any frames in between. Slow clients
+ * therefore only ever see fewer frames, and neither they nor rendering the frames slow down the simulation.
+ */
+public final class Dashboard implements Flow.Subscriber<StepDelta>, Closeable {
+    private static final int FRAMES_PER_SECOND = 10;
+    private static final double[] PERCENTILES = {50, 90, 99};
+    private static final String PAGE = """
+            <!DOCTYPE html>
+            <html>
+            <head><meta charset="utf-8"><title>Elevator simulation</title></head>
+            <body>
+            <p id="status">Connecting...</p>
+            <pre id="building"></pre>
+            <script>
+            const events = new EventSource("events");
+            events.onmessage = message => {
+                const frame = JSON.parse(message.data);
+                const percentiles = stats => stats.map(value => value.toFixed(0)).join(" / ");
+                document.getElementById("status").textContent = "Step " + frame.step
+                    + (frame.done ? " (done)" : "") + ", waiting p50 / p90 / p99: " + percentiles(frame.waiting)
+                    + " steps, riding p50 / p90 / p99: " + percentiles(frame.riding) + " steps";
+                const rows = [];
+                for (let floor = frame.queues.length; floor >= 1; floor--) {
+                    const cars = frame.cars.map(carFloor => carFloor === floor ? "[]" : " |").join(" ");
+                    rows.push(String(floor).padStart(4) + " " + String(frame.queues[floor - 1]).padStart(5) + "  " + cars);
+                }
+                document.getElementById("building").textContent = rows.join("\\n");
+                if (frame.done) {
+                    events.close();
+                }
+            };
+            </script>
+            </body>
+            </html>
+            """;
+
+    private final HttpServer server;
+    private final ExecutorService clientExecutor;
+    private final ScheduledExecutorService renderer;
+
+    // State of the simulation as seen from the deltas, guarded by this
+    private final int[] startingFloors;
+    private final long[] waitingSince;
+    private final long[] ridingSince;
+    private final int[] carFloors;
+    private final int[] queueLengths;
+    private final Histogram waitingSteps = new Histogram();
+    private final Histogram ridingSteps = new Histogram();
+    private long step;
+    private boolean done;
+    private boolean changed = true;
+    private Flow.Subscription subscription;
+
+    // The latest frame, guarded by frameLock
+    private final Object frameLock = new Object();
+    private String frame;
+    private long frameVersion;
+    private boolean lastFrame;
+    private boolean closed;
+
+    /**
+     * Creates a dashboard for the given simulation and starts serving it. Create it before the simulation starts,
+     * so that it sees every change.
+     *
+     * @param simulation the simulation to show
+     * @param port       the port to serve on, 0 to pick any free port
+     * @throws UncheckedIOException if the server could not be started
+     */
+    public Dashboard(Simulation simulation, int port) {
+        startingFloors = simulation.getHumans().stream().mapToInt(Human::getStartingFloor).toArray();
+        waitingSince = new long[startingFloors.length];
+        ridingSince = new long[startingFloors.length];
+        carFloors = simulation.getElevators().stream().mapToInt(Elevator::getCurrentFloor).toArray();
+        int topFloor = simulation.getElevators().stream()
+                .mapToInt(elevator -> elevator.getMinFloor() + elevator.getFloorsServed() - 1)
+                .max()
+                .orElse(0);
+        queueLengths = new int[topFloor];
+        frame = renderFrame();
+
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to start the dashboard on port " + port, e);
+        }
+        // Every client blocks a thread while waiting for the next frame
+        clientExecutor = Executors.newCachedThreadPool(Thread.ofVirtual().name("dashboard-client-", 0).factory());
+        server.setExecutor(clientExecutor);
+        server.createContext("/", this::servePage);
+        server.createContext("/events", this::serveEvents);
+        server.start();
+
+        renderer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renderer.scheduleAtFixedRate(this::renderIfChanged, 0, 1000 / FRAMES_PER_SECOND, TimeUnit.MILLISECONDS);
+
+        simulation.getStepPublisher().subscribe(this);
+    }
+
+    /**
+     * The address of the page showing the simulation.
+     *
+     * @return the address, on the loopback interface
+     */
+    public URI getUri() {
+        return URI.create("http://%s:%d/".formatted(server.getAddress().getHostString(), server.getAddress().getPort()));
+    }
+
+    @Override
+    public synchronized void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        // Applying a delta is cheap, the subscriber never falls behind
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized void onNext(StepDelta delta) {
+        step = delta.step();
+        for (StepDelta.CarMove move : delta.carMoves()) {
+            carFloors[move.elevatorIndex()] = move.toFloor();
+        }
+        for (StepDelta.HumanTransition transition : delta.transitions()) {
+            int human = transition.humanIndex();
+            if (transition.previousState() == Human.State.WAITING_FOR_ELEVATOR) {
+                queueLengths[startingFloors[human] - 1]--;
+                waitingSteps.record(step - waitingSince[human]);
+            } else if (transition.previousState() == Human.State.TRAVELING_WITH_ELEVATOR) {
+                ridingSteps.record(step - ridingSince[human]);
+            }
+
+            if (transition.state() == Human.State.WAITING_FOR_ELEVATOR) {
+                queueLengths[startingFloors[human] - 1]++;
+                waitingSince[human] = step;
+            } else if (transition.state() == Human.State.TRAVELING_WITH_ELEVATOR) {
+                ridingSince[human] = step;
+            }
+        }
+        changed = true;
+    }
+
+    @Override
+    public synchronized void onError(Throwable throwable) {
+        done = true;
+        changed = true;
+    }
+
+    @Override
+    public synchronized void onComplete() {
+        done = true;
+        changed = true;
+    }
+
+    /**
+     * Stops serving the dashboard and disconnects all clients.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+        renderer.shutdownNow();
+        synchronized (frameLock) {
+            closed = true;
+            frameLock.notifyAll();
+        }
+        server.stop(0);
+        clientExecutor.shutdownNow();
+    }
+
+    private void renderIfChanged() {
+        String renderedFrame;
+        boolean renderedLastFrame;
+        synchronized (this) {
+            if (!changed) {
+                return;
+            }
+            changed = false;
+            renderedFrame = renderFrame();
+            renderedLastFrame = done;
+        }
+
+        synchronized (frameLock) {
+            frame = renderedFrame;
+            frameVersion++;
+            lastFrame = renderedLastFrame;
+            frameLock.notifyAll();
+        }
+    }
+
+    /**
+     * The current state as JSON, for example
+     * {@code {"step":12,"done":false,"cars":[3,7],"queues":[0,2,1],"waiting":[4,9,11],"riding":[5,8,8]}}.
+     * Queue lengths are listed from the lowest floor up, the percentiles are those of {@link #PERCENTILES}.
+     */
+    private String renderFrame() {
+        StringBuilder json = new StringBuilder(64 + 4 * (carFloors.length + queueLengths.length));
+        json.append("{\"step\":").append(step)
+                .append(",\"done\":").append(done)
+                .append(",\"cars\":").append(Arrays.toString(carFloors).replace(" ", ""))
+                .append(",\"queues\":").append(Arrays.toString(queueLengths).replace(" ", ""))
+                .append(",\"waiting\":").append(percentilesOf(waitingSteps))
+                .append(",\"riding\":").append(percentilesOf(ridingSteps))
+                .append('}');
+        return json.toString();
+    }
+
+    private static String percentilesOf(Histogram histogram) {
+        return Arrays.toString(Arrays.stream(PERCENTILES).mapToLong(histogram::getValueAtPercentile).toArray())
+                .replace(" ", "");
+    }
+
+    private void servePage(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestURI().getPath().equals("/")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] page = PAGE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, page.length);
+            exchange.getResponseBody().write(page);
+        }
+    }
+
+    /**
+     * Streams frames to the client until the simulation is done, the client disconnects or the dashboard closes.
+     */
+    private void serveEvents(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+
+            OutputStream body = exchange.getResponseBody();
+            long sentVersion = -1;
+            while (true) {
+                String latestFrame;
+                boolean isLastFrame;
+                synchronized (frameLock) {
+                    while (frameVersion == sentVersion && !closed) {
+                        frameLock.wait();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    latestFrame = frame;
+                    isLastFrame = lastFrame;
+                    sentVersion = frameVersion;
+                }
+
+                body.write(("data: " + latestFrame + "\n\n").getBytes(StandardCharsets.UTF_8));
+                body.flush();
+                if (isLastFrame) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.togetherjava.event.elevator.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Counts of humans by destination floor, grouped under a small key such as a floor or an elevator index.
+ * <p>
+ * Forks share all rows with the original and copy a row only before changing it, so forking costs time
+ * proportional to the amount of keys, not to the amount of humans.
+ */
+final class DestinationCounts {
+    private final int minFloor;
+    /**
+     * The counts of each key, indexed by destination floor minus the min floor. The last slot holds the total.
+     * Rows of keys without any humans may be {@code null}.
+     */
+    private final int[][] rows;
+    /**
+     * Whether a row belongs to this instance only, otherwise it is shared with a fork and copied before changes.
+     */
+    private final boolean[] ownedRows;
+    private final int floorRange;
+    private int total;
+
+    DestinationCounts(int keys, int minFloor, int maxFloor) {
+        this.minFloor = minFloor;
+        floorRange = maxFloor - minFloor + 1;
+        rows = new int[keys][];
+        ownedRows = new boolean[keys];
+    }
+
+    private DestinationCounts(DestinationCounts original) {
+        minFloor = original.minFloor;
+        floorRange = original.floorRange;
+        rows = original.rows.clone();
+        ownedRows = new boolean[rows.length];
+        total = original.total;
+    }
+
+    /**
+     * Creates an independent copy, sharing all rows until either instance changes them.
+     *
+     * @return the fork
+     */
+    DestinationCounts fork() {
+        Arrays.fill(ownedRows, false);
+        return new DestinationCounts(this);
+    }
+
+    void add(int key, int destinationFloor, int amount) {
+        int[] row = mutableRow(key);
+        row[destinationFloor - minFloor] += amount;
+        row[floorRange] += amount;
+        total += amount;
+    }
+
+    void remove(int key, int destinationFloor, int amount) {
+        add(key, destinationFloor, -amount);
+    }
+
+    int count(int key, int destinationFloor) {
+        int[] row = rows[key];
+        return row == null ? 0 : row[destinationFloor - minFloor];
+    }
+
+    int totalOf(int key) {
+        int[] row = rows[key];
+        return row == null ? 0 : row[floorRange];
+    }
+
+    int total() {
+        return total;
+    }
+
+    int getMinFloor() {
+        return minFloor;
+    }
+
+    int getMaxFloor() {
+        return minFloor + floorRange - 1;
+    }
+
+    private int[] mutableRow(int key) {
+        if (!ownedRows[key]) {
+            rows[key] = rows[key] == null ? new int[floorRange + 1] : rows[key].clone();
+            ownedRows[key] = true;
+        }
+        return rows[key];
+    }
+}
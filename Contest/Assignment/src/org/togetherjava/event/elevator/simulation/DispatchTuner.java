@@ -0,0 +1,223 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.DispatchParameters;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.LongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Searches for {@link DispatchParameters} that minimise an {@link Objective} over many seeded simulations.
+ * <p>
+ * The search uses successive halving: random candidates, plus the {@link DispatchParameters#DEFAULT default}
+ * parameters, are evaluated on a few seeds each. The better half survives and is evaluated on twice as many new
+ * seeds, until a single candidate remains. All candidates of a round run on the same seeds and all runs of
+ * a round are spread across all cores. The same seed always yields the same parameters:
+ * <pre>{@code
+ * DispatchTuner.Result result = new DispatchTuner(42)
+ *         .scenario(seed -> Simulation.createRandomSimulation(seed, 5, 500, 30))
+ *         .candidates(64)
+ *         .tune();
+ * result.parameters().write(Path.of("dispatch.properties"));
+ * }</pre>
+ * The written file is used by all simulations if its path is given by the system property
+ * {@value DispatchParameters#FILE_PROPERTY}.
+ */
+public final class DispatchTuner {
+    /**
+     * Upper bounds of the sampled weights. Only the ratio of the weights matters, so the distance weight stays 1.
+     */
+    private static final double MAX_MOVING_AWAY_PENALTY = 3;
+    private static final double MAX_FULL_PENALTY = 4;
+    private static final double MAX_LOAD_WEIGHT = 2;
+    private static final double MAX_STOP_WEIGHT = 10;
+
+    private final long seed;
+    private LongFunction<Simulation> scenario = scenarioSeed -> Simulation.createRandomSimulation(scenarioSeed, 5, 200, 30);
+    private Objective objective = Objective.DEFAULT;
+    private int candidates = 32;
+    private int initialSeedsPerCandidate = 4;
+    private int stepLimit = 100_000;
+
+    /**
+     * Creates a tuner with default settings.
+     *
+     * @param seed the seed to sample candidates and scenario seeds with
+     */
+    public DispatchTuner(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the simulations the parameters are tuned for. Defaults to random simulations with
+     * 5 elevators, 200 humans and 30 floors.
+     *
+     * @param scenario creates a fresh, not yet started simulation for a given seed
+     * @return this tuner
+     */
+    public DispatchTuner scenario(LongFunction<Simulation> scenario) {
+        this.scenario = scenario;
+        return this;
+    }
+
+    public DispatchTuner objective(Objective objective) {
+        this.objective = objective;
+        return this;
+    }
+
+    /**
+     * Sets the amount of candidates evaluated in the first round, including the default parameters.
+     *
+     * @param candidates the amount of candidates, at least 2
+     * @return this tuner
+     */
+    public DispatchTuner candidates(int candidates) {
+        if (candidates < 2) {
+            throw new IllegalArgumentException("At least 2 candidates are needed, but got " + candidates);
+        }
+        this.candidates = candidates;
+        return this;
+    }
+
+    /**
+     * Sets the amount of seeds each candidate is evaluated on in the first round. Doubles with each round.
+     *
+     * @param initialSeedsPerCandidate the amount of seeds, at least 1
+     * @return this tuner
+     */
+    public DispatchTuner initialSeedsPerCandidate(int initialSeedsPerCandidate) {
+        if (initialSeedsPerCandidate < 1) {
+            throw new IllegalArgumentException("At least 1 seed is needed, but got " + initialSeedsPerCandidate);
+        }
+        this.initialSeedsPerCandidate = initialSeedsPerCandidate;
+        return this;
+    }
+
+    /**
+     * Sets the amount of steps after which a run is aborted. Aborted runs score infinitely bad.
+     *
+     * @param stepLimit the maximal amount of steps per run, at least 1
+     * @return this tuner
+     */
+    public DispatchTuner stepLimit(int stepLimit) {
+        if (stepLimit < 1) {
+            throw new IllegalArgumentException("The step limit must be at least 1, but got " + stepLimit);
+        }
+        this.stepLimit = stepLimit;
+        return this;
+    }
+
+    /**
+     * Runs the search.
+     *
+     * @return the best parameters found, with their score and the score of the default parameters
+     */
+    public Result tune() {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        List<DispatchParameters> survivors = new ArrayList<>(candidates);
+        survivors.add(DispatchParameters.DEFAULT);
+        while (survivors.size() < candidates) {
+            survivors.add(new DispatchParameters(1,
+                    random.nextDouble(MAX_MOVING_AWAY_PENALTY),
+                    random.nextDouble(MAX_FULL_PENALTY),
+                    random.nextDouble(MAX_LOAD_WEIGHT),
+                    random.nextDouble(MAX_STOP_WEIGHT)));
+        }
+
+        int seedsPerCandidate = initialSeedsPerCandidate;
+        double[] scores;
+        while (true) {
+            long[] scenarioSeeds = random.longs(seedsPerCandidate).toArray();
+            scores = evaluate(survivors, scenarioSeeds);
+            if (survivors.size() == 1) {
+                break;
+            }
+
+            // Ties keep their previous order, which favours the default parameters
+            List<DispatchParameters> ranked = survivors;
+            double[] roundScores = scores;
+            survivors = IntStream.range(0, ranked.size())
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(i -> roundScores[i]))
+                    .limit((ranked.size() + 1) / 2)
+                    .map(ranked::get)
+                    .toList();
+            seedsPerCandidate *= 2;
+        }
+
+        long[] finalSeeds = random.longs(seedsPerCandidate).toArray();
+        double[] finalScores = evaluate(List.of(survivors.get(0), DispatchParameters.DEFAULT), finalSeeds);
+        return new Result(survivors.get(0), finalScores[0], finalScores[1]);
+    }
+
+    /**
+     * The mean score of each candidate over the given seeds.
+     */
+    private double[] evaluate(List<DispatchParameters> parameters, long[] scenarioSeeds) {
+        double[] runScores = new double[parameters.size() * scenarioSeeds.length];
+        IntStream.range(0, runScores.length)
+                .parallel()
+                .forEach(run -> runScores[run] = score(parameters.get(run / scenarioSeeds.length),
+                        scenarioSeeds[run % scenarioSeeds.length]));
+
+        double[] scores = new double[parameters.size()];
+        for (int i = 0; i < scores.length; i++) {
+            int from = i * scenarioSeeds.length;
+            scores[i] = Arrays.stream(runScores, from, from + scenarioSeeds.length).average().orElseThrow();
+        }
+        return scores;
+    }
+
+    private double score(DispatchParameters parameters, long scenarioSeed) {
+        Simulation simulation = scenario.apply(scenarioSeed);
+        simulation.getElevatorSystem().setDispatchParameters(parameters);
+        try {
+            simulation.startAndExecuteUntilDone(stepLimit);
+        } catch (IllegalStateException e) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return objective.score(simulation);
+    }
+
+    /**
+     * What the tuner minimises, a weighted sum of wait times and the duration of a simulation.
+     *
+     * @param medianWaitWeight weight of the median amount of steps humans wait for an elevator
+     * @param p99WaitWeight    weight of the 99th percentile of steps humans wait for an elevator
+     * @param totalStepsWeight weight of the amount of steps until all humans arrived
+     */
+    public record Objective(double medianWaitWeight, double p99WaitWeight, double totalStepsWeight) {
+        /**
+         * Median wait plus 99th percentile wait plus total steps.
+         */
+        public static final Objective DEFAULT = new Objective(1, 1, 1);
+
+        /**
+         * Scores a finished simulation.
+         *
+         * @param simulation the simulation, all humans arrived
+         * @return the score, lower is better
+         */
+        public double score(Simulation simulation) {
+            return medianWaitWeight * simulation.getStepsForStateAtPercentile(Human.State.WAITING_FOR_ELEVATOR, 0.5)
+                    + p99WaitWeight * simulation.getStepsForStateAtPercentile(Human.State.WAITING_FOR_ELEVATOR, 0.99)
+                    + totalStepsWeight * simulation.getStepCount();
+        }
+    }
+
+    /**
+     * The outcome of a search, scored on seeds none of the candidates were selected on.
+     *
+     * @param parameters   the best parameters found
+     * @param score        the mean score of the best parameters
+     * @param defaultScore the mean score of the default parameters, on the same seeds
+     */
+    public record Result(DispatchParameters parameters, double score, double defaultScore) {
+    }
+}
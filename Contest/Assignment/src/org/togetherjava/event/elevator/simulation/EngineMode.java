@@ -0,0 +1,19 @@
+package org.togetherjava.event.elevator.simulation;
+
+/**
+ * How a simulation advances through its steps.
+ */
+public enum EngineMode {
+    /**
+     * Every step is executed, one floor-move at a time.
+     */
+    STEP_BY_STEP,
+    /**
+     * Steps in which nothing can happen, since elevators merely pass floors without anyone waiting there,
+     * are skipped. Elevators are moved across them at once and the time humans spend in their state is credited
+     * in bulk. Results are identical to {@link #STEP_BY_STEP}, but sparse traffic runs much faster.
+     * <p>
+     * Listeners are not notified about skipped steps and metrics are only sampled for executed steps.
+     */
+    EVENT_DRIVEN
+}
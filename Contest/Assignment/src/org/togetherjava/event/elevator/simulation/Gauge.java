@@ -0,0 +1,21 @@
+package org.togetherjava.event.elevator.simulation;
+
+/**
+ * Metric that represents a value at the current step, for example the amount of open hall calls.
+ *
+ * @see MetricsRegistry#gauge(String)
+ */
+public final class Gauge {
+    private double value;
+
+    Gauge() {
+    }
+
+    public void set(double value) {
+        this.value = value;
+    }
+
+    public double get() {
+        return value;
+    }
+}
@@ -0,0 +1,113 @@
+package org.togetherjava.event.elevator.simulation;
+
+/**
+ * Metric that records a distribution of non-negative values, for example the time humans spent waiting.
+ * <p>
+ * Follows the idea of HDR histograms: values are counted in buckets whose width grows with the magnitude
+ * of the value, so that every recorded value is represented with a relative error of less than 2%,
+ * independent of how large it is. Recording is O(1) and does not allocate.
+ *
+ * @see MetricsRegistry#histogram(String)
+ */
+public final class Histogram {
+    /**
+     * Amount of bits used to distinguish values within the same power of two, i.e. the precision.
+     */
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * Values below this are counted exactly, each in a bucket of their own.
+     */
+    private static final int EXACT_LIMIT = 2 * SUB_BUCKET_COUNT;
+    private static final int BUCKET_COUNT = EXACT_LIMIT + (Long.SIZE - SUB_BUCKET_BITS - 2) * SUB_BUCKET_COUNT;
+
+    private final long[] bucketCounts = new long[BUCKET_COUNT];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    Histogram() {
+    }
+
+    /**
+     * Records the given value.
+     *
+     * @param value the value to record, must not be negative
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Histograms only support non-negative values, but got " + value);
+        }
+
+        bucketCounts[bucketIndexOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The smallest value recorded.
+     *
+     * @return the smallest value, or 0 if nothing was recorded yet
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * The value below which the given percentage of all recorded values fall.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the value at the percentile, precise up to the bucket width, or 0 if nothing was recorded yet
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100, but got " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long requiredCount = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seenCount = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            seenCount += bucketCounts[index];
+            if (seenCount >= requiredCount) {
+                return Math.min(max, Math.max(min, highestValueOf(index)));
+            }
+        }
+        return max;
+    }
+
+    private static int bucketIndexOf(long value) {
+        if (value < EXACT_LIMIT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return EXACT_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long highestValueOf(int bucketIndex) {
+        if (bucketIndex < EXACT_LIMIT) {
+            return bucketIndex;
+        }
+        int shift = (bucketIndex - EXACT_LIMIT) / SUB_BUCKET_COUNT + 1;
+        long subBucket = (bucketIndex - EXACT_LIMIT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
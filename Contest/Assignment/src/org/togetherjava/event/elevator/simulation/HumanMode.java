@@ -0,0 +1,17 @@
+package org.togetherjava.event.elevator.simulation;
+
+/**
+ * How humans are driven during a simulation.
+ */
+public enum HumanMode {
+    /**
+     * Humans are passive listeners, the elevator system calls them for every event.
+     */
+    CALLBACK,
+    /**
+     * Each human runs as its own virtual thread, blocking until elevators arrive at its floor or destination.
+     *
+     * @see org.togetherjava.event.elevator.humans.HumanAgentRuntime
+     */
+    VIRTUAL_THREAD
+}
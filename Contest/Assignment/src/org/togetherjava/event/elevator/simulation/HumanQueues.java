@@ -0,0 +1,89 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.List;
+
+/**
+ * Keeps track of where the humans of a simulation are: waiting at a floor or riding an elevator, counted by their
+ * destination. Updated whenever a human changes its state, so that {@link SimulationFork forks} do not have to look
+ * at every human.
+ */
+final class HumanQueues {
+    private static final int ELSEWHERE = -2;
+    private static final int WAITING = -1;
+
+    /**
+     * Where each human is, the index of the elevator it rides, {@link #WAITING} or {@link #ELSEWHERE}.
+     */
+    private final int[] humanPositions;
+    private final DestinationCounts waitingHumans;
+    private final DestinationCounts ridingHumans;
+
+    HumanQueues(List<Elevator> elevators, List<Human> humans) {
+        int minFloor = Integer.MAX_VALUE;
+        int maxFloor = Integer.MIN_VALUE;
+        for (Elevator elevator : elevators) {
+            minFloor = Math.min(minFloor, elevator.getMinFloor());
+            maxFloor = Math.max(maxFloor, elevator.getMinFloor() + elevator.getFloorsServed() - 1);
+        }
+        for (Human human : humans) {
+            minFloor = Math.min(minFloor, Math.min(human.getStartingFloor(), human.getDestinationFloor()));
+            maxFloor = Math.max(maxFloor, Math.max(human.getStartingFloor(), human.getDestinationFloor()));
+        }
+
+        waitingHumans = new DestinationCounts(maxFloor - minFloor + 1, minFloor, maxFloor);
+        ridingHumans = new DestinationCounts(elevators.size(), minFloor, maxFloor);
+        humanPositions = new int[humans.size()];
+        for (int i = 0; i < humans.size(); i++) {
+            humanPositions[i] = ELSEWHERE;
+            recordTransition(i, humans.get(i));
+        }
+    }
+
+    /**
+     * Moves the given human to where its current state says it is.
+     *
+     * @param humanIndex position of the human within all humans of the simulation
+     * @param human      the human, already in its new state
+     */
+    void recordTransition(int humanIndex, Human human) {
+        int position = switch (human.getCurrentState()) {
+            case WAITING_FOR_ELEVATOR -> WAITING;
+            case TRAVELING_WITH_ELEVATOR -> human.getCurrentEnteredElevatorIndex().orElseThrow();
+            default -> ELSEWHERE;
+        };
+        int previousPosition = humanPositions[humanIndex];
+        if (position == previousPosition) {
+            return;
+        }
+
+        move(previousPosition, human, -1);
+        move(position, human, 1);
+        humanPositions[humanIndex] = position;
+    }
+
+    private void move(int position, Human human, int amount) {
+        if (position == WAITING) {
+            waitingHumans.add(human.getStartingFloor() - waitingHumans.getMinFloor(), human.getDestinationFloor(),
+                    amount);
+        } else if (position != ELSEWHERE) {
+            ridingHumans.add(position, human.getDestinationFloor(), amount);
+        }
+    }
+
+    /**
+     * Humans waiting for an elevator, keyed by their starting floor minus the lowest floor of the building.
+     */
+    DestinationCounts getWaitingHumans() {
+        return waitingHumans;
+    }
+
+    /**
+     * Humans riding an elevator, keyed by the index of the elevator.
+     */
+    DestinationCounts getRidingHumans() {
+        return ridingHumans;
+    }
+}
@@ -8,14 +8,36 @@ import java.util.Map;
 final class HumanStatistics {
     private final Human human;
     private final Map<Human.State, Long> stateToStepCount = new EnumMap<>(Human.State.class);
+    /**
+     * The state recorded by the previous step, {@code null} before the first step.
+     */
+    private Human.State lastState;
 
     HumanStatistics(Human human) {
         this.human = human;
     }
 
     void step() {
+        step(1);
+    }
+
+    /**
+     * Credits the given amount of steps to the current state of the human at once.
+     *
+     * @param steps the amount of steps the human spent in its current state
+     */
+    void step(long steps) {
         Human.State state = human.getCurrentState();
-        stateToStepCount.put(state, stateToStepCount.getOrDefault(state, 0L) + 1);
+        stateToStepCount.merge(state, steps, Long::sum);
+        lastState = state;
+    }
+
+    Human getHuman() {
+        return human;
+    }
+
+    Human.State getLastState() {
+        return lastState;
     }
 
     long stepsForState(Human.State state) {
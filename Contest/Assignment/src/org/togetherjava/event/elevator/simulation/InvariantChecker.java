@@ -0,0 +1,181 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Verifies the rules of the simulation while it runs, see {@link Simulation#enableInvariantChecks()}.
+ * <p>
+ * Humans are only checked when they change their state and elevators once per step, by comparing against
+ * a few counters. Nothing is allocated unless a rule is broken, so the checks can stay enabled for big runs.
+ */
+final class InvariantChecker {
+    private static final int NO_ELEVATOR = -1;
+
+    private final List<Elevator> elevators;
+    private final List<List<Elevator>> sharedShafts;
+    private final int[] lastElevatorFloors;
+    /**
+     * Amount of humans that entered each elevator and did not exit yet, with the same order as the elevators.
+     */
+    private final int[] elevatorRiderCounts;
+    /**
+     * Index of the elevator each human rides with, {@link #NO_ELEVATOR} if the human is not inside an elevator.
+     */
+    private final int[] humanElevatorIndices;
+    private long lastStep;
+
+    InvariantChecker(List<Elevator> elevators, List<List<Elevator>> sharedShafts, List<Human> humans,
+            long currentStep) {
+        this.elevators = elevators;
+        this.sharedShafts = sharedShafts;
+        lastElevatorFloors = new int[elevators.size()];
+        elevatorRiderCounts = new int[elevators.size()];
+        for (int i = 0; i < elevators.size(); i++) {
+            lastElevatorFloors[i] = elevators.get(i).getCurrentFloor();
+        }
+
+        // The checks may be enabled while humans are already traveling
+        humanElevatorIndices = new int[humans.size()];
+        Arrays.fill(humanElevatorIndices, NO_ELEVATOR);
+        for (int i = 0; i < humans.size(); i++) {
+            OptionalInt elevatorIndex = humans.get(i).getCurrentEnteredElevatorIndex();
+            if (elevatorIndex.isPresent()) {
+                humanElevatorIndices[i] = elevatorIndex.getAsInt();
+                elevatorRiderCounts[elevatorIndex.getAsInt()]++;
+            }
+        }
+        lastStep = currentStep;
+    }
+
+    /**
+     * Checks the transition of a human during the given step.
+     *
+     * @param step          the step that is being checked
+     * @param humanIndex    position of the human within all humans of the simulation
+     * @param human         the human, already in its new state
+     * @param previousState the state of the human before the step, {@code null} if this is the first step
+     * @throws IllegalStateException if the transition breaks any rule
+     */
+    void checkTransition(long step, int humanIndex, Human human, Human.State previousState) {
+        Human.State state = human.getCurrentState();
+        if (previousState == null) {
+            previousState = Human.State.IDLE;
+        }
+
+        if (previousState != Human.State.IDLE && state == Human.State.IDLE) {
+            throw violation(step, "Humans must never change their state back to IDLE. But '%s' did."
+                    .formatted(human));
+        }
+        if (previousState == Human.State.ARRIVED && state != Human.State.ARRIVED) {
+            throw violation(step, "Once a human arrived, they must never change their state again. But '%s' did."
+                    .formatted(human));
+        }
+
+        if (state == Human.State.TRAVELING_WITH_ELEVATOR && previousState != Human.State.TRAVELING_WITH_ELEVATOR) {
+            checkEntered(step, humanIndex, human);
+        } else if (state == Human.State.ARRIVED && previousState != Human.State.ARRIVED) {
+            checkExited(step, humanIndex, human);
+        }
+    }
+
+    /**
+     * Checks all elevators after the given step, which may have been reached by skipping idle steps.
+     *
+     * @param step the step that is being checked
+     * @throws IllegalStateException if any elevator breaks a rule
+     */
+    void checkElevators(long step) {
+        long elapsedSteps = step - lastStep;
+        lastStep = step;
+
+        for (int i = 0; i < elevators.size(); i++) {
+            Elevator elevator = elevators.get(i);
+            int currentFloor = elevator.getCurrentFloor();
+            int travelDistance = Math.abs(currentFloor - lastElevatorFloors[i]);
+            lastElevatorFloors[i] = currentFloor;
+
+            int maxFloorsPerStep = elevator.getSpeedProfile().maxFloorsPerStep();
+            if (travelDistance > elapsedSteps * maxFloorsPerStep) {
+                throw violation(step, "Elevators must travel at most %d floors each step, but '%s' travelled %d floors."
+                        .formatted(maxFloorsPerStep, elevator, travelDistance));
+            }
+            if (!elevator.canServe(currentFloor) || !elevator.canServe(currentFloor + elevator.getDeckCount() - 1)) {
+                throw violation(step, "Elevators must never travel beyond the floors they serve, but '%s' did."
+                        .formatted(elevator));
+            }
+            // Riders move with their elevator, so it has to carry exactly the humans that entered it
+            if (elevator.getPassengerCount() != elevatorRiderCounts[i]) {
+                throw violation(step, "Elevators must carry exactly the humans that entered them, but '%s' carries %d while %d entered it."
+                        .formatted(elevator, elevator.getPassengerCount(), elevatorRiderCounts[i]));
+            }
+        }
+
+        for (List<Elevator> shaft : sharedShafts) {
+            for (int i = 1; i < shaft.size(); i++) {
+                Elevator lower = shaft.get(i - 1);
+                Elevator upper = shaft.get(i);
+                if (lower.getCurrentFloor() + lower.getDeckCount() > upper.getCurrentFloor()) {
+                    throw violation(step, "Cars sharing a shaft must never meet or pass each other, but '%s' and '%s' did."
+                            .formatted(lower, upper));
+                }
+            }
+        }
+    }
+
+    private void checkEntered(long step, int humanIndex, Human human) {
+        OptionalInt elevatorId = human.getCurrentEnteredElevatorId();
+        if (elevatorId.isEmpty()) {
+            throw violation(step, "When a human enters an elevator, they need a current elevator id. But '%s' does not."
+                    .formatted(human));
+        }
+
+        int elevatorIndex = human.getCurrentEnteredElevatorIndex().orElse(NO_ELEVATOR);
+        if (elevatorIndex < 0 || elevatorIndex >= elevators.size()
+                || elevators.get(elevatorIndex).getId() != elevatorId.getAsInt()) {
+            throw violation(step, "Humans can only ride elevators of the simulation. But '%s' rides elevator %d."
+                    .formatted(human, elevatorId.getAsInt()));
+        }
+        Elevator elevator = elevators.get(elevatorIndex);
+        if (!elevator.isAtFloor(human.getStartingFloor())) {
+            throw violation(step, "When a human enters an elevator, the elevator must be at the humans starting floor. But '%s' entered '%s'."
+                    .formatted(human, elevator));
+        }
+
+        humanElevatorIndices[humanIndex] = elevatorIndex;
+        elevatorRiderCounts[elevatorIndex]++;
+    }
+
+    private void checkExited(long step, int humanIndex, Human human) {
+        if (human.getCurrentEnteredElevatorId().isPresent()) {
+            throw violation(step, "When a human exits an elevator, they must not have a current elevator id anymore. But '%s' has."
+                    .formatted(human));
+        }
+        if (human.getStartingFloor() == human.getDestinationFloor()) {
+            // Did not travel at all
+            return;
+        }
+
+        int elevatorIndex = humanElevatorIndices[humanIndex];
+        if (elevatorIndex == NO_ELEVATOR) {
+            throw violation(step, "Humans can only arrive by exiting an elevator. But '%s' never entered one."
+                    .formatted(human));
+        }
+        Elevator elevator = elevators.get(elevatorIndex);
+        if (!elevator.isAtFloor(human.getDestinationFloor())) {
+            throw violation(step, "When a human exits an elevator, the elevator must be at the humans destination floor. But '%s' exited '%s'."
+                    .formatted(human, elevator));
+        }
+
+        humanElevatorIndices[humanIndex] = NO_ELEVATOR;
+        elevatorRiderCounts[elevatorIndex]--;
+    }
+
+    private static IllegalStateException violation(long step, String message) {
+        return new IllegalStateException("Invariant violated in step %d: %s".formatted(step, message));
+    }
+}
@@ -0,0 +1,123 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Detects simulations that are stuck in a cycle, in which elevators keep moving or standing still without
+ * any human ever making progress again.
+ * <p>
+ * After each step, the state of the simulation is reduced to a Zobrist-style hash: the states of all elevators,
+ * see {@link Elevator#getStateHash()}, plus the floors humans are waiting at. The hash of the waiting humans is
+ * updated incrementally whenever a human changes its state. Recent hashes are kept in a small table. If a hash
+ * repeats without any human changing its state in between, the simulation is deterministic and will repeat the
+ * same steps forever.
+ * <p>
+ * This only holds as long as the hash covers all state that decides the next step. The ages of hall calls and
+ * how long elevators were held are not covered, so nothing is detected while the elevator system
+ * {@link ElevatorSystem#dependsOnHistory() depends on them}.
+ */
+final class LivelockDetector {
+    private static final int RECENT_HASHES = 1 << 10;
+    private static final long GOLDEN_RATIO = 0x9E37_79B9_7F4A_7C15L;
+
+    private final int amountOfHumans;
+    private final long[] recentHashes = new long[RECENT_HASHES];
+    private final long[] recentHashSteps = new long[RECENT_HASHES];
+    /**
+     * Sum of the hashes of the starting floors of all humans waiting for an elevator.
+     */
+    private long waitingHumansHash;
+    private int arrivedHumans;
+    /**
+     * The last step in which any human changed its state.
+     */
+    private long lastProgressStep;
+
+    /**
+     * @param humans all humans of the simulation, in their current state
+     * @param step   the current step
+     */
+    LivelockDetector(List<Human> humans, long step) {
+        amountOfHumans = humans.size();
+        lastProgressStep = step;
+        Arrays.fill(recentHashSteps, -1);
+        for (Human human : humans) {
+            if (human.getCurrentState() == Human.State.WAITING_FOR_ELEVATOR) {
+                waitingHumansHash += hashOf(human.getStartingFloor());
+            } else if (human.getCurrentState() == Human.State.ARRIVED) {
+                arrivedHumans++;
+            }
+        }
+    }
+
+    /**
+     * Records that a human changed its state during the given step.
+     *
+     * @param step          the current step
+     * @param human         the human, already in its new state
+     * @param previousState the state of the human before the step, {@code null} if this is the first step
+     */
+    void recordTransition(long step, Human human, Human.State previousState) {
+        lastProgressStep = step;
+
+        if (previousState == Human.State.WAITING_FOR_ELEVATOR) {
+            waitingHumansHash -= hashOf(human.getStartingFloor());
+        }
+        Human.State state = human.getCurrentState();
+        if (state == Human.State.WAITING_FOR_ELEVATOR) {
+            waitingHumansHash += hashOf(human.getStartingFloor());
+        } else if (state == Human.State.ARRIVED) {
+            arrivedHumans++;
+        }
+    }
+
+    /**
+     * Checks whether the state after the given step already occurred since humans made progress the last time.
+     *
+     * @param step           the step that just finished
+     * @param elevatorSystem the system the elevators are registered at
+     * @param elevators      all elevators of the simulation
+     * @param spawnsPending  whether humans still enter the simulation later, which counts as progress
+     * @throws IllegalStateException if the simulation is stuck in a cycle
+     */
+    void check(long step, ElevatorSystem elevatorSystem, List<Elevator> elevators, boolean spawnsPending) {
+        if (spawnsPending || arrivedHumans == amountOfHumans || elevatorSystem.dependsOnHistory()) {
+            return;
+        }
+
+        long hash = waitingHumansHash;
+        for (int i = 0; i < elevators.size(); i++) {
+            hash += mix(elevators.get(i).getStateHash() + i * GOLDEN_RATIO);
+        }
+
+        int slot = (int) mix(hash) & (RECENT_HASHES - 1);
+        long previousStep = recentHashSteps[slot];
+        if (recentHashes[slot] == hash && previousStep >= lastProgressStep) {
+            throw new IllegalStateException(("Simulation aborted, it is stuck in a livelock. The state after step %d"
+                    + " is the same as after step %d and no human made progress since step %d, so the steps"
+                    + " %d to %d repeat forever. %d humans did not arrive yet. Elevators: %s")
+                    .formatted(step, previousStep, lastProgressStep, previousStep + 1, step,
+                            amountOfHumans - arrivedHumans, elevators));
+        }
+        recentHashes[slot] = hash;
+        recentHashSteps[slot] = step;
+    }
+
+    private static long hashOf(int floor) {
+        return mix(floor * GOLDEN_RATIO);
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreads similar inputs over all bits.
+     */
+    private static long mix(long value) {
+        long hash = (value ^ (value >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,15 @@
+package org.togetherjava.event.elevator.simulation;
+
+/**
+ * File formats that a {@link MetricsRegistry} can export its samples to.
+ */
+public enum MetricsFormat {
+    /**
+     * Comma separated values, with a header line and one line per sampled step.
+     */
+    CSV,
+    /**
+     * One JSON object per line and sampled step.
+     */
+    JSON_LINES
+}
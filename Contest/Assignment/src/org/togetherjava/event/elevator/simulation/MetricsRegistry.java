@@ -0,0 +1,207 @@
+package org.togetherjava.event.elevator.simulation;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * Collection of named metrics that describe a running simulation.
+ * <p>
+ * Metrics are created once via {@link #counter(String)}, {@link #gauge(String)} and {@link #histogram(String)}
+ * and then updated directly, without any lookup. The registry is sampled once per step, which writes the current
+ * value of all metrics to the export file, if one was set via {@link #exportTo(Path, MetricsFormat)}.
+ * <p>
+ * A simulation without a registry does not collect any metrics and pays no cost for them.
+ *
+ * @see Simulation#enableMetrics(MetricsRegistry)
+ */
+public final class MetricsRegistry implements Closeable {
+    private static final double[] EXPORTED_PERCENTILES = {50, 90, 99};
+
+    private final Map<String, Counter> nameToCounter = new LinkedHashMap<>();
+    private final Map<String, Gauge> nameToGauge = new LinkedHashMap<>();
+    private final Map<String, Histogram> nameToHistogram = new LinkedHashMap<>();
+    private BufferedWriter exportWriter;
+    private MetricsFormat exportFormat;
+    private boolean sampledOnce;
+
+    /**
+     * Gets the counter with the given name, creating it if it does not exist yet.
+     *
+     * @param name the name of the counter
+     * @return the counter
+     */
+    public Counter counter(String name) {
+        return getOrCreate(nameToCounter, name, key -> new Counter());
+    }
+
+    /**
+     * Gets the gauge with the given name, creating it if it does not exist yet.
+     *
+     * @param name the name of the gauge
+     * @return the gauge
+     */
+    public Gauge gauge(String name) {
+        return getOrCreate(nameToGauge, name, key -> new Gauge());
+    }
+
+    /**
+     * Gets the histogram with the given name, creating it if it does not exist yet.
+     *
+     * @param name the name of the histogram
+     * @return the histogram
+     */
+    public Histogram histogram(String name) {
+        return getOrCreate(nameToHistogram, name, key -> new Histogram());
+    }
+
+    public Map<String, Counter> getCounters() {
+        return Map.copyOf(nameToCounter);
+    }
+
+    public Map<String, Gauge> getGauges() {
+        return Map.copyOf(nameToGauge);
+    }
+
+    public Map<String, Histogram> getHistograms() {
+        return Map.copyOf(nameToHistogram);
+    }
+
+    /**
+     * Writes all samples to the given file from now on, overwriting it if it already exists.
+     * <p>
+     * The file is kept open until the registry is {@link #close() closed}.
+     *
+     * @param file   the file to export to
+     * @param format the format to write the samples in
+     * @throws UncheckedIOException if the file could not be opened
+     */
+    public void exportTo(Path file, MetricsFormat format) {
+        if (exportWriter != null) {
+            throw new IllegalStateException("The metrics are already exported to a file.");
+        }
+
+        try {
+            exportWriter = Files.newBufferedWriter(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the metrics export file " + file, e);
+        }
+        exportFormat = format;
+    }
+
+    /**
+     * Takes a sample of all metrics, writing them to the export file, if any.
+     * <p>
+     * No new metrics can be created after the first sample, so that all samples have the same shape.
+     *
+     * @param step the step the sample belongs to
+     * @throws UncheckedIOException if the sample could not be written
+     */
+    public void sample(long step) {
+        if (exportWriter == null) {
+            sampledOnce = true;
+            return;
+        }
+
+        try {
+            if (!sampledOnce && exportFormat == MetricsFormat.CSV) {
+                exportWriter.write(csvHeader());
+                exportWriter.newLine();
+            }
+            sampledOnce = true;
+
+            exportWriter.write(exportFormat == MetricsFormat.CSV ? csvLine(step) : jsonLine(step));
+            exportWriter.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write a metrics sample", e);
+        }
+    }
+
+    /**
+     * Flushes and closes the export file, if any.
+     *
+     * @throws UncheckedIOException if the file could not be closed
+     */
+    @Override
+    public void close() {
+        if (exportWriter == null) {
+            return;
+        }
+
+        try {
+            exportWriter.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to close the metrics export file", e);
+        }
+        exportWriter = null;
+    }
+
+    private <T> T getOrCreate(Map<String, T> nameToMetric, String name, Function<String, T> metricFactory) {
+        T metric = nameToMetric.get(name);
+        if (metric != null) {
+            return metric;
+        }
+        if (sampledOnce) {
+            throw new IllegalStateException(
+                    "Metrics must be created before the first sample, but '%s' was not.".formatted(name));
+        }
+        return nameToMetric.computeIfAbsent(name, metricFactory);
+    }
+
+    private String csvHeader() {
+        StringJoiner header = new StringJoiner(",");
+        header.add("step");
+        nameToCounter.keySet().forEach(header::add);
+        nameToGauge.keySet().forEach(header::add);
+        nameToHistogram.keySet().forEach(name -> {
+            header.add(name + ".count");
+            header.add(name + ".mean");
+            for (double percentile : EXPORTED_PERCENTILES) {
+                header.add(name + ".p" + (int) percentile);
+            }
+            header.add(name + ".max");
+        });
+        return header.toString();
+    }
+
+    private String csvLine(long step) {
+        StringJoiner line = new StringJoiner(",");
+        line.add(Long.toString(step));
+        nameToCounter.values().forEach(counter -> line.add(Long.toString(counter.get())));
+        nameToGauge.values().forEach(gauge -> line.add(Double.toString(gauge.get())));
+        nameToHistogram.values().forEach(histogram -> {
+            line.add(Long.toString(histogram.getCount()));
+            line.add(Double.toString(histogram.getMean()));
+            for (double percentile : EXPORTED_PERCENTILES) {
+                line.add(Long.toString(histogram.getValueAtPercentile(percentile)));
+            }
+            line.add(Long.toString(histogram.getMax()));
+        });
+        return line.toString();
+    }
+
+    private String jsonLine(long step) {
+        StringJoiner line = new StringJoiner(",", "{", "}");
+        line.add("\"step\":" + step);
+        nameToCounter.forEach((name, counter) -> line.add("\"%s\":%d".formatted(name, counter.get())));
+        nameToGauge.forEach((name, gauge) -> line.add("\"%s\":%s".formatted(name, gauge.get())));
+        nameToHistogram.forEach((name, histogram) -> {
+            StringJoiner summary = new StringJoiner(",", "{", "}");
+            summary.add("\"count\":" + histogram.getCount());
+            summary.add("\"mean\":" + histogram.getMean());
+            for (double percentile : EXPORTED_PERCENTILES) {
+                summary.add("\"p%d\":%d".formatted((int) percentile, histogram.getValueAtPercentile(percentile)));
+            }
+            summary.add("\"max\":" + histogram.getMax());
+            line.add("\"%s\":%s".formatted(name, summary));
+        });
+        return line.toString();
+    }
+}
@@ -0,0 +1,309 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.SpeedProfile;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Computes the best result any dispatcher could achieve on a small simulation, to measure how far
+ * the real dispatcher is from optimal, see {@link OptimalityGapReport}.
+ * <p>
+ * The solver knows all humans in advance and moves every elevator freely, by one floor up, down or not at all
+ * per step. Humans follow the rules of the simulation: they enter the first elevator, in index order, that
+ * stops at their starting floor and exit at their destination. The state space is searched with A*, using
+ * lower bounds that never overestimate, and every state is expanded at most once. This is only feasible for
+ * small instances, at most {@value #MAX_ELEVATORS} elevators and {@value #MAX_HUMANS} humans.
+ */
+public final class OptimalSolver {
+    public static final int MAX_ELEVATORS = 3;
+    public static final int MAX_HUMANS = 20;
+    private static final int DEFAULT_MAX_EXPANDED_STATES = 2_000_000;
+
+    /**
+     * Each human is encoded with 3 bits: waiting, riding one of the elevators, or arrived.
+     */
+    private static final int STATUS_BITS = 3;
+    private static final long STATUS_MASK = (1 << STATUS_BITS) - 1;
+    private static final int WAITING = 0;
+    private static final int ARRIVED = (int) STATUS_MASK;
+    /**
+     * Each elevator position is encoded with 16 bits.
+     */
+    private static final int POSITION_BITS = 16;
+    private static final long POSITION_MASK = (1 << POSITION_BITS) - 1;
+
+    private final int[] minFloors;
+    private final int[] maxFloors;
+    private final long initialPositions;
+    /**
+     * Only humans that actually have to travel, humans already at their destination arrive right away.
+     */
+    private final int[] startingFloors;
+    private final int[] destinationFloors;
+    private final long arrivedStatuses;
+    private final int maxExpandedStates;
+
+    private OptimalSolver(Simulation simulation, int maxExpandedStates) {
+        List<Elevator> elevators = simulation.getElevators();
+        List<Human> humans = simulation.getHumans().stream()
+                .filter(human -> human.getStartingFloor() != human.getDestinationFloor())
+                .toList();
+        if (elevators.isEmpty() || elevators.size() > MAX_ELEVATORS || humans.size() > MAX_HUMANS) {
+            throw new IllegalArgumentException("The solver supports 1 to %d elevators and at most %d traveling humans, but got %d and %d."
+                    .formatted(MAX_ELEVATORS, MAX_HUMANS, elevators.size(), humans.size()));
+        }
+        if (!simulation.getElevatorSystem().getSharedShafts().isEmpty()) {
+            throw new IllegalArgumentException("The solver only supports elevators with a shaft of their own.");
+        }
+        if (simulation.getStepCount() != 0 || simulation.hasScheduledArrivals()) {
+            throw new IllegalArgumentException("The solver only supports simulations that did not start yet, with all humans there from the start.");
+        }
+
+        minFloors = new int[elevators.size()];
+        maxFloors = new int[elevators.size()];
+        long positions = 0;
+        for (int i = 0; i < elevators.size(); i++) {
+            Elevator elevator = elevators.get(i);
+            if (elevator.getCapacity() != Elevator.UNLIMITED_CAPACITY) {
+                throw new IllegalArgumentException("The solver only supports elevators with unlimited capacity, but got " + elevator);
+            }
+            if (!elevator.getSpeedProfile().equals(SpeedProfile.ONE_FLOOR_PER_STEP)
+                    || !elevator.getDoorTiming().isInstant() || elevator.getDeckCount() != 1) {
+                throw new IllegalArgumentException("The solver only supports single-deck elevators moving one floor per step without door times, but got " + elevator);
+            }
+            minFloors[i] = elevator.getMinFloor();
+            maxFloors[i] = elevator.getMinFloor() + elevator.getFloorsServed() - 1;
+            positions |= (long) elevator.getCurrentFloor() << (i * POSITION_BITS);
+        }
+        initialPositions = positions;
+
+        startingFloors = humans.stream().mapToInt(Human::getStartingFloor).toArray();
+        destinationFloors = humans.stream().mapToInt(Human::getDestinationFloor).toArray();
+        for (Human human : humans) {
+            boolean servedByAll = elevators.stream().allMatch(elevator -> elevator.canServe(human.getStartingFloor())
+                    && elevator.canServe(human.getDestinationFloor()));
+            if (!servedByAll) {
+                throw new IllegalArgumentException("The solver requires all elevators to serve the floors of every human, but not of " + human);
+            }
+        }
+
+        long statuses = 0;
+        for (int i = 0; i < humans.size(); i++) {
+            statuses |= (long) ARRIVED << (i * STATUS_BITS);
+        }
+        arrivedStatuses = statuses;
+        this.maxExpandedStates = maxExpandedStates;
+    }
+
+    /**
+     * Solves the given simulation, expanding up to two million states per objective.
+     *
+     * @param simulation the simulation to solve, not started yet
+     * @return the best achievable results
+     * @throws IllegalArgumentException if the simulation is not supported by the solver
+     * @throws IllegalStateException    if the simulation could not be solved within the budget
+     */
+    public static Solution solve(Simulation simulation) {
+        return solve(simulation, DEFAULT_MAX_EXPANDED_STATES);
+    }
+
+    /**
+     * Solves the given simulation.
+     *
+     * @param simulation        the simulation to solve, not started yet
+     * @param maxExpandedStates the maximal amount of states to expand per objective
+     * @return the best achievable results
+     * @throws IllegalArgumentException if the simulation is not supported by the solver
+     * @throws IllegalStateException    if the simulation could not be solved within the budget
+     */
+    public static Solution solve(Simulation simulation, int maxExpandedStates) {
+        OptimalSolver solver = new OptimalSolver(simulation, maxExpandedStates);
+        return new Solution(solver.search(Objective.TOTAL_WAITING_STEPS), solver.search(Objective.MAKESPAN));
+    }
+
+    /**
+     * The lowest total cost to reach the state in which all humans arrived.
+     */
+    private long search(Objective objective) {
+        PriorityQueue<Node> openNodes = new PriorityQueue<>(Comparator.comparingLong(Node::estimatedCost)
+                .thenComparing(Comparator.comparingLong(Node::cost).reversed()));
+        Map<State, Long> bestCosts = new HashMap<>();
+
+        State initialState = new State(initialPositions, 0);
+        bestCosts.put(initialState, 0L);
+        openNodes.add(new Node(initialState, 0, lowerBound(objective, initialState)));
+
+        int[] positions = new int[minFloors.length];
+        int moveCombinations = (int) Math.pow(3, minFloors.length);
+        int expandedStates = 0;
+        while (!openNodes.isEmpty()) {
+            Node node = openNodes.poll();
+            State state = node.state();
+            if (node.cost() > bestCosts.get(state)) {
+                // Already reached more cheaply
+                continue;
+            }
+            if (state.statuses() == arrivedStatuses) {
+                return node.cost();
+            }
+            if (++expandedStates > maxExpandedStates) {
+                throw new IllegalStateException("Unable to solve the simulation within %d states."
+                        .formatted(maxExpandedStates));
+            }
+
+            for (int moves = 0; moves < moveCombinations; moves++) {
+                if (!move(state.positions(), moves, positions)) {
+                    continue;
+                }
+                State nextState = new State(encodePositions(positions), nextStatuses(state.statuses(), positions));
+                long nextCost = node.cost() + stepCost(objective, nextState.statuses());
+
+                Long bestCost = bestCosts.get(nextState);
+                if (bestCost == null || nextCost < bestCost) {
+                    bestCosts.put(nextState, nextCost);
+                    openNodes.add(new Node(nextState, nextCost, nextCost + lowerBound(objective, nextState)));
+                }
+            }
+        }
+        throw new IllegalStateException("Unable to solve the simulation, not all humans can arrive.");
+    }
+
+    /**
+     * Moves all elevators, each by -1, 0 or +1 floors as given by the base 3 digits of the moves.
+     *
+     * @return whether all elevators stay within the floors they serve
+     */
+    private boolean move(long encodedPositions, int moves, int[] positions) {
+        for (int i = 0; i < positions.length; i++) {
+            int position = positionOf(encodedPositions, i) + moves % 3 - 1;
+            if (position < minFloors[i] || position > maxFloors[i]) {
+                return false;
+            }
+            positions[i] = position;
+            moves /= 3;
+        }
+        return true;
+    }
+
+    /**
+     * The statuses of all humans after the elevators arrived at the given positions.
+     */
+    private long nextStatuses(long statuses, int[] positions) {
+        long nextStatuses = statuses;
+        for (int i = 0; i < startingFloors.length; i++) {
+            int status = statusOf(statuses, i);
+            int nextStatus = status;
+            if (status == WAITING) {
+                for (int elevator = 0; elevator < positions.length; elevator++) {
+                    if (positions[elevator] == startingFloors[i]) {
+                        nextStatus = elevator + 1;
+                        break;
+                    }
+                }
+            } else if (status != ARRIVED && positions[status - 1] == destinationFloors[i]) {
+                nextStatus = ARRIVED;
+            }
+
+            if (nextStatus != status) {
+                int shift = i * STATUS_BITS;
+                nextStatuses = nextStatuses & ~(STATUS_MASK << shift) | (long) nextStatus << shift;
+            }
+        }
+        return nextStatuses;
+    }
+
+    private long stepCost(Objective objective, long statusesAfterStep) {
+        if (objective == Objective.MAKESPAN) {
+            return 1;
+        }
+
+        int waitingHumans = 0;
+        for (int i = 0; i < startingFloors.length; i++) {
+            if (statusOf(statusesAfterStep, i) == WAITING) {
+                waitingHumans++;
+            }
+        }
+        return waitingHumans;
+    }
+
+    /**
+     * A lower bound of the remaining cost, assuming each human is served by the closest elevator right away.
+     */
+    private long lowerBound(Objective objective, State state) {
+        long bound = 0;
+        for (int i = 0; i < startingFloors.length; i++) {
+            int status = statusOf(state.statuses(), i);
+            if (status == ARRIVED) {
+                continue;
+            }
+
+            int remainingSteps;
+            if (status == WAITING) {
+                int closestDistance = Integer.MAX_VALUE;
+                for (int elevator = 0; elevator < minFloors.length; elevator++) {
+                    closestDistance = Math.min(closestDistance,
+                            Math.abs(positionOf(state.positions(), elevator) - startingFloors[i]));
+                }
+                // Entering takes at least one step, even if an elevator is already there
+                int stepsUntilEntered = Math.max(1, closestDistance);
+                if (objective == Objective.TOTAL_WAITING_STEPS) {
+                    bound += stepsUntilEntered - 1;
+                    continue;
+                }
+                remainingSteps = stepsUntilEntered + Math.abs(startingFloors[i] - destinationFloors[i]);
+            } else {
+                remainingSteps = Math.abs(positionOf(state.positions(), status - 1) - destinationFloors[i]);
+            }
+
+            if (objective == Objective.MAKESPAN) {
+                bound = Math.max(bound, remainingSteps);
+            }
+        }
+        return bound;
+    }
+
+    private static long encodePositions(int[] positions) {
+        long encodedPositions = 0;
+        for (int i = 0; i < positions.length; i++) {
+            encodedPositions |= (long) positions[i] << (i * POSITION_BITS);
+        }
+        return encodedPositions;
+    }
+
+    private static int positionOf(long encodedPositions, int elevator) {
+        return (int) (encodedPositions >>> (elevator * POSITION_BITS) & POSITION_MASK);
+    }
+
+    private static int statusOf(long statuses, int human) {
+        return (int) (statuses >>> (human * STATUS_BITS) & STATUS_MASK);
+    }
+
+    /**
+     * The best results achievable on a simulation, each optimised on its own.
+     *
+     * @param minTotalWaitingSteps the lowest sum of steps all humans wait for an elevator
+     * @param minMakespan          the lowest amount of steps until all humans arrived
+     */
+    public record Solution(long minTotalWaitingSteps, long minMakespan) {
+    }
+
+    private enum Objective {
+        TOTAL_WAITING_STEPS,
+        MAKESPAN
+    }
+
+    /**
+     * The positions of all elevators and the statuses of all humans, between two steps.
+     */
+    private record State(long positions, long statuses) {
+    }
+
+    private record Node(State state, long cost, long estimatedCost) {
+    }
+}
@@ -0,0 +1,187 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.DispatchParameters;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Compares dispatch strategies against the {@link OptimalSolver optimal} results on small random simulations,
+ * as generated by {@link Simulation#createRandomSimulation(long, int, int, int)}.
+ * <p>
+ * Each strategy is a set of {@link DispatchParameters}. Seeds are solved in parallel, seeds that can not be
+ * solved within the budget of the solver are left out of the report:
+ * <pre>{@code
+ * List<OptimalityGapReport.Entry> entries = new OptimalityGapReport(2, 8, 10)
+ *         .seeds(0, 100)
+ *         .strategy("tuned", DispatchParameters.load(Path.of("dispatch.properties")))
+ *         .run();
+ * System.out.println(OptimalityGapReport.format(entries));
+ * }</pre>
+ */
+public final class OptimalityGapReport {
+    private final int amountOfElevators;
+    private final int amountOfHumans;
+    private final int floorsServed;
+    private final Map<String, DispatchParameters> strategies = new LinkedHashMap<>();
+    private long fromSeed;
+    private long toSeed = 20;
+    private int stepLimit = 10_000;
+
+    /**
+     * Creates a report over random simulations of the given shape, comparing the default strategy.
+     *
+     * @param amountOfElevators the amount of elevators, at most {@value OptimalSolver#MAX_ELEVATORS}
+     * @param amountOfHumans    the amount of humans, at most {@value OptimalSolver#MAX_HUMANS}
+     * @param floorsServed      the amount of floors all elevators serve
+     */
+    public OptimalityGapReport(int amountOfElevators, int amountOfHumans, int floorsServed) {
+        if (amountOfElevators < 1 || amountOfElevators > OptimalSolver.MAX_ELEVATORS
+                || amountOfHumans > OptimalSolver.MAX_HUMANS) {
+            throw new IllegalArgumentException("The solver supports 1 to %d elevators and at most %d humans."
+                    .formatted(OptimalSolver.MAX_ELEVATORS, OptimalSolver.MAX_HUMANS));
+        }
+        this.amountOfElevators = amountOfElevators;
+        this.amountOfHumans = amountOfHumans;
+        this.floorsServed = floorsServed;
+        strategies.put("default", DispatchParameters.DEFAULT);
+    }
+
+    /**
+     * Sets the seeds to compare on. Defaults to the seeds 0 to 19.
+     *
+     * @param fromSeed the first seed, inclusive
+     * @param toSeed   the last seed, exclusive
+     * @return this report
+     */
+    public OptimalityGapReport seeds(long fromSeed, long toSeed) {
+        if (fromSeed >= toSeed) {
+            throw new IllegalArgumentException("The seed range [%d, %d) is empty.".formatted(fromSeed, toSeed));
+        }
+        this.fromSeed = fromSeed;
+        this.toSeed = toSeed;
+        return this;
+    }
+
+    /**
+     * Adds a strategy to compare, replacing any strategy with the same name.
+     *
+     * @param name       the name of the strategy, as shown in the report
+     * @param parameters the parameters of the dispatcher
+     * @return this report
+     */
+    public OptimalityGapReport strategy(String name, DispatchParameters parameters) {
+        strategies.put(Objects.requireNonNull(name), Objects.requireNonNull(parameters));
+        return this;
+    }
+
+    public OptimalityGapReport stepLimit(int stepLimit) {
+        if (stepLimit < 1) {
+            throw new IllegalArgumentException("The step limit must be at least 1, but got " + stepLimit);
+        }
+        this.stepLimit = stepLimit;
+        return this;
+    }
+
+    /**
+     * Solves all seeds and simulates each strategy on them.
+     *
+     * @return one entry per solved seed and strategy, ordered by seed and then by the order strategies were added
+     */
+    public List<Entry> run() {
+        return LongStream.range(fromSeed, toSeed)
+                .parallel()
+                .mapToObj(this::compare)
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * Formats the given entries as a table with the mean gap of each strategy.
+     *
+     * @param entries the entries to format, as returned by {@link #run()}
+     * @return the table
+     */
+    public static String format(List<Entry> entries) {
+        Map<String, List<Entry>> strategyToEntries = entries.stream()
+                .collect(Collectors.groupingBy(Entry::strategy, LinkedHashMap::new, Collectors.toList()));
+
+        StringBuilder table = new StringBuilder("%-16s %6s %14s %14s%n".formatted("strategy", "seeds", "waiting gap",
+                "makespan gap"));
+        strategyToEntries.forEach((strategy, strategyEntries) -> table.append("%-16s %6d %13.1f%% %13.1f%%%n"
+                .formatted(strategy, strategyEntries.size(),
+                        100 * strategyEntries.stream().mapToDouble(Entry::waitingGap).average().orElse(0),
+                        100 * strategyEntries.stream().mapToDouble(Entry::makespanGap).average().orElse(0))));
+        return table.toString();
+    }
+
+    private List<Entry> compare(long seed) {
+        OptimalSolver.Solution solution;
+        try {
+            solution = OptimalSolver.solve(createSimulation(seed));
+        } catch (IllegalStateException e) {
+            // Too big to solve, the report only covers solved seeds
+            return List.of();
+        }
+
+        List<Entry> entries = new ArrayList<>(strategies.size());
+        strategies.forEach((strategy, parameters) -> {
+            Simulation simulation = createSimulation(seed);
+            simulation.getElevatorSystem().setDispatchParameters(parameters);
+            simulation.startAndExecuteUntilDone(stepLimit);
+
+            entries.add(new Entry(seed, strategy,
+                    simulation.getTotalStepsForState(Human.State.WAITING_FOR_ELEVATOR),
+                    solution.minTotalWaitingSteps(), simulation.getStepCount(), solution.minMakespan()));
+        });
+        return entries;
+    }
+
+    private Simulation createSimulation(long seed) {
+        return Simulation.createRandomSimulation(seed, amountOfElevators, amountOfHumans, floorsServed);
+    }
+
+    /**
+     * The result of a strategy on a single seed, next to the optimal result.
+     *
+     * @param seed                     the seed of the simulation
+     * @param strategy                 the name of the strategy
+     * @param totalWaitingSteps        the sum of steps all humans waited for an elevator
+     * @param optimalTotalWaitingSteps the lowest achievable sum of waiting steps
+     * @param steps                    the amount of steps until all humans arrived
+     * @param optimalSteps             the lowest achievable amount of steps until all humans arrived
+     */
+    public record Entry(long seed, String strategy, long totalWaitingSteps, long optimalTotalWaitingSteps, long steps,
+            long optimalSteps) {
+        /**
+         * How much longer humans waited than necessary, relative to the optimum.
+         *
+         * @return the gap, 0 if the strategy is optimal, 1 if humans waited twice as long as necessary
+         */
+        public double waitingGap() {
+            return gap(totalWaitingSteps, optimalTotalWaitingSteps);
+        }
+
+        /**
+         * How much longer it took until all humans arrived than necessary, relative to the optimum.
+         *
+         * @return the gap, 0 if the strategy is optimal
+         */
+        public double makespanGap() {
+            return gap(steps, optimalSteps);
+        }
+
+        private static double gap(long actual, long optimal) {
+            if (optimal == 0) {
+                return actual == 0 ? 0 : Double.POSITIVE_INFINITY;
+            }
+            return (double) (actual - optimal) / optimal;
+        }
+    }
+}
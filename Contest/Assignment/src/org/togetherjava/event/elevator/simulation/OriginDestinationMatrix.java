@@ -0,0 +1,153 @@
+package org.togetherjava.event.elevator.simulation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.random.RandomGenerator;
+
+/**
+ * Distribution of trips between the floors of a building, i.e. how likely it is that a human wants to travel
+ * from a given origin floor to a given destination floor.
+ * <p>
+ * Trips are sampled in O(1) using the alias method, independent of the amount of floors. Hence, scenarios
+ * with millions of humans can be generated quickly.
+ */
+public final class OriginDestinationMatrix {
+    private final int minFloor;
+    private final int floorsServed;
+    /**
+     * Probability of picking the cell itself instead of its alias, per cell of the matrix.
+     */
+    private final double[] cellProbabilities;
+    private final int[] cellAliases;
+
+    /**
+     * Creates a matrix from the given weights.
+     *
+     * @param minFloor     the lowest floor of the building, must be greater than or equal to 1
+     * @param floorsServed the amount of floors of the building, must be greater than or equal to 2
+     * @param tripWeight   the relative weight of each trip, must not be negative and positive for at least one trip
+     * @return the matrix
+     */
+    public static OriginDestinationMatrix fromWeights(int minFloor, int floorsServed, TripWeight tripWeight) {
+        if (minFloor <= 0 || floorsServed < 2) {
+            throw new IllegalArgumentException("Min floor must at least 1, floors served at least 2.");
+        }
+
+        int cellCount = floorsServed * floorsServed;
+        double[] weights = new double[cellCount];
+        double totalWeight = 0;
+        for (int origin = 0; origin < floorsServed; origin++) {
+            for (int destination = 0; destination < floorsServed; destination++) {
+                double weight = tripWeight.weight(minFloor + origin, minFloor + destination);
+                if (weight < 0 || !Double.isFinite(weight)) {
+                    throw new IllegalArgumentException("Trip weights must be finite and not negative, but the trip"
+                            + " from %d to %d has %f.".formatted(minFloor + origin, minFloor + destination, weight));
+                }
+                weights[origin * floorsServed + destination] = weight;
+                totalWeight += weight;
+            }
+        }
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("At least one trip must have a positive weight.");
+        }
+
+        return new OriginDestinationMatrix(minFloor, floorsServed, weights, totalWeight);
+    }
+
+    /**
+     * Creates a matrix in which all trips are equally likely, including trips that start and end at the same floor.
+     *
+     * @param minFloor     the lowest floor of the building, must be greater than or equal to 1
+     * @param floorsServed the amount of floors of the building, must be greater than or equal to 2
+     * @return the matrix
+     */
+    public static OriginDestinationMatrix uniform(int minFloor, int floorsServed) {
+        return fromWeights(minFloor, floorsServed, (originFloor, destinationFloor) -> 1);
+    }
+
+    private OriginDestinationMatrix(int minFloor, int floorsServed, double[] weights, double totalWeight) {
+        this.minFloor = minFloor;
+        this.floorsServed = floorsServed;
+
+        int cellCount = weights.length;
+        cellProbabilities = new double[cellCount];
+        cellAliases = new int[cellCount];
+
+        // Vose's alias method, scaled such that the average cell has a probability of 1
+        double[] scaled = new double[cellCount];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int cell = 0; cell < cellCount; cell++) {
+            scaled[cell] = weights[cell] * cellCount / totalWeight;
+            (scaled[cell] < 1 ? small : large).push(cell);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int smallCell = small.pop();
+            int largeCell = large.pop();
+
+            cellProbabilities[smallCell] = scaled[smallCell];
+            cellAliases[smallCell] = largeCell;
+
+            scaled[largeCell] += scaled[smallCell] - 1;
+            (scaled[largeCell] < 1 ? small : large).push(largeCell);
+        }
+        // Remaining cells are only left due to rounding errors, they always pick themselves
+        large.forEach(cell -> cellProbabilities[cell] = 1);
+        small.forEach(cell -> cellProbabilities[cell] = 1);
+    }
+
+    public int getMinFloor() {
+        return minFloor;
+    }
+
+    public int getFloorsServed() {
+        return floorsServed;
+    }
+
+    /**
+     * Samples a random trip.
+     *
+     * @param random the source of randomness
+     * @return the trip, encoded as {@code originFloor * floorsServed + destinationFloor}, relative to the min floor;
+     * use {@link #originOf(int)} and {@link #destinationOf(int)} to decode it
+     */
+    public int sampleTrip(RandomGenerator random) {
+        int cell = random.nextInt(cellProbabilities.length);
+        return random.nextDouble() < cellProbabilities[cell] ? cell : cellAliases[cell];
+    }
+
+    /**
+     * The origin floor of a trip obtained by {@link #sampleTrip(RandomGenerator)}.
+     *
+     * @param trip the encoded trip
+     * @return the origin floor
+     */
+    public int originOf(int trip) {
+        return minFloor + trip / floorsServed;
+    }
+
+    /**
+     * The destination floor of a trip obtained by {@link #sampleTrip(RandomGenerator)}.
+     *
+     * @param trip the encoded trip
+     * @return the destination floor
+     */
+    public int destinationOf(int trip) {
+        return minFloor + trip % floorsServed;
+    }
+
+    /**
+     * The relative weight of a trip between two floors.
+     */
+    @FunctionalInterface
+    public interface TripWeight {
+        /**
+         * The relative weight of the trip from the given origin to the given destination.
+         *
+         * @param originFloor      the floor the human starts at
+         * @param destinationFloor the floor the human wants to reach
+         * @return the weight, must not be negative, 0 if the trip never happens
+         */
+        double weight(int originFloor, int destinationFloor);
+    }
+}
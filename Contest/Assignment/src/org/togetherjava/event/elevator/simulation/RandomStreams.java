@@ -0,0 +1,77 @@
+package org.togetherjava.event.elevator.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Independent random streams for generating the elements of a scenario.
+ * <p>
+ * Every element gets its own stream, derived only from the seed, the kind of the element and its index.
+ * Elements therefore do not depend on the order they are generated in, so big populations are generated in
+ * parallel and still come out bit-identical for any amount of threads.
+ */
+final class RandomStreams {
+    /**
+     * Below this amount of elements, forking the generation costs more than it saves.
+     */
+    private static final int PARALLEL_THRESHOLD = 10_000;
+    private static final long GOLDEN_RATIO = 0x9E37_79B9_7F4A_7C15L;
+
+    private RandomStreams() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * The stream of the element with the given kind and index.
+     *
+     * @param seed  the seed of the scenario
+     * @param kind  the kind of the element, elements of different kinds never share a stream
+     * @param index the index of the element within all elements of its kind
+     * @return the stream, always the same for the same arguments
+     */
+    static SplittableRandom streamOf(long seed, Kind kind, int index) {
+        long kindSeed = mix(seed + (kind.ordinal() + 1) * GOLDEN_RATIO);
+        return new SplittableRandom(mix(kindSeed + (index + 1L) * GOLDEN_RATIO));
+    }
+
+    /**
+     * Generates the given amount of elements, each from its own stream, see {@link #streamOf(long, Kind, int)}.
+     *
+     * @param seed      the seed of the scenario
+     * @param kind      the kind of the elements
+     * @param amount    the amount of elements to generate
+     * @param generator generates a single element from its stream
+     * @param <T>       the type of the elements
+     * @return the elements, ordered by index
+     */
+    static <T> ArrayList<T> generate(long seed, Kind kind, int amount, Function<SplittableRandom, T> generator) {
+        ArrayList<T> elements = new ArrayList<>(Collections.nCopies(amount, null));
+        IntStream indices = IntStream.range(0, amount);
+        if (amount >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        // Every index is set exactly once, and the stream completing publishes all of them
+        indices.forEach(i -> elements.set(i, generator.apply(streamOf(seed, kind, i))));
+        return elements;
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreads similar inputs over all bits.
+     */
+    private static long mix(long value) {
+        long hash = (value ^ (value >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * The kinds of elements a scenario is generated from.
+     */
+    enum Kind {
+        ELEVATOR,
+        HUMAN
+    }
+}
@@ -0,0 +1,139 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.ArrayList;
+import java.util.OptionalInt;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builder for simulations with a configurable building shape and traffic pattern.
+ * <p>
+ * Generation is deterministic for a given seed and configuration. Every elevator and human is generated from its
+ * own random stream, so big populations are generated in parallel without changing the result. For ready-made
+ * configurations modelling typical buildings, see {@link BuildingTemplate}.
+ */
+public final class ScenarioBuilder {
+    private long seed = ThreadLocalRandom.current().nextLong();
+    private int minFloor = 1;
+    private int floorsServed = 10;
+    private int amountOfElevators = 1;
+    private int amountOfHumans;
+    private OptionalInt elevatorStartingFloor = OptionalInt.empty();
+    private OriginDestinationMatrix trips;
+    private HumanMode humanMode = HumanMode.CALLBACK;
+
+    /**
+     * Sets the seed used to generate the scenario. Defaults to a random seed.
+     *
+     * @param seed the seed
+     * @return this builder
+     */
+    public ScenarioBuilder seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets the floors of the building. Defaults to 10 floors, starting at floor 1.
+     *
+     * @param minFloor     the lowest floor of the building, must be greater than or equal to 1
+     * @param floorsServed the amount of floors of the building, must be greater than or equal to 2
+     * @return this builder
+     */
+    public ScenarioBuilder floors(int minFloor, int floorsServed) {
+        if (minFloor <= 0 || floorsServed < 2) {
+            throw new IllegalArgumentException("Min floor must at least 1, floors served at least 2.");
+        }
+        this.minFloor = minFloor;
+        this.floorsServed = floorsServed;
+        return this;
+    }
+
+    /**
+     * Sets the amount of elevators, all of them serving the whole building. Defaults to 1.
+     *
+     * @param amountOfElevators the amount of elevators, must be at least 1
+     * @return this builder
+     */
+    public ScenarioBuilder elevators(int amountOfElevators) {
+        if (amountOfElevators < 1) {
+            throw new IllegalArgumentException("At least one elevator is needed, but got " + amountOfElevators);
+        }
+        this.amountOfElevators = amountOfElevators;
+        return this;
+    }
+
+    /**
+     * Lets all elevators start at the given floor. By default, elevators start at random floors.
+     *
+     * @param startingFloor the floor all elevators start at, must be within the floors of the building
+     * @return this builder
+     */
+    public ScenarioBuilder elevatorsStartingAt(int startingFloor) {
+        elevatorStartingFloor = OptionalInt.of(startingFloor);
+        return this;
+    }
+
+    /**
+     * Sets the amount of humans. Defaults to 0.
+     *
+     * @param amountOfHumans the amount of humans, must not be negative
+     * @return this builder
+     */
+    public ScenarioBuilder humans(int amountOfHumans) {
+        if (amountOfHumans < 0) {
+            throw new IllegalArgumentException("The amount of humans must not be negative, but got " + amountOfHumans);
+        }
+        this.amountOfHumans = amountOfHumans;
+        return this;
+    }
+
+    /**
+     * Sets the distribution of the trips humans want to make.
+     * Defaults to {@link OriginDestinationMatrix#uniform(int, int)} over the floors of the building.
+     *
+     * @param trips the trip distribution, must cover exactly the floors of the building
+     * @return this builder
+     */
+    public ScenarioBuilder trips(OriginDestinationMatrix trips) {
+        this.trips = trips;
+        return this;
+    }
+
+    /**
+     * Sets how the humans of the simulation are driven. Defaults to {@link HumanMode#CALLBACK}.
+     *
+     * @param humanMode the mode to drive humans with
+     * @return this builder
+     */
+    public ScenarioBuilder humanMode(HumanMode humanMode) {
+        this.humanMode = humanMode;
+        return this;
+    }
+
+    /**
+     * Generates the scenario.
+     *
+     * @return a simulation of the scenario, ready to be started
+     */
+    public Simulation build() {
+        OriginDestinationMatrix tripsToSample = trips == null
+                ? OriginDestinationMatrix.uniform(minFloor, floorsServed)
+                : trips;
+        if (tripsToSample.getMinFloor() != minFloor || tripsToSample.getFloorsServed() != floorsServed) {
+            throw new IllegalStateException("The trip distribution does not cover the floors of the building.");
+        }
+
+        ArrayList<Elevator> elevators = RandomStreams.generate(seed, RandomStreams.Kind.ELEVATOR, amountOfElevators,
+                random -> new Elevator(minFloor, floorsServed,
+                        elevatorStartingFloor.orElseGet(() -> minFloor + random.nextInt(floorsServed))));
+        ArrayList<Human> humans = RandomStreams.generate(seed, RandomStreams.Kind.HUMAN, amountOfHumans, random -> {
+            int trip = tripsToSample.sampleTrip(random);
+            return new Human(tripsToSample.originOf(trip), tripsToSample.destinationOf(trip));
+        });
+
+        return new Simulation(elevators, humans, humanMode, seed);
+    }
+}
@@ -0,0 +1,371 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Reading and writing scenarios, i.e. elevators and the trips of humans, from and to files.
+ * <p>
+ * Two formats are supported:
+ * <ul>
+ *     <li>a compact binary format with fixed-width records, which is memory-mapped when loading, so that
+ *     scenarios with millions of trips load without any parsing</li>
+ *     <li>a CSV format, to import scenarios from other tools, for example from access logs of a real building</li>
+ * </ul>
+ * <p>
+ * The binary format consists of a header, followed by all elevator records and then all trip records.
+ * All values are 32-bit integers in little-endian byte order:
+ * <pre>
+ * header:   magic "ELVS", version, amount of elevators, amount of trips
+ * elevator: min floor, floors served, starting floor, capacity
+ * trip:     starting floor, destination floor, arrival step
+ * </pre>
+ * The CSV format has one record per line, {@code #} starts a comment:
+ * <pre>
+ * elevator,minFloor,floorsServed,startingFloor,capacity
+ * trip,startingFloor,destinationFloor,arrivalStep
+ * </pre>
+ * A capacity of {@code 0} stands for an elevator with unlimited capacity. Elevators may not serve floors above
+ * {@value #MAX_FLOOR}. Trips may only start and end at floors served by at least one of the elevators.
+ *
+ * @see Simulation#fromFile(Path)
+ */
+public final class ScenarioFile {
+    private static final int MAGIC = 0x53564C45; // "ELVS" in little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+    private static final int ELEVATOR_BYTES = 4 * Integer.BYTES;
+    private static final int TRIP_BYTES = 3 * Integer.BYTES;
+    /**
+     * Maximal size of a single mapped region, a multiple of the size of a trip record.
+     */
+    private static final long MAX_TRIPS_PER_REGION = Integer.MAX_VALUE / TRIP_BYTES;
+    /**
+     * Highest floor an elevator may serve, guards against allocating huge tables for corrupt files.
+     */
+    private static final int MAX_FLOOR = 1 << 16;
+    private static final String CSV_ELEVATOR = "elevator";
+    private static final String CSV_TRIP = "trip";
+
+    private ScenarioFile() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Loads the scenario from the given file, detecting whether it is in the binary or the CSV format.
+     *
+     * @param file the file to load
+     * @return a simulation of the scenario, ready to be started
+     * @throws UncheckedIOException     if the file could not be read
+     * @throws IllegalArgumentException if the file is malformed
+     */
+    public static Simulation load(Path file) {
+        return isBinary(file) ? loadBinary(file) : loadCsv(file);
+    }
+
+    /**
+     * Loads a scenario in the binary format by memory-mapping the file.
+     *
+     * @param file the file to load
+     * @return a simulation of the scenario, ready to be started
+     * @throws UncheckedIOException     if the file could not be read
+     * @throws IllegalArgumentException if the file is malformed
+     */
+    public static Simulation loadBinary(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = map(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IllegalArgumentException("The file %s is not a binary scenario file.".formatted(file));
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported scenario file version %d".formatted(version));
+            }
+            int amountOfElevators = header.getInt();
+            int amountOfTrips = header.getInt();
+
+            long expectedSize = HEADER_BYTES + (long) amountOfElevators * ELEVATOR_BYTES
+                    + (long) amountOfTrips * TRIP_BYTES;
+            if (amountOfElevators < 0 || amountOfTrips < 0 || channel.size() != expectedSize) {
+                throw new IllegalArgumentException("The scenario file %s is truncated or corrupt.".formatted(file));
+            }
+
+            ByteBuffer elevatorRecords = map(channel, HEADER_BYTES, (long) amountOfElevators * ELEVATOR_BYTES);
+            ArrayList<Elevator> elevators = new ArrayList<>(amountOfElevators);
+            BitSet servedFloors = new BitSet();
+            for (int i = 0; i < amountOfElevators; i++) {
+                Elevator elevator;
+                try {
+                    elevator = createElevator(elevatorRecords.getInt(), elevatorRecords.getInt(),
+                            elevatorRecords.getInt(), elevatorRecords.getInt());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(
+                            "Malformed elevator record %d in scenario file %s".formatted(i, file), e);
+                }
+                elevators.add(elevator);
+                serve(servedFloors, elevator.getMinFloor(), elevator.getFloorsServed());
+            }
+
+            ArrayList<Human> humans = new ArrayList<>(amountOfTrips);
+            int[] arrivalSteps = new int[amountOfTrips];
+            long tripsStart = HEADER_BYTES + (long) amountOfElevators * ELEVATOR_BYTES;
+            for (long regionStart = 0; regionStart < amountOfTrips; regionStart += MAX_TRIPS_PER_REGION) {
+                long tripsInRegion = Math.min(MAX_TRIPS_PER_REGION, amountOfTrips - regionStart);
+                ByteBuffer tripRecords = map(channel, tripsStart + regionStart * TRIP_BYTES,
+                        tripsInRegion * TRIP_BYTES);
+                for (long i = 0; i < tripsInRegion; i++) {
+                    arrivalSteps[humans.size()] = readTrip(tripRecords, humans, servedFloors, file);
+                }
+            }
+
+            return new Simulation(elevators, humans, arrivalSteps);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load the scenario file " + file, e);
+        }
+    }
+
+    /**
+     * Loads a scenario in the CSV format.
+     *
+     * @param file the file to load
+     * @return a simulation of the scenario, ready to be started
+     * @throws UncheckedIOException     if the file could not be read
+     * @throws IllegalArgumentException if the file is malformed
+     */
+    public static Simulation loadCsv(Path file) {
+        List<ElevatorRecord> elevatorRecords = new ArrayList<>();
+        List<TripRecord> tripRecords = new ArrayList<>();
+        readCsv(file, elevatorRecords, tripRecords);
+
+        ArrayList<Elevator> elevators = new ArrayList<>(elevatorRecords.size());
+        for (ElevatorRecord record : elevatorRecords) {
+            elevators.add(createElevator(record.minFloor(), record.floorsServed(), record.startingFloor(),
+                    record.capacity()));
+        }
+        ArrayList<Human> humans = new ArrayList<>(tripRecords.size());
+        int[] arrivalSteps = new int[tripRecords.size()];
+        for (TripRecord record : tripRecords) {
+            arrivalSteps[humans.size()] = record.arrivalStep();
+            humans.add(new Human(record.startingFloor(), record.destinationFloor()));
+        }
+
+        return new Simulation(elevators, humans, arrivalSteps);
+    }
+
+    /**
+     * Writes a scenario in the binary format, overwriting the file if it already exists.
+     *
+     * @param file      the file to write to
+     * @param elevators the elevators of the scenario
+     * @param trips     the trips of the scenario
+     * @throws UncheckedIOException if the file could not be written
+     */
+    public static void writeBinary(Path file, List<ElevatorRecord> elevators, List<TripRecord> trips) {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            // DataOutputStream is big-endian, the format is little-endian
+            output.writeInt(Integer.reverseBytes(MAGIC));
+            output.writeInt(Integer.reverseBytes(VERSION));
+            output.writeInt(Integer.reverseBytes(elevators.size()));
+            output.writeInt(Integer.reverseBytes(trips.size()));
+
+            for (ElevatorRecord elevator : elevators) {
+                output.writeInt(Integer.reverseBytes(elevator.minFloor()));
+                output.writeInt(Integer.reverseBytes(elevator.floorsServed()));
+                output.writeInt(Integer.reverseBytes(elevator.startingFloor()));
+                output.writeInt(Integer.reverseBytes(elevator.capacity()));
+            }
+            for (TripRecord trip : trips) {
+                output.writeInt(Integer.reverseBytes(trip.startingFloor()));
+                output.writeInt(Integer.reverseBytes(trip.destinationFloor()));
+                output.writeInt(Integer.reverseBytes(trip.arrivalStep()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the scenario file " + file, e);
+        }
+    }
+
+    /**
+     * Converts a scenario in the CSV format to the binary format, for faster loading later on.
+     *
+     * @param csvFile    the file to read from
+     * @param binaryFile the file to write to, overwritten if it already exists
+     * @throws UncheckedIOException     if any of the files could not be read or written
+     * @throws IllegalArgumentException if the CSV file is malformed
+     */
+    public static void convertCsvToBinary(Path csvFile, Path binaryFile) {
+        List<ElevatorRecord> elevators = new ArrayList<>();
+        List<TripRecord> trips = new ArrayList<>();
+        readCsv(csvFile, elevators, trips);
+
+        writeBinary(binaryFile, elevators, trips);
+    }
+
+    private static void readCsv(Path file, List<ElevatorRecord> elevators, List<TripRecord> trips) {
+        List<Integer> tripLineNumbers = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] columns = line.split(",");
+                try {
+                    switch (columns[0].strip()) {
+                        case CSV_ELEVATOR -> {
+                            requireColumns(columns, 5);
+                            ElevatorRecord elevator = new ElevatorRecord(parseColumn(columns[1]),
+                                    parseColumn(columns[2]), parseColumn(columns[3]), parseColumn(columns[4]));
+                            // Only to validate the record, the floors it serves are marked below
+                            createElevator(elevator.minFloor(), elevator.floorsServed(), elevator.startingFloor(),
+                                    elevator.capacity());
+                            elevators.add(elevator);
+                        }
+                        case CSV_TRIP -> {
+                            requireColumns(columns, 4);
+                            trips.add(new TripRecord(parseColumn(columns[1]), parseColumn(columns[2]),
+                                    parseColumn(columns[3])));
+                            tripLineNumbers.add(lineNumber);
+                        }
+                        default -> throw new IllegalArgumentException("Unknown record type " + columns[0]);
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(
+                            "Malformed line %d in scenario file %s: %s".formatted(lineNumber, file, line), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load the scenario file " + file, e);
+        }
+
+        // Elevators may be listed after the trips, so trips can only be checked once the whole file is read
+        BitSet servedFloors = new BitSet();
+        for (ElevatorRecord elevator : elevators) {
+            serve(servedFloors, elevator.minFloor(), elevator.floorsServed());
+        }
+        for (int i = 0; i < trips.size(); i++) {
+            TripRecord trip = trips.get(i);
+            if (!isServed(servedFloors, trip.startingFloor(), trip.destinationFloor())) {
+                throw new IllegalArgumentException("The trip on line %d in scenario file %s from floor %d to floor %d"
+                        .formatted(tripLineNumbers.get(i), file, trip.startingFloor(), trip.destinationFloor())
+                        + " is not served by any elevator.");
+            }
+        }
+    }
+
+    private static boolean isBinary(Path file) {
+        try (InputStream input = Files.newInputStream(file)) {
+            byte[] magic = input.readNBytes(Integer.BYTES);
+            return magic.length == Integer.BYTES
+                    && ByteBuffer.wrap(magic).order(ByteOrder.LITTLE_ENDIAN).getInt() == MAGIC;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the scenario file " + file, e);
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * Reads the next trip record, adding its human to the given list.
+     *
+     * @return the arrival step of the trip
+     * @throws IllegalArgumentException if the trip starts or ends at a floor none of the elevators serve
+     */
+    private static int readTrip(ByteBuffer tripRecords, List<Human> humans, BitSet servedFloors, Path file) {
+        int startingFloor = tripRecords.getInt();
+        int destinationFloor = tripRecords.getInt();
+        int arrivalStep = tripRecords.getInt();
+        if (!isServed(servedFloors, startingFloor, destinationFloor)) {
+            throw new IllegalArgumentException(
+                    "The trip record %d in scenario file %s from floor %d to floor %d is not served by any elevator."
+                            .formatted(humans.size(), file, startingFloor, destinationFloor));
+        }
+        humans.add(new Human(startingFloor, destinationFloor));
+        return arrivalStep;
+    }
+
+    /**
+     * Marks the floors served by an elevator, which must already be validated by
+     * {@link #createElevator(int, int, int, int)}.
+     */
+    private static void serve(BitSet servedFloors, int minFloor, int floorsServed) {
+        servedFloors.set(minFloor, minFloor + floorsServed);
+    }
+
+    private static boolean isServed(BitSet servedFloors, int startingFloor, int destinationFloor) {
+        return startingFloor >= 0 && destinationFloor >= 0
+                && servedFloors.get(startingFloor) && servedFloors.get(destinationFloor);
+    }
+
+    /**
+     * Creates the elevator of a record.
+     *
+     * @throws IllegalArgumentException if the elevator is invalid or serves floors above {@link #MAX_FLOOR}
+     */
+    private static Elevator createElevator(int minFloor, int floorsServed, int startingFloor, int capacity) {
+        // Checked before creating the elevator, as it allocates tables for all floors it serves
+        if ((long) minFloor + floorsServed - 1 > MAX_FLOOR) {
+            throw new IllegalArgumentException(
+                    "An elevator may not serve floors above %d, but it serves %d floors from floor %d."
+                            .formatted(MAX_FLOOR, floorsServed, minFloor));
+        }
+        return new Elevator(minFloor, floorsServed, startingFloor,
+                capacity == 0 ? Elevator.UNLIMITED_CAPACITY : capacity);
+    }
+
+    private static void requireColumns(String[] columns, int expectedColumns) {
+        if (columns.length != expectedColumns) {
+            throw new IllegalArgumentException(
+                    "Expected %d columns, but got %d".formatted(expectedColumns, columns.length));
+        }
+    }
+
+    private static int parseColumn(String column) {
+        return Integer.parseInt(column.strip());
+    }
+
+    /**
+     * An elevator as stored in a scenario file.
+     *
+     * @param minFloor      the minimum floor the elevator serves
+     * @param floorsServed  the amount of floors the elevator serves
+     * @param startingFloor the floor the elevator starts at
+     * @param capacity      the maximal amount of humans inside the elevator at once, 0 if unlimited
+     */
+    public record ElevatorRecord(int minFloor, int floorsServed, int startingFloor, int capacity) {
+    }
+
+    /**
+     * The trip of a human as stored in a scenario file.
+     *
+     * @param startingFloor    the floor the human starts at
+     * @param destinationFloor the floor the human wants to reach
+     * @param arrivalStep      the step at which the human enters the simulation, 0 if right from the start
+     */
+    public record TripRecord(int startingFloor, int destinationFloor, int arrivalStep) {
+    }
+}
@@ -0,0 +1,306 @@
+package org.togetherjava.event.elevator.simulation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Searches for randomly generated simulations that get stuck, break the rules or are unusually slow.
+ * <p>
+ * Each run generates a random building shape, population and seed, see
+ * {@link Simulation#createRandomSimulation(long, int, int, int)}, and executes it with invariant checks enabled.
+ * Runs are spread across all cores. A run fails if it
+ * <ul>
+ *     <li>exceeds the step budget,</li>
+ *     <li>throws, for example because an invariant was violated or a livelock was detected, or</li>
+ *     <li>needs far more steps per floor than almost all other runs.</li>
+ * </ul>
+ * Every failing run is shrunk to the fewest humans and elevators that still fail the same way,
+ * so that it can be debugged easily.
+ * <p>
+ * The same seed always generates the same runs:
+ * <pre>{@code
+ * List<SeedFuzzer.Failure> failures = new SeedFuzzer(42).runs(10_000).maxHumans(5_000).run();
+ * SeedFuzzer.writeReproducers(Path.of("failures.csv"), failures);
+ * }</pre>
+ */
+public final class SeedFuzzer {
+    private static final int MIN_RUNS_FOR_OUTLIERS = 100;
+
+    private final long seed;
+    private int runs = 1_000;
+    private int maxElevators = 20;
+    private int maxHumans = 1_000;
+    private int maxFloorsServed = 100;
+    private int stepBudget = 100_000;
+    private double outlierPercentile = 0.99;
+    private double outlierFactor = 2;
+
+    /**
+     * Creates a fuzzer with default settings.
+     *
+     * @param seed the seed to generate all runs with
+     */
+    public SeedFuzzer(long seed) {
+        this.seed = seed;
+    }
+
+    public SeedFuzzer runs(int runs) {
+        this.runs = requirePositive(runs, "runs");
+        return this;
+    }
+
+    public SeedFuzzer maxElevators(int maxElevators) {
+        this.maxElevators = requirePositive(maxElevators, "maxElevators");
+        return this;
+    }
+
+    public SeedFuzzer maxHumans(int maxHumans) {
+        this.maxHumans = requirePositive(maxHumans, "maxHumans");
+        return this;
+    }
+
+    public SeedFuzzer maxFloorsServed(int maxFloorsServed) {
+        if (maxFloorsServed < 2) {
+            throw new IllegalArgumentException("Elevators serve at least 2 floors, but got " + maxFloorsServed);
+        }
+        this.maxFloorsServed = maxFloorsServed;
+        return this;
+    }
+
+    /**
+     * Sets the amount of steps after which a run counts as stuck.
+     *
+     * @param stepBudget the maximal amount of steps per run
+     * @return this fuzzer
+     */
+    public SeedFuzzer stepBudget(int stepBudget) {
+        this.stepBudget = requirePositive(stepBudget, "stepBudget");
+        return this;
+    }
+
+    /**
+     * Sets the band of expected step counts. Runs needing more steps per floor than the given percentile of all
+     * runs, multiplied by the given factor, count as too slow. Only applied with at least 100 runs.
+     *
+     * @param percentile the percentile of steps per floor that is still expected, between 0 and 1
+     * @param factor     how many times the percentile a run may take before it is too slow, at least 1
+     * @return this fuzzer
+     */
+    public SeedFuzzer outlierBand(double percentile, double factor) {
+        if (percentile <= 0 || percentile > 1 || factor < 1) {
+            throw new IllegalArgumentException("The percentile must be in (0, 1] and the factor at least 1.");
+        }
+        this.outlierPercentile = percentile;
+        this.outlierFactor = factor;
+        return this;
+    }
+
+    /**
+     * Executes all runs in parallel and shrinks the failing ones.
+     *
+     * @return all failures, ordered by the run that found them
+     */
+    public List<Failure> run() {
+        SplittableRandom random = new SplittableRandom(seed);
+        FuzzCase[] fuzzCases = new FuzzCase[runs];
+        for (int i = 0; i < runs; i++) {
+            fuzzCases[i] = new FuzzCase(random.nextLong(), 1 + random.nextInt(maxElevators),
+                    1 + random.nextInt(maxHumans), 2 + random.nextInt(maxFloorsServed - 1));
+        }
+
+        Outcome[] outcomes = new Outcome[runs];
+        // The band of expected step counts is only known once all runs are done
+        IntStream.range(0, runs).parallel().forEach(i -> outcomes[i] = execute(fuzzCases[i], Double.MAX_VALUE));
+
+        double maxStepsPerFloor = maxStepsPerFloor(fuzzCases, outcomes);
+        return IntStream.range(0, runs)
+                .parallel()
+                .mapToObj(i -> {
+                    Outcome outcome = outcomes[i];
+                    if (outcome.kind() == null) {
+                        outcome = checkStepsPerFloor(fuzzCases[i], outcome, maxStepsPerFloor);
+                    }
+                    return outcome.kind() == null ? null : shrink(fuzzCases[i], outcome, maxStepsPerFloor);
+                })
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Writes the minimal reproducers of the given failures as CSV, one line per failure with its kind, the seed
+     * and the parameters for {@link Simulation#createRandomSimulation(long, int, int, int)}.
+     *
+     * @param file     the file to write to, overwritten if it already exists
+     * @param failures the failures to write
+     * @throws UncheckedIOException if the file could not be written
+     */
+    public static void writeReproducers(Path file, List<Failure> failures) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("# kind,seed,amountOfElevators,amountOfHumans,floorsServed");
+            writer.newLine();
+            for (Failure failure : failures) {
+                FuzzCase reproducer = failure.minimalCase();
+                writer.write("# " + failure.detail().replace('\n', ' '));
+                writer.newLine();
+                writer.write("%s,%d,%d,%d,%d".formatted(failure.kind(), reproducer.seed(),
+                        reproducer.amountOfElevators(), reproducer.amountOfHumans(), reproducer.floorsServed()));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the reproducers to " + file, e);
+        }
+    }
+
+    /**
+     * The highest amount of steps per floor that is still expected, {@link Double#MAX_VALUE} if there are too
+     * few successful runs to tell.
+     */
+    private double maxStepsPerFloor(FuzzCase[] fuzzCases, Outcome[] outcomes) {
+        double[] stepsPerFloor = IntStream.range(0, runs)
+                .filter(i -> outcomes[i].kind() == null)
+                .mapToDouble(i -> (double) outcomes[i].steps() / fuzzCases[i].floorsServed())
+                .sorted()
+                .toArray();
+        if (stepsPerFloor.length < MIN_RUNS_FOR_OUTLIERS) {
+            return Double.MAX_VALUE;
+        }
+
+        int percentileIndex = (int) Math.ceil(outlierPercentile * stepsPerFloor.length) - 1;
+        return stepsPerFloor[Math.max(0, percentileIndex)] * outlierFactor;
+    }
+
+    private static Outcome checkStepsPerFloor(FuzzCase fuzzCase, Outcome outcome, double maxStepsPerFloor) {
+        double stepsPerFloor = (double) outcome.steps() / fuzzCase.floorsServed();
+        if (stepsPerFloor <= maxStepsPerFloor) {
+            return outcome;
+        }
+        return new Outcome(FailureKind.TOO_SLOW, outcome.steps(),
+                "Needed %.1f steps per floor, but at most %.1f were expected."
+                        .formatted(stepsPerFloor, maxStepsPerFloor));
+    }
+
+    /**
+     * Executes the given case until it is done, fails or exceeds the step budget.
+     */
+    private Outcome execute(FuzzCase fuzzCase, double maxStepsPerFloor) {
+        Simulation simulation = fuzzCase.createSimulation();
+        simulation.enableInvariantChecks();
+        simulation.enableLivelockDetection();
+
+        try {
+            simulation.start();
+            while (!simulation.isDone()) {
+                if (simulation.getStepCount() >= stepBudget) {
+                    return new Outcome(FailureKind.EXCEEDED_STEP_BUDGET, simulation.getStepCount(),
+                            "Not all humans arrived within %d steps.".formatted(stepBudget));
+                }
+                simulation.step();
+            }
+        } catch (RuntimeException e) {
+            return new Outcome(FailureKind.THREW_EXCEPTION, simulation.getStepCount(), e.toString());
+        }
+
+        return checkStepsPerFloor(fuzzCase, new Outcome(null, simulation.getStepCount(), ""), maxStepsPerFloor);
+    }
+
+    /**
+     * Removes humans and elevators from the failing case for as long as it keeps failing the same way.
+     */
+    private Failure shrink(FuzzCase failingCase, Outcome failure, double maxStepsPerFloor) {
+        FuzzCase minimalCase = failingCase;
+        Outcome minimalFailure = failure;
+
+        boolean shrunk = true;
+        while (shrunk) {
+            shrunk = false;
+            for (FuzzCase candidate : minimalCase.smallerCases()) {
+                Outcome outcome = execute(candidate, maxStepsPerFloor);
+                if (outcome.kind() == failure.kind()) {
+                    minimalCase = candidate;
+                    minimalFailure = outcome;
+                    shrunk = true;
+                    break;
+                }
+            }
+        }
+
+        return new Failure(failure.kind(), failingCase, minimalCase, minimalFailure.detail());
+    }
+
+    private static int requirePositive(int value, String name) {
+        if (value < 1) {
+            throw new IllegalArgumentException("%s must be at least 1, but got %d".formatted(name, value));
+        }
+        return value;
+    }
+
+    /**
+     * A single randomly generated simulation.
+     *
+     * @param seed              the seed to generate the simulation with
+     * @param amountOfElevators the amount of elevators
+     * @param amountOfHumans    the amount of humans
+     * @param floorsServed      the amount of floors all elevators serve
+     */
+    public record FuzzCase(long seed, int amountOfElevators, int amountOfHumans, int floorsServed) {
+        /**
+         * Generates the simulation of this case again.
+         *
+         * @return the simulation, not started yet
+         */
+        public Simulation createSimulation() {
+            return Simulation.createRandomSimulation(seed, amountOfElevators, amountOfHumans, floorsServed);
+        }
+
+        /**
+         * Cases with fewer humans or elevators, from the biggest reduction to the smallest.
+         */
+        private List<FuzzCase> smallerCases() {
+            List<FuzzCase> smallerCases = new ArrayList<>();
+            for (int removed = amountOfHumans / 2; removed >= 1; removed /= 2) {
+                smallerCases.add(new FuzzCase(seed, amountOfElevators, amountOfHumans - removed, floorsServed));
+            }
+            for (int removed = amountOfElevators / 2; removed >= 1; removed /= 2) {
+                smallerCases.add(new FuzzCase(seed, amountOfElevators - removed, amountOfHumans, floorsServed));
+            }
+            return smallerCases;
+        }
+
+        @Override
+        public String toString() {
+            return "Simulation.createRandomSimulation(%dL, %d, %d, %d)".formatted(seed, amountOfElevators,
+                    amountOfHumans, floorsServed);
+        }
+    }
+
+    /**
+     * Why a run failed.
+     */
+    public enum FailureKind {
+        EXCEEDED_STEP_BUDGET,
+        THREW_EXCEPTION,
+        TOO_SLOW
+    }
+
+    /**
+     * A failing run.
+     *
+     * @param kind         why the run failed
+     * @param originalCase the case as generated by the fuzzer
+     * @param minimalCase  the smallest case that still fails the same way
+     * @param detail       a description of the failure of the minimal case
+     */
+    public record Failure(FailureKind kind, FuzzCase originalCase, FuzzCase minimalCase, String detail) {
+    }
+
+    private record Outcome(FailureKind kind, long steps, String detail) {
+    }
+}
@@ -3,22 +3,63 @@ package org.togetherjava.event.elevator.simulation;
 import org.togetherjava.event.elevator.elevators.Elevator;
 import org.togetherjava.event.elevator.elevators.ElevatorSystem;
 import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.humans.HumanAgentRuntime;
+import org.togetherjava.event.elevator.logging.EventSink;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.concurrent.Flow;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.LongStream;
-import java.util.stream.Stream;
 
 public final class Simulation {
+    /**
+     * The amount of steps in 5 minutes, assuming a step takes 1.5 seconds, the time to travel one floor at 2 m/s.
+     */
+    public static final int STEPS_PER_FIVE_MINUTES = 200;
+
     private final List<Human> humans;
     private final List<Elevator> elevators;
     private final ElevatorSystem elevatorSystem;
     private final View view;
     private long stepCount;
     private final List<HumanStatistics> humanStatistics;
+    /**
+     * Runtime of the human agents, {@code null} unless the humans are run in {@link HumanMode#VIRTUAL_THREAD} mode.
+     */
+    private final HumanAgentRuntime humanAgentRuntime;
+    /**
+     * Metrics recorded each step, {@code null} unless enabled via {@link #enableMetrics(MetricsRegistry)}.
+     */
+    private StepMetrics stepMetrics;
+    /**
+     * Verifies the rules of the simulation each step, {@code null} unless enabled via {@link #enableInvariantChecks()}.
+     */
+    private InvariantChecker invariantChecker;
+    /**
+     * Aborts simulations that are stuck in a cycle, {@code null} unless enabled via
+     * {@link #enableLivelockDetection()}.
+     */
+    private LivelockDetector livelockDetector;
+    /**
+     * Where humans wait and ride, for cheap forks. {@code null} until the simulation is forked the first time.
+     */
+    private HumanQueues humanQueues;
+    /**
+     * Publishes what changed each step, {@code null} until requested via {@link #getStepPublisher()}.
+     */
+    private StepPublisher stepPublisher;
+    private EventSink eventSink = EventSink.noOp();
+    /**
+     * The seed the simulation was randomly generated with, empty if it was not generated randomly.
+     */
+    private final OptionalLong seed;
+    private final SpawnSchedule spawnSchedule;
+    private EngineMode engineMode = EngineMode.STEP_BY_STEP;
 
     public static Simulation createSingleElevatorSingleHumanSimulation() {
         return new Simulation(List.of(new Elevator(1, 10, 5)),
@@ -46,32 +87,120 @@ public final class Simulation {
     }
 
     public static Simulation createRandomSimulation(long seed, int amountOfElevators, int amountOfHumans, int floorsServed) {
-        System.out.println("Seed for random simulation is: " + seed);
-        Random random = new Random(seed);
+        return createRandomSimulation(seed, amountOfElevators, amountOfHumans, floorsServed, HumanMode.CALLBACK);
+    }
 
+    public static Simulation createRandomSimulation(long seed, int amountOfElevators, int amountOfHumans,
+            int floorsServed, HumanMode humanMode) {
         int minFloor = 1;
 
-        List<Elevator> elevators = Stream.generate(() -> {
-            int currentFloor = minFloor + random.nextInt(floorsServed);
-            return new Elevator(minFloor, floorsServed, currentFloor);
-        }).limit(amountOfElevators).toList();
+        // Each elevator and human has its own stream, so big populations can be generated in parallel
+        ArrayList<Elevator> elevators = RandomStreams.generate(seed, RandomStreams.Kind.ELEVATOR, amountOfElevators,
+                random -> new Elevator(minFloor, floorsServed, minFloor + random.nextInt(floorsServed)));
+        ArrayList<Human> humans = RandomStreams.generate(seed, RandomStreams.Kind.HUMAN, amountOfHumans,
+                random -> new Human(minFloor + random.nextInt(floorsServed), minFloor + random.nextInt(floorsServed)));
 
-        List<Human> humans = Stream.generate(() -> {
-            int startingFloor = minFloor + random.nextInt(floorsServed);
-            int destinationFloor = minFloor + random.nextInt(floorsServed);
-            return new Human(startingFloor, destinationFloor);
-        }).limit(amountOfHumans).toList();
+        return new Simulation(elevators, humans, humanMode, seed);
+    }
 
-        return new Simulation(elevators, humans);
+    /**
+     * Creates a simulation of a typical building, see {@link BuildingTemplate}.
+     *
+     * @param template the building to simulate
+     * @param seed     the seed to generate the humans and elevators with
+     * @return the simulation
+     */
+    public static Simulation createTemplateSimulation(BuildingTemplate template, long seed) {
+        return template.builder(seed).build();
+    }
+
+    /**
+     * Loads a simulation from a scenario file, see {@link ScenarioFile} for the supported formats.
+     *
+     * @param file the scenario file to load
+     * @return the simulation
+     */
+    public static Simulation fromFile(Path file) {
+        return ScenarioFile.load(file);
     }
 
     public Simulation(List<Elevator> elevators, List<Human> humans) {
-        this.elevators = new ArrayList<>(elevators);
-        this.humans = new ArrayList<>(humans);
+        this(elevators, humans, HumanMode.CALLBACK);
+    }
+
+    public Simulation(List<Elevator> elevators, List<Human> humans, HumanMode humanMode) {
+        this(new ArrayList<>(elevators), new ArrayList<>(humans), humanMode, OptionalLong.empty(), null, null);
+    }
+
+    /**
+     * Creates a simulation in which several cars may share a shaft, see {@link ElevatorSystem#registerShaft(List)}.
+     *
+     * @param shafts the cars of each shaft, ordered from the bottom to the top car
+     * @param humans the humans to simulate
+     * @return the simulation
+     */
+    public static Simulation withShafts(List<List<Elevator>> shafts, List<Human> humans) {
+        ArrayList<Elevator> elevators = new ArrayList<>();
+        shafts.forEach(elevators::addAll);
+        return new Simulation(elevators, new ArrayList<>(humans), HumanMode.CALLBACK, OptionalLong.empty(), null,
+                shafts);
+    }
+
+    /**
+     * Creates a randomly generated simulation, taking ownership of the given lists instead of copying them.
+     */
+    Simulation(ArrayList<Elevator> elevators, ArrayList<Human> humans, HumanMode humanMode, long seed) {
+        this(elevators, humans, humanMode, OptionalLong.of(seed), null, null);
+    }
+
+    /**
+     * Creates a simulation in which humans enter the building while it is already running,
+     * taking ownership of the given lists instead of copying them.
+     *
+     * @param arrivalSteps the step each human arrives at, with the same order as the humans;
+     *                     humans arriving at step 0 are there right from the start
+     */
+    Simulation(ArrayList<Elevator> elevators, ArrayList<Human> humans, int[] arrivalSteps) {
+        this(elevators, humans, HumanMode.CALLBACK, OptionalLong.empty(), arrivalSteps, null);
+    }
+
+    /**
+     * @param shafts the cars of each shaft, with the same order as the elevators; {@code null} if every elevator
+     *               has a shaft of its own
+     */
+    private Simulation(ArrayList<Elevator> elevators, ArrayList<Human> humans, HumanMode humanMode,
+            OptionalLong seed, int[] arrivalSteps, List<List<Elevator>> shafts) {
+        this.elevators = elevators;
+        this.humans = humans;
+        this.seed = seed;
+
+        List<Human> initialHumans = humans;
+        if (arrivalSteps == null) {
+            spawnSchedule = SpawnSchedule.none();
+        } else {
+            spawnSchedule = SpawnSchedule.of(humans, arrivalSteps);
+            initialHumans = new ArrayList<>();
+            for (int i = 0; i < arrivalSteps.length; i++) {
+                if (arrivalSteps[i] == 0) {
+                    initialHumans.add(humans.get(i));
+                }
+            }
+        }
 
         elevatorSystem = new ElevatorSystem();
-        this.elevators.forEach(elevatorSystem::registerElevator);
-        this.humans.forEach(elevatorSystem::registerElevatorListener);
+        elevatorSystem.setSkipIdleElevators(true);
+        if (shafts == null) {
+            this.elevators.forEach(elevatorSystem::registerElevator);
+        } else {
+            shafts.forEach(elevatorSystem::registerShaft);
+        }
+        if (humanMode == HumanMode.VIRTUAL_THREAD) {
+            humanAgentRuntime = new HumanAgentRuntime(initialHumans);
+            elevatorSystem.registerElevatorListener(humanAgentRuntime);
+        } else {
+            humanAgentRuntime = null;
+            initialHumans.forEach(elevatorSystem::registerElevatorListener);
+        }
 
         humanStatistics = this.humans.stream().map(HumanStatistics::new).toList();
         view = new View(this);
@@ -81,24 +210,252 @@ public final class Simulation {
         start();
 
         while (!isDone()) {
-            step();
+            try {
+                step();
+            } catch (IllegalStateException e) {
+                abort(e);
+                throw e;
+            }
 
             if (stepCount >= stepLimit) {
-                throw new IllegalStateException("Simulation aborted. All humans should have arrived"
+                IllegalStateException e = new IllegalStateException("Simulation aborted. All humans should have arrived"
                         + " by now, but they did not. There is likely a bug in your code.");
+                abort(e);
+                throw e;
             }
         }
+
+        // Completes subscribers even if no step was needed at all
+        if (stepPublisher != null && !stepPublisher.isClosed()) {
+            stepPublisher.close();
+        }
+    }
+
+    private void abort(IllegalStateException failure) {
+        if (humanAgentRuntime != null) {
+            humanAgentRuntime.close();
+        }
+        if (stepPublisher != null) {
+            stepPublisher.closeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Sets the sink that events of this simulation, its elevators and humans are reported to.
+     *
+     * @param eventSink the sink to report events to
+     */
+    public void setEventSink(EventSink eventSink) {
+        this.eventSink = eventSink;
+        elevatorSystem.setEventSink(eventSink);
+        humans.forEach(human -> human.setEventSink(eventSink));
+    }
+
+    /**
+     * Verifies the rules of the simulation from now on, after each step. For example, humans must never return
+     * to {@link Human.State#IDLE} and only exit elevators at their destination, and elevators must stay within
+     * the floors they serve.
+     * <p>
+     * Humans are only checked when they change their state, so the checks are cheap enough to stay enabled
+     * for big simulations.
+     *
+     * @throws IllegalStateException from {@link #step()} as soon as any rule is broken
+     */
+    public void enableInvariantChecks() {
+        invariantChecker = new InvariantChecker(elevators, elevatorSystem.getSharedShafts(), humans, stepCount);
+    }
+
+    /**
+     * Aborts the simulation from now on as soon as it is stuck in a cycle, in which elevators keep moving or
+     * standing still without any human ever making progress again, instead of only once the step limit of
+     * {@link #startAndExecuteUntilDone(int)} is reached.
+     * <p>
+     * The state of all elevators is hashed after each step, see {@link Elevator#getStateHash()}, so this costs
+     * time proportional to the amount of elevators per step.
+     *
+     * @throws IllegalStateException from {@link #step()} as soon as the simulation is stuck in a cycle
+     */
+    public void enableLivelockDetection() {
+        livelockDetector = new LivelockDetector(humans, stepCount);
+    }
+
+    /**
+     * Sets how the simulation advances through its steps, see {@link EngineMode}.
+     *
+     * @param engineMode the mode to use from now on
+     */
+    public void setEngineMode(EngineMode engineMode) {
+        this.engineMode = engineMode;
     }
 
     public void start() {
+        if (eventSink.isEnabled(EventSink.Level.INFO)) {
+            eventSink.log(EventSink.Level.INFO, "Starting simulation with %d elevators and %d humans%s"
+                    .formatted(elevators.size(), humans.size(),
+                            seed.isPresent() ? ", seed " + seed.getAsLong() : ""));
+        }
         elevatorSystem.ready();
     }
 
+    /**
+     * Creates a lightweight, independent copy of this simulation in its current state, see {@link SimulationFork}.
+     * <p>
+     * The first fork looks at every human once. From then on, the simulation keeps track of where humans wait and
+     * ride as they change their state, so further forks cost time proportional to the amount of elevators and
+     * floors only.
+     *
+     * @return the fork
+     */
+    public SimulationFork fork() {
+        if (humanQueues == null) {
+            humanQueues = new HumanQueues(elevators, humans);
+        }
+        return new SimulationFork(elevatorSystem.fork(), humanQueues.getWaitingHumans().fork(),
+                humanQueues.getRidingHumans().fork(), stepCount);
+    }
+
+    /**
+     * Records metrics of this simulation into the given registry from now on, sampling it once per step.
+     *
+     * @param registry the registry to record metrics into
+     */
+    public void enableMetrics(MetricsRegistry registry) {
+        stepMetrics = new StepMetrics(registry, elevators);
+    }
+
+    /**
+     * Publishes a compact {@link StepDelta} of what changed after each step from now on: elevators that moved,
+     * humans that changed their state and hall calls that were opened or closed. Steps in which nothing changed
+     * are not published. Subscribe before the simulation starts to see every change.
+     * <p>
+     * Subscribers are notified on threads of their own and never slow down the simulation, unless they fall
+     * behind by a whole buffer of {@link Flow#defaultBufferSize()} deltas. The simulation then waits for them
+     * to catch up. Subscribers are completed once all humans arrived, or completed exceptionally if
+     * {@link #startAndExecuteUntilDone(int)} aborts the simulation.
+     *
+     * @return the publisher, the same for every call
+     */
+    public Flow.Publisher<StepDelta> getStepPublisher() {
+        if (stepPublisher == null) {
+            stepPublisher = new StepPublisher(elevators, elevatorSystem);
+        }
+        return stepPublisher.getPublisher();
+    }
+
+    /**
+     * Executes the next step. In {@link EngineMode#EVENT_DRIVEN} mode, all idle steps before it are skipped first,
+     * so the step count may increase by more than one.
+     */
     public void step() {
+        long stepStartNanos = stepMetrics == null ? 0 : System.nanoTime();
+
+        if (engineMode == EngineMode.EVENT_DRIVEN) {
+            skipIdleSteps();
+        }
+
+        if (spawnSchedule.hasPendingArrivals()) {
+            spawnArrivedHumans();
+        }
         elevatorSystem.moveOneFloor();
+        if (humanAgentRuntime != null) {
+            humanAgentRuntime.publishArrivals();
+        }
 
-        humanStatistics.forEach(HumanStatistics::step);
         stepCount++;
+        if (stepMetrics == null && invariantChecker == null && livelockDetector == null && humanQueues == null
+                && stepPublisher == null) {
+            humanStatistics.forEach(HumanStatistics::step);
+        } else {
+            recordHumanTransitions();
+        }
+        if (invariantChecker != null) {
+            invariantChecker.checkElevators(stepCount);
+        }
+        if (livelockDetector != null) {
+            livelockDetector.check(stepCount, elevatorSystem, elevators, spawnSchedule.hasPendingArrivals());
+        }
+
+        if (stepMetrics != null) {
+            stepMetrics.recordStep(stepCount, System.nanoTime() - stepStartNanos, elevatorSystem);
+        }
+        if (stepPublisher != null && !stepPublisher.isClosed()) {
+            stepPublisher.publish(stepCount);
+            if (isDone()) {
+                stepPublisher.close();
+            }
+        }
+    }
+
+    private void recordHumanTransitions() {
+        for (int i = 0; i < humanStatistics.size(); i++) {
+            HumanStatistics statistics = humanStatistics.get(i);
+            Human.State previousState = statistics.getLastState();
+            statistics.step();
+
+            if (stepMetrics != null) {
+                stepMetrics.recordHuman(previousState, statistics);
+            }
+            if (previousState == statistics.getLastState()) {
+                continue;
+            }
+            if (invariantChecker != null) {
+                invariantChecker.checkTransition(stepCount, i, statistics.getHuman(), previousState);
+            }
+            if (livelockDetector != null) {
+                livelockDetector.recordTransition(stepCount, statistics.getHuman(), previousState);
+            }
+            if (humanQueues != null) {
+                humanQueues.recordTransition(i, statistics.getHuman());
+            }
+            if (stepPublisher != null) {
+                stepPublisher.recordTransition(i, previousState, statistics.getLastState());
+            }
+        }
+    }
+
+    private void skipIdleSteps() {
+        long stepsUntilNextEvent = elevatorSystem.stepsUntilNextEvent();
+        if (spawnSchedule.hasPendingArrivals()) {
+            stepsUntilNextEvent = Math.min(stepsUntilNextEvent, spawnSchedule.nextArrivalStep() - stepCount + 1);
+        }
+        if (stepsUntilNextEvent >= Integer.MAX_VALUE) {
+            // Nothing is ever going to happen, the simulation is stuck. Proceed one step at a time,
+            // as if stepping normally, so that the step limit catches it.
+            return;
+        }
+
+        int idleSteps = (int) stepsUntilNextEvent - 1;
+        if (idleSteps == 0) {
+            return;
+        }
+        elevatorSystem.skipSteps(idleSteps);
+        for (HumanStatistics statistics : humanStatistics) {
+            statistics.step(idleSteps);
+        }
+        stepCount += idleSteps;
+    }
+
+    private void spawnArrivedHumans() {
+        List<Human> arrivedHumans = spawnSchedule.takeArrivals(stepCount);
+        if (arrivedHumans.isEmpty()) {
+            return;
+        }
+
+        if (humanAgentRuntime != null) {
+            humanAgentRuntime.spawn(arrivedHumans);
+            return;
+        }
+        for (Human human : arrivedHumans) {
+            elevatorSystem.registerElevatorListener(human);
+            human.onElevatorSystemReady(elevatorSystem);
+        }
+    }
+
+    /**
+     * Whether humans still enter the simulation in a later step.
+     */
+    boolean hasScheduledArrivals() {
+        return spawnSchedule.hasPendingArrivals();
     }
 
     public boolean isDone() {
@@ -107,6 +464,16 @@ public final class Simulation {
                 .allMatch(Human.State.ARRIVED::equals);
     }
 
+    /**
+     * The seed the simulation was randomly generated with.
+     * Creating a simulation with the same seed and parameters again yields the same simulation.
+     *
+     * @return the seed, empty if the simulation was not generated randomly
+     */
+    public OptionalLong getSeed() {
+        return seed;
+    }
+
     public long getStepCount() {
         return stepCount;
     }
@@ -139,6 +506,16 @@ public final class Simulation {
             int averagePercentage = getAverageTimePercentageSpendForState(state);
             System.out.printf("\t%s: %d%%%n", state, averagePercentage);
         }
+
+        // The median hides humans that waited far longer than the others
+        System.out.printf("Steps waiting for an elevator: median %d, p99 %d, max %d%n",
+                getStepsForStateAtPercentile(Human.State.WAITING_FOR_ELEVATOR, 0.5),
+                getStepsForStateAtPercentile(Human.State.WAITING_FOR_ELEVATOR, 0.99),
+                getStepsForStateAtPercentile(Human.State.WAITING_FOR_ELEVATOR, 1));
+        getAverageRoundTripSteps().ifPresent(roundTripSteps ->
+                System.out.printf("Average round trip: %.1f steps%n", roundTripSteps));
+        System.out.printf("Handling capacity: %.1f%% of humans per %d steps (5 minutes at %.1f seconds per step)%n",
+                getHandlingCapacity(STEPS_PER_FIVE_MINUTES), STEPS_PER_FIVE_MINUTES, 300.0 / STEPS_PER_FIVE_MINUTES);
     }
 
     public int getAverageTimePercentageSpendForState(Human.State state) {
@@ -152,4 +529,85 @@ public final class Simulation {
         long medianPercentage = 100 * medianSteps / stepCount;
         return (int) medianPercentage;
     }
+
+    /**
+     * The amount of steps all humans together spent in the given state.
+     *
+     * @param state the state to look at
+     * @return the sum of steps over all humans
+     */
+    public long getTotalStepsForState(Human.State state) {
+        return humanStatistics.stream().mapToLong(stats -> stats.stepsForState(state)).sum();
+    }
+
+    /**
+     * The average round trip time of all elevators, the amount of steps an elevator is busy per round trip.
+     * Includes the time held at floors, see {@link Elevator#getDoorTiming()}.
+     *
+     * @return the average amount of steps, empty if no elevator completed a round trip yet
+     */
+    public OptionalDouble getAverageRoundTripSteps() {
+        long roundTrips = elevators.stream().mapToLong(Elevator::getRoundTripCount).sum();
+        if (roundTrips == 0) {
+            return OptionalDouble.empty();
+        }
+        long busySteps = elevators.stream().mapToLong(Elevator::getBusyStepCount).sum();
+        return OptionalDouble.of((double) busySteps / roundTrips);
+    }
+
+    /**
+     * The handling capacity, the percentage of all humans that arrived by elevator within the busiest window
+     * of the given amount of steps. With the window being 5 minutes, this is the <i>HC5</i> buildings are sized by.
+     *
+     * @param windowSteps the length of the window in steps, at least 1
+     * @return the percentage of humans, between 0 and 100
+     */
+    public double getHandlingCapacity(long windowSteps) {
+        if (windowSteps < 1) {
+            throw new IllegalArgumentException("The window must be at least 1 step, but got " + windowSteps);
+        }
+        if (humanStatistics.isEmpty()) {
+            return 0;
+        }
+
+        // Every step is credited to exactly one state, so humans arrived in the step before their arrived steps
+        long[] arrivalSteps = humanStatistics.stream()
+                .filter(stats -> stats.getLastState() == Human.State.ARRIVED
+                        && stats.stepsForState(Human.State.TRAVELING_WITH_ELEVATOR) > 0)
+                .mapToLong(stats -> stepCount - stats.stepsForState(Human.State.ARRIVED))
+                .sorted()
+                .toArray();
+        int maxArrivals = 0;
+        int windowStart = 0;
+        for (int windowEnd = 0; windowEnd < arrivalSteps.length; windowEnd++) {
+            while (arrivalSteps[windowEnd] - arrivalSteps[windowStart] >= windowSteps) {
+                windowStart++;
+            }
+            maxArrivals = Math.max(maxArrivals, windowEnd - windowStart + 1);
+        }
+        return 100.0 * maxArrivals / humanStatistics.size();
+    }
+
+    /**
+     * The amount of steps humans spent in the given state, at the given percentile over all humans.
+     *
+     * @param state      the state to look at
+     * @param percentile the percentile, between 0 and 1, for example 0.5 for the median
+     * @return the amount of steps, 0 if the simulation has no humans
+     */
+    public long getStepsForStateAtPercentile(Human.State state, double percentile) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 1, but got " + percentile);
+        }
+        if (humanStatistics.isEmpty()) {
+            return 0;
+        }
+
+        long[] sortedSteps = humanStatistics.stream()
+                .mapToLong(stats -> stats.stepsForState(state))
+                .sorted()
+                .toArray();
+        int rank = (int) Math.ceil(percentile * sortedSteps.length) - 1;
+        return sortedSteps[Math.max(0, rank)];
+    }
 }
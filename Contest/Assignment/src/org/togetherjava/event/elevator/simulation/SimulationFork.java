@@ -0,0 +1,177 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorPanel;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.elevators.FloorPanelSystem;
+import org.togetherjava.event.elevator.humans.ElevatorListener;
+
+import java.util.List;
+
+/**
+ * A lightweight, independent copy of a running {@link Simulation}, to try out what-ifs before committing to them.
+ * For example, a look-ahead dispatcher can assign a hall call to different elevators in different forks,
+ * run each fork for a few dozen steps and compare the waiting steps.
+ * <p>
+ * Instead of copying every human, a fork only knows how many humans wait at each floor and ride each elevator,
+ * by destination. Elevators share their destinations with the original until either side changes them. Forking
+ * therefore costs time proportional to the amount of elevators and floors, regardless of the amount of humans.
+ * Within the fork, humans follow the same rules as in the simulation. Humans that did not enter the simulation
+ * yet are not part of the fork, and if an elevator is full, other humans than in the simulation may enter it.
+ *
+ * @see Simulation#fork()
+ */
+public final class SimulationFork {
+    private final ElevatorSystem elevatorSystem;
+    private final DestinationCounts waitingHumans;
+    private final DestinationCounts ridingHumans;
+    private long stepCount;
+    private long totalWaitingSteps;
+    private int arrivedHumans;
+
+    SimulationFork(ElevatorSystem elevatorSystem, DestinationCounts waitingHumans, DestinationCounts ridingHumans,
+            long stepCount) {
+        this.elevatorSystem = elevatorSystem;
+        this.waitingHumans = waitingHumans;
+        this.ridingHumans = ridingHumans;
+        this.stepCount = stepCount;
+        elevatorSystem.registerElevatorListener(new HumanCrowd());
+    }
+
+    /**
+     * Creates an independent copy of this fork, as cheap as forking the simulation.
+     *
+     * @return the fork
+     */
+    public SimulationFork fork() {
+        SimulationFork fork = new SimulationFork(elevatorSystem.fork(), waitingHumans.fork(), ridingHumans.fork(),
+                stepCount);
+        fork.totalWaitingSteps = totalWaitingSteps;
+        fork.arrivedHumans = arrivedHumans;
+        return fork;
+    }
+
+    /**
+     * Executes the next step, exactly as {@link Simulation#step()} in {@link EngineMode#STEP_BY_STEP} mode.
+     */
+    public void step() {
+        elevatorSystem.moveOneFloor();
+        stepCount++;
+        totalWaitingSteps += waitingHumans.total();
+    }
+
+    /**
+     * The elevators of this fork, which can be given requests that do not affect the simulation.
+     *
+     * @return the elevators, with the same order, IDs and indices as in the simulation
+     */
+    public List<Elevator> getElevators() {
+        return elevatorSystem.getElevators();
+    }
+
+    public ElevatorSystem getElevatorSystem() {
+        return elevatorSystem;
+    }
+
+    /**
+     * The step count, continuing from the step count of the simulation when it was forked.
+     *
+     * @return the step count
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    public int getWaitingHumanCount() {
+        return waitingHumans.total();
+    }
+
+    public int getRidingHumanCount() {
+        return ridingHumans.total();
+    }
+
+    /**
+     * The amount of humans that arrived within this fork, i.e. after the simulation was forked.
+     *
+     * @return the amount of arrived humans
+     */
+    public int getArrivedHumanCount() {
+        return arrivedHumans;
+    }
+
+    /**
+     * The sum of steps all humans waited for an elevator within this fork.
+     *
+     * @return the total amount of waiting steps since the simulation was forked
+     */
+    public long getTotalWaitingSteps() {
+        return totalWaitingSteps;
+    }
+
+    /**
+     * Whether all humans of this fork arrived.
+     *
+     * @return {@code true} if no human is waiting or riding anymore
+     */
+    public boolean isDone() {
+        return waitingHumans.total() == 0 && ridingHumans.total() == 0;
+    }
+
+    /**
+     * All humans of the fork, acting as a single listener. Riders exit at their destination and waiting humans
+     * enter elevators at their floor, requesting their destination, or request again if the elevator is full or does
+     * not go there.
+     */
+    private final class HumanCrowd implements ElevatorListener {
+        @Override
+        public void onElevatorSystemReady(FloorPanelSystem floorPanelSystem) {
+            // The fork continues a simulation that is ready already
+        }
+
+        @Override
+        public void onElevatorArrivedAtFloor(ElevatorPanel elevatorPanel) {
+            for (int deck = 0; deck < elevatorPanel.getDeckCount(); deck++) {
+                onElevatorArrivedAtFloor(elevatorPanel, elevatorPanel.getCurrentFloor() + deck);
+            }
+        }
+
+        private void onElevatorArrivedAtFloor(ElevatorPanel elevatorPanel, int floor) {
+            int elevatorIndex = elevatorPanel.getIndex();
+
+            int exitingHumans = ridingHumans.count(elevatorIndex, floor);
+            if (exitingHumans > 0) {
+                for (int i = 0; i < exitingHumans; i++) {
+                    elevatorPanel.exit();
+                }
+                ridingHumans.remove(elevatorIndex, floor, exitingHumans);
+                arrivedHumans += exitingHumans;
+            }
+
+            int floorKey = floor - waitingHumans.getMinFloor();
+            if (waitingHumans.totalOf(floorKey) == 0) {
+                return;
+            }
+            for (int destinationFloor = waitingHumans.getMinFloor(); destinationFloor <= waitingHumans.getMaxFloor();
+                    destinationFloor++) {
+                int waiting = waitingHumans.count(floorKey, destinationFloor);
+                if (waiting == 0) {
+                    continue;
+                }
+
+                int entering = 0;
+                while (entering < waiting && elevatorPanel.canServe(destinationFloor) && elevatorPanel.tryEnter()) {
+                    entering++;
+                }
+                if (entering > 0) {
+                    waitingHumans.remove(floorKey, destinationFloor, entering);
+                    ridingHumans.add(elevatorIndex, destinationFloor, entering);
+                    elevatorPanel.requestDestinationFloor(destinationFloor);
+                }
+                if (entering < waiting) {
+                    // The elevator does not go there or is full, wait for the next one
+                    elevatorSystem.requestElevatorTo(floor, destinationFloor);
+                }
+            }
+        }
+    }
+}
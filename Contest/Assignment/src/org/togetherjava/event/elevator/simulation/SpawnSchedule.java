@@ -0,0 +1,93 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Humans that enter the simulation while it is already running, ordered by the step they arrive at.
+ */
+final class SpawnSchedule {
+    private final Human[] humansByArrival;
+    private final long[] arrivalSteps;
+    private int nextIndex;
+
+    /**
+     * A schedule without any humans arriving later.
+     *
+     * @return the empty schedule
+     */
+    static SpawnSchedule none() {
+        return new SpawnSchedule(new Human[0], new long[0]);
+    }
+
+    /**
+     * Creates a schedule for all humans that do not arrive right at the start, i.e. with an arrival step above 0.
+     *
+     * @param humans       all humans of the simulation
+     * @param arrivalSteps the step each human arrives at, with the same order as the humans
+     * @return the schedule
+     */
+    static SpawnSchedule of(List<Human> humans, int[] arrivalSteps) {
+        if (humans.size() != arrivalSteps.length) {
+            throw new IllegalArgumentException("Every human needs exactly one arrival step.");
+        }
+
+        // Sorting primitives is much faster than sorting objects, so the index is packed next to the step
+        long[] stepsAndIndices = new long[arrivalSteps.length];
+        int pendingCount = 0;
+        for (int i = 0; i < arrivalSteps.length; i++) {
+            if (arrivalSteps[i] < 0) {
+                throw new IllegalArgumentException("Arrival steps must not be negative, but got " + arrivalSteps[i]);
+            }
+            if (arrivalSteps[i] > 0) {
+                stepsAndIndices[pendingCount] = ((long) arrivalSteps[i] << Integer.SIZE) | i;
+                pendingCount++;
+            }
+        }
+        Arrays.parallelSort(stepsAndIndices, 0, pendingCount);
+
+        Human[] humansByArrival = new Human[pendingCount];
+        long[] sortedArrivalSteps = new long[pendingCount];
+        for (int i = 0; i < pendingCount; i++) {
+            humansByArrival[i] = humans.get((int) stepsAndIndices[i]);
+            sortedArrivalSteps[i] = stepsAndIndices[i] >>> Integer.SIZE;
+        }
+        return new SpawnSchedule(humansByArrival, sortedArrivalSteps);
+    }
+
+    private SpawnSchedule(Human[] humansByArrival, long[] arrivalSteps) {
+        this.humansByArrival = humansByArrival;
+        this.arrivalSteps = arrivalSteps;
+    }
+
+    boolean hasPendingArrivals() {
+        return nextIndex < arrivalSteps.length;
+    }
+
+    /**
+     * The step the next human arrives at.
+     *
+     * @return the step of the next arrival, {@link Long#MAX_VALUE} if nobody arrives anymore
+     */
+    long nextArrivalStep() {
+        return hasPendingArrivals() ? arrivalSteps[nextIndex] : Long.MAX_VALUE;
+    }
+
+    /**
+     * Removes all humans arriving at or before the given step from the schedule.
+     *
+     * @param step the current step
+     * @return the humans that arrive now
+     */
+    List<Human> takeArrivals(long step) {
+        List<Human> arrivals = new ArrayList<>();
+        while (hasPendingArrivals() && arrivalSteps[nextIndex] <= step) {
+            arrivals.add(humansByArrival[nextIndex]);
+            nextIndex++;
+        }
+        return arrivals;
+    }
+}
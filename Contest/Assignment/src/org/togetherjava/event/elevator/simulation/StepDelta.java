@@ -0,0 +1,48 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.HallCallChange;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.List;
+
+/**
+ * Everything that changed in a {@link Simulation} during a step, as published by
+ * {@link Simulation#getStepPublisher()}.
+ * <p>
+ * In {@link EngineMode#EVENT_DRIVEN} mode, a delta also covers the idle steps skipped before the step, so
+ * {@link #step()} may grow by more than one between two deltas. Idle steps change nothing but the position of
+ * moving elevators, whose moves are merged into one.
+ *
+ * @param step            the step count of the simulation after the step
+ * @param carMoves        the elevators that changed their floor, by index
+ * @param transitions     the humans that changed their state, by index
+ * @param hallCallChanges the hall calls that were opened or closed
+ */
+public record StepDelta(long step, List<CarMove> carMoves, List<HumanTransition> transitions,
+        List<HallCallChange> hallCallChanges) {
+    /**
+     * @param elevatorIndex the index of the elevator, see {@link Simulation#getElevators()}
+     * @param fromFloor     the floor of the elevator before the step
+     * @param toFloor       the floor of the elevator after the step
+     */
+    public record CarMove(int elevatorIndex, int fromFloor, int toFloor) {
+    }
+
+    /**
+     * @param humanIndex    the index of the human, see {@link Simulation#getHumans()}
+     * @param previousState the state of the human before the step, {@code null} in the first step
+     * @param state         the state of the human after the step
+     */
+    public record HumanTransition(int humanIndex, Human.State previousState, Human.State state) {
+    }
+
+    /**
+     * Whether nothing changed at all, i.e. all elevators stood still, no human changed its state and no hall
+     * call was opened or closed.
+     *
+     * @return whether the delta is empty
+     */
+    public boolean isEmpty() {
+        return carMoves.isEmpty() && transitions.isEmpty() && hallCallChanges.isEmpty();
+    }
+}
@@ -0,0 +1,105 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.List;
+
+/**
+ * The metrics a {@link Simulation} records each step, resolved once from a {@link MetricsRegistry}.
+ */
+final class StepMetrics {
+    private final MetricsRegistry registry;
+    private final List<Elevator> elevators;
+
+    private final Histogram stepDurationNanos;
+    private final Gauge listenerCallbacks;
+    private final Gauge openHallCalls;
+    private final Gauge oldestHallCallAge;
+    private final Gauge elevatorUtilisation;
+    private final Counter[] elevatorStops;
+    private final long[] lastElevatorStopCounts;
+    private final Counter humansBoarded;
+    private final Counter humansAlighted;
+    private final Histogram waitingSteps;
+    private final Histogram travelingSteps;
+
+    private long lastListenerCallbackCount;
+
+    StepMetrics(MetricsRegistry registry, List<Elevator> elevators) {
+        this.registry = registry;
+        this.elevators = elevators;
+
+        stepDurationNanos = registry.histogram("step.duration.nanos");
+        listenerCallbacks = registry.gauge("step.listener.callbacks");
+        openHallCalls = registry.gauge("hall.calls.open");
+        oldestHallCallAge = registry.gauge("hall.calls.oldest.age");
+        elevatorUtilisation = registry.gauge("elevators.utilisation");
+        humansBoarded = registry.counter("humans.boarded");
+        humansAlighted = registry.counter("humans.alighted");
+        waitingSteps = registry.histogram("humans.waiting.steps");
+        travelingSteps = registry.histogram("humans.traveling.steps");
+
+        elevatorStops = elevators.stream()
+                .map(elevator -> registry.counter("elevator.%d.stops".formatted(elevator.getIndex())))
+                .toArray(Counter[]::new);
+        lastElevatorStopCounts = elevators.stream().mapToLong(Elevator::getStopCount).toArray();
+    }
+
+    /**
+     * Records the transition of a human during the last step, if any.
+     *
+     * @param previousState the state of the human before the step, {@code null} if this was the first step
+     * @param statistics    the statistics of the human, already updated for the step
+     */
+    void recordHuman(Human.State previousState, HumanStatistics statistics) {
+        Human.State currentState = statistics.getLastState();
+        if (previousState == currentState) {
+            return;
+        }
+
+        if (currentState == Human.State.TRAVELING_WITH_ELEVATOR) {
+            humansBoarded.increment();
+        } else if (currentState == Human.State.ARRIVED) {
+            if (previousState == Human.State.TRAVELING_WITH_ELEVATOR) {
+                humansAlighted.increment();
+            }
+            waitingSteps.record(statistics.stepsForState(Human.State.WAITING_FOR_ELEVATOR));
+            travelingSteps.record(statistics.stepsForState(Human.State.TRAVELING_WITH_ELEVATOR));
+        }
+    }
+
+    /**
+     * Records all metrics of the elevators and takes a sample of the registry.
+     *
+     * @param step           the step that just finished
+     * @param durationNanos  how long the step took to compute
+     * @param elevatorSystem the system that executed the step
+     */
+    void recordStep(long step, long durationNanos, ElevatorSystem elevatorSystem) {
+        stepDurationNanos.record(durationNanos);
+
+        long listenerCallbackCount = elevatorSystem.getListenerCallbackCount();
+        listenerCallbacks.set(listenerCallbackCount - lastListenerCallbackCount);
+        lastListenerCallbackCount = listenerCallbackCount;
+
+        openHallCalls.set(elevatorSystem.getOpenHallCallCount());
+        oldestHallCallAge.set(elevatorSystem.getOldestHallCallAge());
+
+        int busyElevators = 0;
+        for (int i = 0; i < elevatorStops.length; i++) {
+            Elevator elevator = elevators.get(i);
+            if (elevator.getTravelDirection().isPresent()) {
+                busyElevators++;
+            }
+
+            long stopCount = elevator.getStopCount();
+            elevatorStops[i].add(stopCount - lastElevatorStopCounts[i]);
+            lastElevatorStopCounts[i] = stopCount;
+        }
+        elevatorUtilisation.set(elevators.isEmpty() ? 0 : (double) busyElevators / elevators.size());
+
+        registry.sample(step);
+    }
+}
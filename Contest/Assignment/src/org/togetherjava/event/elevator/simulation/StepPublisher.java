@@ -0,0 +1,94 @@
+package org.togetherjava.event.elevator.simulation;
+
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.elevators.HallCallChange;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Collects what changes during each step of a {@link Simulation} and publishes it as a {@link StepDelta}.
+ * <p>
+ * Every subscriber is served by its own buffer on the common pool, so subscribers never run on the thread of
+ * the simulation. The simulation only waits if the buffer of a subscriber is full, i.e. if deltas are produced
+ * faster than the subscriber consumes them. While nobody subscribed, changes are dropped right away.
+ */
+final class StepPublisher {
+    private final SubmissionPublisher<StepDelta> publisher = new SubmissionPublisher<>();
+    private final List<Elevator> elevators;
+    private final ElevatorSystem elevatorSystem;
+    /**
+     * The floor of each elevator when the previous delta was published.
+     */
+    private final int[] lastFloors;
+    private List<StepDelta.HumanTransition> transitions = new ArrayList<>();
+
+    StepPublisher(List<Elevator> elevators, ElevatorSystem elevatorSystem) {
+        this.elevators = elevators;
+        this.elevatorSystem = elevatorSystem;
+        lastFloors = elevators.stream().mapToInt(Elevator::getCurrentFloor).toArray();
+        elevatorSystem.recordHallCallChanges();
+    }
+
+    Flow.Publisher<StepDelta> getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Records the transition of a human during the current step.
+     */
+    void recordTransition(int humanIndex, Human.State previousState, Human.State state) {
+        transitions.add(new StepDelta.HumanTransition(humanIndex, previousState, state));
+    }
+
+    /**
+     * Publishes everything that changed since the previous step to all subscribers, unless nothing changed.
+     *
+     * @param step the step that just finished
+     */
+    void publish(long step) {
+        List<StepDelta.CarMove> carMoves = new ArrayList<>();
+        for (int i = 0; i < lastFloors.length; i++) {
+            int floor = elevators.get(i).getCurrentFloor();
+            if (floor != lastFloors[i]) {
+                carMoves.add(new StepDelta.CarMove(i, lastFloors[i], floor));
+                lastFloors[i] = floor;
+            }
+        }
+        List<HallCallChange> hallCallChanges = elevatorSystem.takeHallCallChanges();
+
+        List<StepDelta.HumanTransition> stepTransitions = List.of();
+        if (!transitions.isEmpty()) {
+            stepTransitions = Collections.unmodifiableList(transitions);
+            transitions = new ArrayList<>();
+        }
+        StepDelta delta = new StepDelta(step, Collections.unmodifiableList(carMoves), stepTransitions,
+                hallCallChanges);
+        if (!delta.isEmpty() && publisher.hasSubscribers()) {
+            publisher.submit(delta);
+        }
+    }
+
+    /**
+     * Completes all subscribers, once the simulation is done.
+     */
+    void close() {
+        publisher.close();
+    }
+
+    /**
+     * Completes all subscribers with the given failure, after the simulation was aborted.
+     */
+    void closeExceptionally(Throwable failure) {
+        publisher.closeExceptionally(failure);
+    }
+
+    boolean isClosed() {
+        return publisher.isClosed();
+    }
+}
@@ -5,8 +5,6 @@ import org.togetherjava.event.elevator.humans.Human;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.OptionalInt;
 import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
@@ -22,6 +20,7 @@ public final class View {
 
     public void printSummary() {
         System.out.printf("Simulation with %d elevators and %d humans.%n", simulation.getElevators().size(), simulation.getHumans().size());
+        simulation.getSeed().ifPresent(seed -> System.out.println("\tSeed for random simulation is: " + seed));
         System.out.println("\tElevators: " + simulation.getElevators());
         System.out.println("\tHumans: " + simulation.getHumans());
     }
@@ -31,13 +30,14 @@ public final class View {
                 .mapToInt(elevator -> elevator.getMinFloor() + elevator.getFloorsServed() - 1)
                 .max()
                 .orElseThrow();
-        Map<OptionalInt, Long> elevatorIdToHumansCount = simulation.getHumans().stream()
-                .collect(Collectors.groupingBy(Human::getCurrentEnteredElevatorId,
-                        Collectors.counting()));
+        long[] elevatorIndexToHumansCount = new long[simulation.getElevators().size()];
+        for (Human human : simulation.getHumans()) {
+            human.getCurrentEnteredElevatorIndex().ifPresent(index -> elevatorIndexToHumansCount[index]++);
+        }
 
         printRoof();
         for (int floor = totalFloors; floor >= 1; floor--) {
-            printFloor(floor, elevatorIdToHumansCount);
+            printFloor(floor, elevatorIndexToHumansCount);
         }
         printBasement();
     }
@@ -52,7 +52,7 @@ public final class View {
                 + "^".repeat(2 + 2 + CORRIDOR_WIDTH + ELEVATOR_WIDTH * simulation.getElevators().size() + 2 + 2));
     }
 
-    private void printFloor(int floor, Map<OptionalInt, Long> elevatorIdToHumansCount) {
+    private void printFloor(int floor, long[] elevatorIndexToHumansCount) {
         String emptyLeftLine = " ".repeat(FLOOR_LABEL_WIDTH) + "| ";
         List<String> leftLines = List.of(emptyLeftLine,
                 "%3s | ".formatted(floor),
@@ -65,7 +65,7 @@ public final class View {
 
         List<List<String>> allElevatorLines = simulation.getElevators().stream()
                 .map(elevator -> elevatorForFloorToLines(floor, elevator,
-                        elevatorIdToHumansCount.getOrDefault(OptionalInt.of(elevator.getId()), 0L)))
+                        elevatorIndexToHumansCount[elevator.getIndex()]))
                 .toList();
 
         List<List<String>> allLines = new ArrayList<>();
@@ -82,7 +82,7 @@ public final class View {
     }
 
     private List<String> elevatorForFloorToLines(int floor, Elevator elevator, long humansInElevator) {
-        if (floor != elevator.getCurrentFloor()) {
+        if (!elevator.isAtFloor(floor)) {
             String emptyLine = " ".repeat(ELEVATOR_WIDTH / 2) + "." + " ".repeat(ELEVATOR_WIDTH / 2);
             return List.of(emptyLine, emptyLine, emptyLine);
         }
@@ -0,0 +1,86 @@
+import org.junit.jupiter.api.Test;
+import org.togetherjava.event.elevator.simulation.Benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class BenchmarkTest {
+    @Test
+    void testRunsAreReproducible() {
+        String[] args = {"--scenario", "random:2x50x10", "--seeds", "3:6", "--warm-up", "0", "--engine", "event-driven"};
+
+        List<Benchmark.Result> results = Benchmark.fromArguments(args).run();
+        List<Benchmark.Result> repeatedResults = Benchmark.fromArguments(args).run();
+
+        assertEquals(List.of(3L, 4L, 5L), results.stream().map(Benchmark.Result::seed).toList());
+        assertEquals(results.stream().map(Benchmark.Result::steps).toList(),
+                repeatedResults.stream().map(Benchmark.Result::steps).toList(),
+                "The same arguments are supposed to simulate the same scenarios.");
+        for (Benchmark.Result result : results) {
+            assertEquals(50, result.humans());
+            assertTrue(result.stepsPerSecond() > 0);
+            assertTrue(result.waitingSteps()[0] <= result.waitingSteps()[2], "Percentiles are supposed to grow.");
+        }
+    }
+
+    @Test
+    void testHumanModesSimulateTheSameRuns() {
+        String[] args = {"--scenario", "template:residential-down-peak", "--seeds", "1:3", "--warm-up", "0"};
+
+        List<Benchmark.Result> callbackResults = Benchmark.fromArguments(args).run();
+        List<Benchmark.Result> virtualThreadResults =
+                Benchmark.fromArguments(concat(args, "--human-mode", "virtual-thread")).run();
+
+        assertEquals(callbackResults.stream().map(Benchmark.Result::steps).toList(),
+                virtualThreadResults.stream().map(Benchmark.Result::steps).toList(),
+                "Driving humans with virtual threads is not supposed to change the simulation.");
+        assertEquals(callbackResults.get(0).waitingSteps()[1], virtualThreadResults.get(0).waitingSteps()[1]);
+    }
+
+    @Test
+    void testScenariosThatAreNotRandomRunOnce() {
+        List<Benchmark.Result> results = Benchmark.fromArguments("--scenario", "simple", "--seeds", "0:10").run();
+
+        assertEquals(1, results.size());
+        assertEquals(-1, results.get(0).seed());
+    }
+
+    @Test
+    void testFormats() {
+        Benchmark benchmark = Benchmark.fromArguments("--scenario", "template:hotel-two-way", "--seeds", "0:2",
+                "--warm-up", "0", "--format", "csv");
+        List<Benchmark.Result> results = benchmark.run();
+
+        String[] csvLines = Benchmark.format(results, benchmark.getOutputFormat()).split("\n");
+        assertEquals(3, csvLines.length, "A header line and a line per seed are expected.");
+        assertEquals(csvLines[0].split(",").length, csvLines[1].split(",").length);
+        assertTrue(csvLines[1].startsWith("0,%d,".formatted(results.get(0).steps())));
+
+        String json = Benchmark.format(results, Benchmark.OutputFormat.JSON);
+        assertTrue(json.startsWith("[\n  {\"seed\":0,") && json.endsWith("}\n]\n"), json);
+        assertEquals(3, Benchmark.format(results, Benchmark.OutputFormat.TABLE).lines().count());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> Benchmark.fromArguments("--scenario"));
+        assertThrows(IllegalArgumentException.class, () -> Benchmark.fromArguments("--unknown", "1"));
+        assertThrows(IllegalArgumentException.class, () -> Benchmark.fromArguments("--scenario", "random:2x50"));
+        assertThrows(IllegalArgumentException.class, () -> Benchmark.fromArguments("--scenario", "template:castle"));
+        assertThrows(IllegalArgumentException.class, () -> Benchmark.fromArguments("--seeds", "5:5"));
+        assertThrows(IllegalArgumentException.class, () -> Benchmark.fromArguments("--format", "xml"));
+        assertThrows(IllegalArgumentException.class, () -> Benchmark.fromArguments("--step-limit", "99999999999"),
+                "A step limit that does not fit into an int is supposed to be rejected like any other malformed one.");
+        assertThrows(IllegalArgumentException.class, () -> Benchmark.fromArguments("--human-mode", "robot"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Benchmark.fromArguments("--scenario", "simple", "--human-mode", "virtual-thread"));
+    }
+
+    private static String[] concat(String[] args, String... moreArgs) {
+        String[] allArgs = Arrays.copyOf(args, args.length + moreArgs.length);
+        System.arraycopy(moreArgs, 0, allArgs, args.length, moreArgs.length);
+        return allArgs;
+    }
+}
@@ -0,0 +1,81 @@
+import org.junit.jupiter.api.Test;
+import org.togetherjava.event.elevator.simulation.Dashboard;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class DashboardTest {
+    private static final int TIMEOUT_MILLIS = 10_000;
+
+    @Test
+    void testStreamsFramesUntilDone() throws IOException {
+        Simulation simulation = Simulation.createRandomSimulation(2, 5, 100, 20);
+
+        try (Dashboard dashboard = new Dashboard(simulation, 0)) {
+            HttpURLConnection connection = open(dashboard.getUri().resolve("events"));
+            assertEquals("text/event-stream", connection.getContentType());
+            simulation.startAndExecuteUntilDone(10_000);
+
+            String lastFrame = null;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (line.startsWith("data: ")) {
+                        lastFrame = line.substring("data: ".length());
+                    }
+                }
+            }
+
+            assertNotNull(lastFrame, "At least one frame is supposed to be sent.");
+            assertTrue(lastFrame.startsWith("{\"step\":%d,\"done\":true,".formatted(simulation.getStepCount())),
+                    "The stream is supposed to end with the final state, but got " + lastFrame);
+            assertTrue(lastFrame.contains("\"queues\":[0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0]"),
+                    "Nobody is supposed to wait anymore once all humans arrived.");
+        }
+    }
+
+    @Test
+    void testStalledClientDoesNotSlowDownSimulation() throws IOException {
+        Simulation simulation = Simulation.createRandomSimulation(7, 100, 5_000, 50);
+
+        try (Dashboard dashboard = new Dashboard(simulation, 0)) {
+            // Connected, but never reads a single frame
+            HttpURLConnection stalledConnection = open(dashboard.getUri().resolve("events"));
+            stalledConnection.getInputStream();
+
+            assertTimeoutPreemptively(Duration.ofMillis(TIMEOUT_MILLIS),
+                    () -> simulation.startAndExecuteUntilDone(100_000));
+        }
+    }
+
+    @Test
+    void testServesPage() throws IOException {
+        Simulation simulation = Simulation.createSingleElevatorSingleHumanSimulation();
+
+        try (Dashboard dashboard = new Dashboard(simulation, 0)) {
+            assertEquals("127.0.0.1", dashboard.getUri().getHost(), "The dashboard must only be reachable locally.");
+
+            HttpURLConnection connection = open(dashboard.getUri());
+            try (InputStream page = connection.getInputStream()) {
+                assertTrue(new String(page.readAllBytes(), StandardCharsets.UTF_8).contains("new EventSource(\"events\")"));
+            }
+            assertEquals(404, open(dashboard.getUri().resolve("missing")).getResponseCode());
+        }
+    }
+
+    private static HttpURLConnection open(URI uri) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        return connection;
+    }
+}
@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.togetherjava.event.elevator.elevators.DispatchParameters;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.simulation.DispatchTuner;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class DispatchTunerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testTuningIsReproducible() {
+        DispatchTuner.Result first = smallTuner().tune();
+        DispatchTuner.Result second = smallTuner().tune();
+
+        assertEquals(first, second, "The same seed is supposed to yield the same parameters.");
+        assertTrue(Double.isFinite(first.score()), "The best parameters are supposed to finish all runs.");
+        assertTrue(Double.isFinite(first.defaultScore()));
+    }
+
+    @Test
+    void testParametersRoundTrip() {
+        Path file = directory.resolve("dispatch.properties");
+        DispatchParameters parameters = new DispatchParameters(1, 0.5, 3, 0.25, 4);
+
+        parameters.write(file);
+
+        assertEquals(parameters, DispatchParameters.load(file));
+    }
+
+    @Test
+    void testMissingWeightsKeepDefaults() throws IOException {
+        Path file = directory.resolve("dispatch.properties");
+        Files.writeString(file, "stopWeight = 2.5\n");
+
+        DispatchParameters parameters = DispatchParameters.load(file);
+
+        assertEquals(2.5, parameters.stopWeight());
+        assertEquals(DispatchParameters.DEFAULT.fullPenalty(), parameters.fullPenalty(),
+                "Weights missing in the file are supposed to keep their default value.");
+    }
+
+    @Test
+    void testInvalidWeightsAreRejected() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> new DispatchParameters(1, -1, 0, 0, 0));
+
+        Path file = directory.resolve("dispatch.properties");
+        Files.writeString(file, "loadWeight = heavy\n");
+        assertThrows(IllegalArgumentException.class, () -> DispatchParameters.load(file));
+    }
+
+    @Test
+    void testMalformedConfiguredFileIsReported() throws IOException {
+        Path file = directory.resolve("dispatch.properties");
+        Files.writeString(file, "distanceWeight = far\n");
+
+        System.setProperty(DispatchParameters.FILE_PROPERTY, file.toString());
+        try {
+            assertThrows(IllegalArgumentException.class, DispatchParameters::configured);
+            assertThrows(IllegalArgumentException.class, ElevatorSystem::new,
+                    "A malformed file is supposed to be reported every time, not only the first time.");
+
+            Files.writeString(file, "distanceWeight = 3\n");
+            System.setProperty(DispatchParameters.FILE_PROPERTY, directory.resolve("missing.properties").toString());
+            assertThrows(UncheckedIOException.class, DispatchParameters::configured);
+            System.setProperty(DispatchParameters.FILE_PROPERTY, file.toString());
+            assertEquals(3, DispatchParameters.configured().distanceWeight(),
+                    "Once the file is fixed, it is supposed to be loaded.");
+        } finally {
+            System.clearProperty(DispatchParameters.FILE_PROPERTY);
+        }
+        assertEquals(DispatchParameters.DEFAULT, DispatchParameters.configured());
+        assertDoesNotThrow(ElevatorSystem::new, "Elevator systems are supposed to work again once the file is unset.");
+    }
+
+    private static DispatchTuner smallTuner() {
+        return new DispatchTuner(7)
+                .scenario(seed -> Simulation.createRandomSimulation(seed, 3, 60, 20))
+                .candidates(6)
+                .initialSeedsPerCandidate(2);
+    }
+}
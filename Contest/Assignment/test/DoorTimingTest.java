@@ -0,0 +1,129 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.togetherjava.event.elevator.elevators.DoorTiming;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorPanel;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.elevators.FloorPanelSystem;
+import org.togetherjava.event.elevator.humans.ElevatorListener;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.EngineMode;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class DoorTimingTest {
+    private static final DoorTiming DOORS = new DoorTiming(1, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testElevatorIsHeldWhileHumansTransfer() {
+        ElevatorSystem system = new ElevatorSystem();
+        Elevator elevator = new Elevator(1, 10, 1);
+        elevator.setDoorTiming(DOORS);
+        system.registerElevator(elevator);
+        system.registerElevatorListener(new Boarding(3, 2, 5));
+        system.ready();
+
+        elevator.requestDestinationFloor(3);
+        // Floor 2, then stopping at floor 3 where 2 humans enter
+        system.moveOneFloor();
+        system.moveOneFloor();
+        assertEquals(2, elevator.getPassengerCount());
+
+        // Opening the doors, 2 transfers and closing the doors
+        for (int i = 0; i < 4; i++) {
+            system.moveOneFloor();
+            assertEquals(3, elevator.getCurrentFloor(), "The elevator is supposed to be held while humans enter.");
+        }
+        system.moveOneFloor();
+        assertEquals(4, elevator.getCurrentFloor());
+    }
+
+    @Test
+    void testDoorTimesSlowDownRoundTrips() {
+        Path scenario = createScenario();
+
+        Simulation instant = run(scenario, DoorTiming.INSTANT, EngineMode.STEP_BY_STEP);
+        Simulation doors = run(scenario, DOORS, EngineMode.STEP_BY_STEP);
+        Simulation doorsEventDriven = run(scenario, DOORS, EngineMode.EVENT_DRIVEN);
+
+        double instantRoundTrip = instant.getAverageRoundTripSteps().orElseThrow();
+        double doorsRoundTrip = doors.getAverageRoundTripSteps().orElseThrow();
+        assertTrue(doorsRoundTrip > instantRoundTrip,
+                "Holding elevators at floors is supposed to make round trips longer, but they went from %.1f to %.1f steps."
+                        .formatted(instantRoundTrip, doorsRoundTrip));
+        long instantTravelingSteps = instant.getTotalStepsForState(Human.State.TRAVELING_WITH_ELEVATOR);
+        long doorsTravelingSteps = doors.getTotalStepsForState(Human.State.TRAVELING_WITH_ELEVATOR);
+        assertTrue(doorsTravelingSteps > instantTravelingSteps,
+                "Passengers are supposed to be held at intermediate stops, but traveling went from %d to %d steps."
+                        .formatted(instantTravelingSteps, doorsTravelingSteps));
+        assertEquals(doors.getStepCount(), doorsEventDriven.getStepCount());
+        assertEquals(doors.getTotalStepsForState(Human.State.WAITING_FOR_ELEVATOR),
+                doorsEventDriven.getTotalStepsForState(Human.State.WAITING_FOR_ELEVATOR),
+                "Skipping idle steps is not supposed to change how long elevators are held.");
+    }
+
+    @Test
+    void testHandlingCapacityOfWholeRun() {
+        Simulation simulation = run(createScenario(), DOORS, EngineMode.STEP_BY_STEP);
+
+        long travelingHumans = simulation.getHumans().stream()
+                .filter(human -> human.getStartingFloor() != human.getDestinationFloor())
+                .count();
+        assertEquals(100.0 * travelingHumans / simulation.getHumans().size(),
+                simulation.getHandlingCapacity(simulation.getStepCount()), 1e-9,
+                "Within a window covering the whole run, every human traveling by elevator is served.");
+        assertTrue(simulation.getHandlingCapacity(Simulation.STEPS_PER_FIVE_MINUTES) < 100);
+        assertThrows(IllegalArgumentException.class, () -> simulation.getHandlingCapacity(0));
+    }
+
+    @Test
+    void testInvalidDoorTiming() {
+        assertThrows(IllegalArgumentException.class, () -> new DoorTiming(-1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new DoorTiming(0, 0, Double.NaN));
+    }
+
+    private Path createScenario() {
+        return SimulationFixture.writeBusyScenario(directory.resolve("office.bin"), 4, 20, 8, 400, 2);
+    }
+
+    private static Simulation run(Path scenario, DoorTiming doorTiming, EngineMode engineMode) {
+        return SimulationFixture.run(scenario, engineMode,
+                simulation -> simulation.getElevators().forEach(elevator -> elevator.setDoorTiming(doorTiming)));
+    }
+
+    /**
+     * Lets the given amount of humans enter the first time an elevator reaches the floor,
+     * requesting the given destination.
+     */
+    private static final class Boarding implements ElevatorListener {
+        private final int floor;
+        private final int destinationFloor;
+        private int remainingHumans;
+
+        Boarding(int floor, int humans, int destinationFloor) {
+            this.floor = floor;
+            this.remainingHumans = humans;
+            this.destinationFloor = destinationFloor;
+        }
+
+        @Override
+        public void onElevatorSystemReady(FloorPanelSystem floorPanelSystem) {
+        }
+
+        @Override
+        public void onElevatorArrivedAtFloor(ElevatorPanel elevatorPanel) {
+            if (elevatorPanel.getCurrentFloor() != floor) {
+                return;
+            }
+            for (; remainingHumans > 0 && elevatorPanel.tryEnter(); remainingHumans--) {
+                elevatorPanel.requestDestinationFloor(destinationFloor);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import org.junit.jupiter.api.Test;
+import org.togetherjava.event.elevator.elevators.DoorTiming;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.EngineMode;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class DoubleDeckAndShaftTest {
+    private static final int FLOORS = 30;
+
+    @Test
+    void testDoubleDeckServesAdjacentFloorsAtOnce() {
+        Elevator doubleDeck = new Elevator(1, 10, 1, Elevator.UNLIMITED_CAPACITY, 2);
+        Simulation simulation = new Simulation(List.of(doubleDeck), List.of(new Human(1, 8), new Human(2, 8)));
+        simulation.enableInvariantChecks();
+        simulation.startAndExecuteUntilDone(100);
+
+        assertTrue(simulation.isDone(), "All humans are supposed to arrive.");
+        assertEquals(7, doubleDeck.getCurrentFloor(), "The upper cab is supposed to stop at floor 8.");
+        assertEquals(2, doubleDeck.getStopCount(),
+                "Both humans are supposed to enter at the same stop, each at their own cab.");
+    }
+
+    @Test
+    void testDoubleDeckStaysWithinServedFloors() {
+        assertThrows(IllegalArgumentException.class, () -> new Elevator(1, 10, 10, 5, 2));
+        assertThrows(IllegalArgumentException.class, () -> new Elevator(1, 2, 1, 5, 2));
+        assertThrows(IllegalArgumentException.class, () -> new Elevator(1, 10, 1, 5, 0));
+    }
+
+    @Test
+    void testDoubleDecksInBothEngineModes() {
+        Supplier<List<List<Elevator>>> doubleDecks = () -> {
+            List<Elevator> elevators = List.of(new Elevator(1, FLOORS, 1, 16, 2), new Elevator(1, FLOORS, 15, 16, 2));
+            elevators.forEach(elevator -> elevator.setDoorTiming(new DoorTiming(1, 1, 1)));
+            return elevators.stream().map(List::of).toList();
+        };
+
+        assertSameInBothEngineModes(doubleDecks, 1);
+    }
+
+    @Test
+    void testSharedShaftsInBothEngineModes() {
+        Supplier<List<List<Elevator>>> twinShafts = () -> List.of(
+                List.of(new Elevator(1, FLOORS - 1, 1, 8), new Elevator(2, FLOORS - 1, FLOORS, 8)),
+                List.of(new Elevator(1, FLOORS - 1, 10, 8), new Elevator(2, FLOORS - 1, 20, 8)));
+
+        assertSameInBothEngineModes(twinShafts, 2);
+    }
+
+    @Test
+    void testIdleUpperCarMakesWay() {
+        Elevator lower = new Elevator(1, 9, 1);
+        Elevator upper = new Elevator(2, 9, 2);
+        Simulation simulation = Simulation.withShafts(List.of(List.of(lower, upper)), List.of(new Human(1, 9)));
+        simulation.enableInvariantChecks();
+        simulation.startAndExecuteUntilDone(100);
+
+        assertTrue(simulation.isDone(), "The human is supposed to arrive.");
+        assertEquals(9, lower.getCurrentFloor());
+        assertEquals(10, upper.getCurrentFloor(), "The idle upper car is supposed to make way above floor 9.");
+    }
+
+    @Test
+    void testLowerCarMakesWayForUpperCarHeadingDown() {
+        Elevator lower = new Elevator(1, 9, 5);
+        Elevator upper = new Elevator(2, 9, 10);
+        Simulation simulation = Simulation.withShafts(List.of(List.of(lower, upper)),
+                List.of(new Human(10, 2), new Human(3, 8)));
+        simulation.enableInvariantChecks();
+        simulation.startAndExecuteUntilDone(200);
+
+        assertTrue(simulation.isDone(), "Both humans are supposed to arrive, without the cars blocking each other.");
+        assertTrue(lower.getCurrentFloor() < upper.getCurrentFloor());
+    }
+
+    @Test
+    void testHumansOnlyEnterCarsServingTheirDestination() {
+        Elevator lower = new Elevator(1, 9, 5);
+        Elevator upper = new Elevator(2, 9, 8);
+        Simulation simulation = Simulation.withShafts(List.of(List.of(lower, upper)), List.of(new Human(5, 10)));
+        simulation.enableInvariantChecks();
+        simulation.startAndExecuteUntilDone(100);
+
+        assertTrue(simulation.isDone(), "The human is supposed to wait for the upper car, which reaches floor 10.");
+        assertEquals(10, upper.getCurrentFloor());
+        assertEquals(4, lower.getCurrentFloor(), "The lower car is supposed to make way for the upper car.");
+    }
+
+    @Test
+    void testShaftRejectsCarsThatCanNotMakeWay() {
+        ElevatorSystem system = new ElevatorSystem();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> system.registerShaft(List.of(new Elevator(1, 10, 1), new Elevator(1, 10, 5))),
+                "Cars serving the same floors can not make way for each other at the ends of the shaft.");
+        assertThrows(IllegalArgumentException.class,
+                () -> system.registerShaft(List.of(new Elevator(1, 9, 5, 5, 2), new Elevator(3, 8, 6))),
+                "The upper cab of the lower car is at the floor of the upper car.");
+        assertTrue(system.getSharedShafts().isEmpty());
+    }
+
+    private static void assertSameInBothEngineModes(Supplier<List<List<Elevator>>> shafts, long seed) {
+        Simulation stepByStep = run(shafts.get(), seed, EngineMode.STEP_BY_STEP);
+        Simulation eventDriven = run(shafts.get(), seed, EngineMode.EVENT_DRIVEN);
+
+        assertEquals(stepByStep.getStepCount(), eventDriven.getStepCount());
+        for (Human.State state : List.of(Human.State.WAITING_FOR_ELEVATOR, Human.State.TRAVELING_WITH_ELEVATOR)) {
+            assertEquals(stepByStep.getTotalStepsForState(state), eventDriven.getTotalStepsForState(state),
+                    "Skipping idle steps is not supposed to change how the cars travel.");
+        }
+        assertEquals(stepByStep.getAverageRoundTripSteps(), eventDriven.getAverageRoundTripSteps(),
+                "Skipping idle steps is not supposed to change the round trip time.");
+    }
+
+    /**
+     * Runs humans traveling between random floors, except between the lowest and the highest floor,
+     * which the cars of a shared shaft can not serve both.
+     */
+    private static Simulation run(List<List<Elevator>> shafts, long seed, EngineMode engineMode) {
+        Random random = new Random(seed);
+        List<Human> humans = new ArrayList<>();
+        while (humans.size() < 300) {
+            int startingFloor = 1 + random.nextInt(FLOORS);
+            int destinationFloor = 1 + random.nextInt(FLOORS);
+            if (Math.min(startingFloor, destinationFloor) > 1 || Math.max(startingFloor, destinationFloor) < FLOORS) {
+                humans.add(new Human(startingFloor, destinationFloor));
+            }
+        }
+
+        Simulation simulation = Simulation.withShafts(shafts, humans);
+        simulation.setEngineMode(engineMode);
+        simulation.enableInvariantChecks();
+        simulation.startAndExecuteUntilDone(100_000);
+        assertTrue(simulation.isDone(), "All humans are supposed to arrive.");
+        return simulation;
+    }
+}
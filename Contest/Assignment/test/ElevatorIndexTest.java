@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.Test;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class ElevatorIndexTest {
+    @Test
+    void testIndicesAreDensePerSystem() {
+        Elevator unregisteredElevator = new Elevator(1, 10, 1);
+        assertEquals(-1, unregisteredElevator.getIndex(),
+                "Elevators that are not registered at any system are not supposed to have an index.");
+
+        for (int system = 0; system < 2; system++) {
+            ElevatorSystem elevatorSystem = new ElevatorSystem();
+            for (int i = 0; i < 3; i++) {
+                Elevator elevator = new Elevator(1, 10, 1);
+                elevatorSystem.registerElevator(elevator);
+                assertEquals(i, elevator.getIndex(),
+                        "Elevators are supposed to be indexed in the order they were registered, starting at 0 for each system.");
+            }
+        }
+    }
+
+    @Test
+    void testHumanKnowsIndexOfEnteredElevator() {
+        ElevatorSystem elevatorSystem = new ElevatorSystem();
+        elevatorSystem.registerElevator(new Elevator(1, 10, 10));
+        Elevator elevator = new Elevator(1, 10, 3);
+        elevatorSystem.registerElevator(elevator);
+        Human human = new Human(3, 5);
+        elevatorSystem.registerElevatorListener(human);
+        elevatorSystem.ready();
+
+        assertEquals(OptionalInt.empty(), human.getCurrentEnteredElevatorIndex(),
+                "Waiting humans are not supposed to be inside any elevator.");
+        elevatorSystem.moveOneFloor();
+
+        assertEquals(Human.State.TRAVELING_WITH_ELEVATOR, human.getCurrentState());
+        assertEquals(OptionalInt.of(elevator.getIndex()), human.getCurrentEnteredElevatorIndex(),
+                "Humans are supposed to report the index of the elevator they entered.");
+        assertEquals(OptionalInt.of(elevator.getId()), human.getCurrentEnteredElevatorId());
+
+        while (human.getCurrentState() != Human.State.ARRIVED) {
+            elevatorSystem.moveOneFloor();
+        }
+        assertEquals(OptionalInt.empty(), human.getCurrentEnteredElevatorIndex(),
+                "Arrived humans are not supposed to be inside any elevator anymore.");
+    }
+}
@@ -0,0 +1,66 @@
+import org.junit.jupiter.api.Test;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.BuildingTemplate;
+import org.togetherjava.event.elevator.simulation.EngineMode;
+import org.togetherjava.event.elevator.simulation.HumanMode;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class EngineModeTest {
+    private static final int STEP_LIMIT = 100_000;
+
+    @Test
+    void testEventDrivenMatchesStepByStep() {
+        assertSameResults(() -> Simulation.createRandomSimulation(42, 5, 1_000, 30));
+        assertSameResults(() -> Simulation.createRandomSimulation(3, 2, 5, 100));
+        assertSameResults(() -> Simulation.createRandomSimulation(11, 4, 20, 10, HumanMode.VIRTUAL_THREAD));
+        assertSameResults(() -> BuildingTemplate.OFFICE_UP_PEAK.builder(8).humans(500).build());
+        assertSameResults(Simulation::createSimpleSimulation);
+    }
+
+    @Test
+    void testEventDrivenSkipsIdleSteps() {
+        Simulation simulation = new Simulation(List.of(new Elevator(1, 1_000, 1)), List.of(new Human(900, 2)));
+        simulation.setEngineMode(EngineMode.EVENT_DRIVEN);
+        simulation.start();
+
+        int executedSteps = 0;
+        while (!simulation.isDone()) {
+            simulation.step();
+            executedSteps++;
+        }
+
+        assertEquals(899 + 898, simulation.getStepCount(),
+                "The elevator is supposed to travel up to the human and back down again.");
+        assertTrue(executedSteps <= 3,
+                "Only the steps in which something happens are supposed to be executed, but executed %d."
+                        .formatted(executedSteps));
+    }
+
+    private static void assertSameResults(Supplier<Simulation> simulationFactory) {
+        Simulation stepByStep = simulationFactory.get();
+        Simulation eventDriven = simulationFactory.get();
+        eventDriven.setEngineMode(EngineMode.EVENT_DRIVEN);
+
+        stepByStep.startAndExecuteUntilDone(STEP_LIMIT);
+        eventDriven.startAndExecuteUntilDone(STEP_LIMIT);
+
+        assertEquals(stepByStep.getStepCount(), eventDriven.getStepCount(),
+                "Skipping idle steps must not change the amount of steps needed.");
+        for (Human.State state : Human.State.values()) {
+            assertEquals(stepByStep.getAverageTimePercentageSpendForState(state),
+                    eventDriven.getAverageTimePercentageSpendForState(state),
+                    "Skipping idle steps must not change the time spend in state %s.".formatted(state));
+        }
+        for (int i = 0; i < stepByStep.getElevators().size(); i++) {
+            assertEquals(stepByStep.getElevators().get(i).getCurrentFloor(),
+                    eventDriven.getElevators().get(i).getCurrentFloor(),
+                    "Skipping idle steps must not change where elevators end up.");
+        }
+    }
+}
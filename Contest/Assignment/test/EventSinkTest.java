@@ -0,0 +1,103 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.togetherjava.event.elevator.logging.AsyncFileEventSink;
+import org.togetherjava.event.elevator.logging.EventSink;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class EventSinkTest {
+    @Test
+    void testNoOpDiscardsEverything() {
+        EventSink sink = EventSink.noOp();
+
+        for (EventSink.Level level : EventSink.Level.values()) {
+            assertFalse(sink.isEnabled(level), "The no-op sink must not enable any level.");
+        }
+    }
+
+    @Test
+    void testAsyncFileSinkWritesEnabledLevels(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("events.log");
+
+        try (AsyncFileEventSink sink = new AsyncFileEventSink(file, EventSink.Level.DEBUG, 4)) {
+            for (int i = 0; i < 100; i++) {
+                sink.log(EventSink.Level.DEBUG, "event " + i);
+                sink.log(EventSink.Level.TRACE, "trace " + i);
+            }
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(100, lines.size(), "All enabled events, and only them, are supposed to be written.");
+        assertEquals("event 0", lines.get(0));
+        assertEquals("event 99", lines.get(99));
+    }
+
+    @Test
+    void testEventsLoggedConcurrentlyWithCloseAreNotLost(@TempDir Path directory)
+            throws IOException, InterruptedException {
+        Path file = directory.resolve("events.log");
+        AsyncFileEventSink sink = new AsyncFileEventSink(file, EventSink.Level.DEBUG, 4);
+        AtomicInteger acceptedEvents = new AtomicInteger();
+
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread producer = new Thread(() -> {
+                try {
+                    while (true) {
+                        sink.log(EventSink.Level.DEBUG, "event");
+                        acceptedEvents.incrementAndGet();
+                    }
+                } catch (IllegalStateException e) {
+                    // Closed, stop producing
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        Thread.sleep(50);
+        sink.close();
+        for (Thread producer : producers) {
+            producer.join(10_000);
+            assertFalse(producer.isAlive(), "Logging after close is supposed to be rejected instead of blocking.");
+        }
+
+        assertEquals(acceptedEvents.get(), Files.readAllLines(file).size(),
+                "Every event that was accepted is supposed to be written.");
+        assertThrows(IllegalStateException.class, () -> sink.log(EventSink.Level.DEBUG, "late"),
+                "Logging to a closed sink is supposed to fail.");
+    }
+
+    @Test
+    void testInterruptedLogIsReported(@TempDir Path directory) {
+        try (AsyncFileEventSink sink = new AsyncFileEventSink(directory.resolve("events.log"),
+                EventSink.Level.DEBUG, 1)) {
+            Thread.currentThread().interrupt();
+            assertThrows(IllegalStateException.class, () -> sink.log(EventSink.Level.DEBUG, "event"), "An event that could not be put into the buffer is not supposed to be dropped silently.");
+            assertTrue(Thread.interrupted(), "The interrupt is supposed to be preserved.");
+        }
+    }
+
+    @Test
+    void testSimulationReportsEvents(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("events.log");
+        Simulation simulation = Simulation.createRandomSimulation(11, 2, 10, 10);
+
+        try (AsyncFileEventSink sink = new AsyncFileEventSink(file, EventSink.Level.TRACE)) {
+            simulation.setEventSink(sink);
+            simulation.startAndExecuteUntilDone(1_000);
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertTrue(lines.get(0).contains("seed 11"), "The seed of the simulation is supposed to be reported first.");
+        assertTrue(lines.stream().anyMatch(line -> line.contains("entered elevator")),
+                "Humans entering elevators are supposed to be reported.");
+    }
+}
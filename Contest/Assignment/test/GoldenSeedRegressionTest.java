@@ -0,0 +1,136 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.togetherjava.event.elevator.simulation.Benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards dispatch quality and engine speed on the seeded simulations of {@code SimulationTest}, against baselines
+ * measured when they were last changed on purpose.
+ * <p>
+ * Quality may regress by {@value #DEFAULT_QUALITY_TOLERANCE} relative to the baseline, or by
+ * {@value #ZERO_BASELINE_TOLERANCE} step where the baseline is 0. The tolerance can be overridden by the system
+ * property {@code regression.qualityTolerance}.
+ * <p>
+ * Speed is only checked with {@code -Dregression.speed=true}, as wall-clock time depends on the machine and its
+ * load. JMH is not available in this project, so speed is measured as the fastest of a few runs after warm-up runs.
+ * It may regress by {@value #DEFAULT_SPEED_TOLERANCE}, or by the system property {@code regression.speedTolerance}.
+ * The comparison is always printed, so improvements can be copied into the baselines.
+ */
+final class GoldenSeedRegressionTest {
+    private static final double DEFAULT_QUALITY_TOLERANCE = 0.05;
+    private static final double DEFAULT_SPEED_TOLERANCE = 1.0;
+    private static final long ZERO_BASELINE_TOLERANCE = 1;
+
+    private static final List<Baseline> BASELINES = List.of(
+            new Baseline("small", "random:5x50x10", 1, 50, 20, 19, 1, 2, 24_000),
+            new Baseline("medium", "random:20x1000x50", 2, 5, 5, 94, 1, 7, 520_000),
+            new Baseline("big", "random:100x100000x100", 3, 1, 2, 199, 0, 5, 60_000_000));
+
+    @Test
+    void testNoQualityRegressionOnGoldenSeeds() {
+        double tolerance = tolerance("regression.qualityTolerance", DEFAULT_QUALITY_TOLERANCE);
+
+        StringBuilder table = createTable();
+        List<String> regressions = new ArrayList<>();
+        for (Baseline baseline : BASELINES) {
+            // The simulation is deterministic, a single run is enough
+            Benchmark.Result result = new Benchmark(baseline.scenario())
+                    .seeds(baseline.seed(), baseline.seed() + 1)
+                    .warmUpRuns(0)
+                    .run()
+                    .get(0);
+
+            compare(baseline, "steps", baseline.steps(), result.steps(), tolerance, table, regressions);
+            compare(baseline, "wait p50", baseline.medianWait(), result.waitingSteps()[0], tolerance, table,
+                    regressions);
+            compare(baseline, "wait p99", baseline.p99Wait(), result.waitingSteps()[2], tolerance, table,
+                    regressions);
+        }
+
+        assertNoRegressions(table, regressions);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "regression.speed", matches = "true")
+    void testNoSpeedRegressionOnGoldenSeeds() {
+        double tolerance = tolerance("regression.speedTolerance", DEFAULT_SPEED_TOLERANCE);
+
+        StringBuilder table = createTable();
+        List<String> regressions = new ArrayList<>();
+        for (Baseline baseline : BASELINES) {
+            Benchmark.Result result = measure(baseline);
+            compare(baseline, "ns/step", baseline.nanosPerStep(), result.nanos() / result.steps(), tolerance, table,
+                    regressions);
+        }
+
+        assertNoRegressions(table, regressions);
+    }
+
+    private static double tolerance(String property, double defaultTolerance) {
+        return Double.parseDouble(System.getProperty(property, String.valueOf(defaultTolerance)));
+    }
+
+    /**
+     * Simulates the seed of the baseline, keeping the fastest of its runs.
+     */
+    private static Benchmark.Result measure(Baseline baseline) {
+        Benchmark benchmark = new Benchmark(baseline.scenario())
+                .seeds(baseline.seed(), baseline.seed() + 1)
+                .warmUpRuns(baseline.warmUpRuns());
+        Benchmark.Result fastest = benchmark.run().get(0);
+
+        benchmark.warmUpRuns(0);
+        for (int i = 1; i < baseline.runs(); i++) {
+            Benchmark.Result result = benchmark.run().get(0);
+            if (result.nanos() < fastest.nanos()) {
+                fastest = result;
+            }
+        }
+        return fastest;
+    }
+
+    private static StringBuilder createTable() {
+        return new StringBuilder("%-8s %-14s %10s %10s %8s%n".formatted("seed", "metric", "baseline", "actual",
+                "change"));
+    }
+
+    /**
+     * Adds a row for the given metric to the table, and a regression if it is worse than the baseline allows.
+     * Lower is better for all metrics.
+     */
+    private static void compare(Baseline baseline, String metric, long expected, long actual, double tolerance,
+            StringBuilder table, List<String> regressions) {
+        // A relative tolerance would not allow any change of a baseline of 0
+        long allowed = expected == 0 ? ZERO_BASELINE_TOLERANCE : (long) Math.ceil(expected * (1 + tolerance));
+        boolean regressed = actual > allowed;
+        String change = expected == 0
+                ? ""
+                : String.format(Locale.ROOT, "%+.1f%%", 100.0 * (actual - expected) / expected);
+        table.append("%-8s %-14s %10d %10d %8s%s%n".formatted(baseline.name(), metric, expected, actual, change,
+                regressed ? "  REGRESSED" : ""));
+        if (regressed) {
+            regressions.add("%s %s %d > %d".formatted(baseline.name(), metric, actual, allowed));
+        }
+    }
+
+    private static void assertNoRegressions(StringBuilder table, List<String> regressions) {
+        System.out.print(table);
+        assertTrue(regressions.isEmpty(), "Regressed beyond the tolerance: " + regressions + "\n" + table);
+    }
+
+    /**
+     * The results of a seed, when they were last changed on purpose.
+     *
+     * @param warmUpRuns   unmeasured runs before the measured runs
+     * @param runs         measured runs, the fastest counts
+     * @param nanosPerStep the time to compute a step, on the machine the baseline was measured on
+     */
+    private record Baseline(String name, String scenario, long seed, int warmUpRuns, int runs, long steps,
+            long medianWait, long p99Wait, long nanosPerStep) {
+    }
+}
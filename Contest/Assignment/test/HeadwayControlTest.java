@@ -0,0 +1,118 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.togetherjava.event.elevator.elevators.DispatchParameters;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.elevators.TravelDirection;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class HeadwayControlTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEmptyFollowerIsHeld() {
+        ElevatorSystem system = new ElevatorSystem();
+        Elevator leader = new Elevator(1, 21, 3);
+        Elevator follower = new Elevator(1, 21, 1);
+        system.registerElevator(leader);
+        system.registerElevator(follower);
+        system.setHeadwayControl(true);
+        system.ready();
+
+        leader.requestDestinationFloor(20);
+        follower.requestDestinationFloor(20);
+        for (int i = 0; i < 5; i++) {
+            system.moveOneFloor();
+        }
+
+        int headway = leader.getCurrentFloor() - follower.getCurrentFloor();
+        assertTrue(headway > 2, "The follower is supposed to be held to increase the headway, but it is " + headway);
+    }
+
+    @Test
+    void testServedPickupIsCancelled() {
+        ElevatorSystem system = new ElevatorSystem();
+        Elevator assigned = new Elevator(1, 20, 1);
+        Elevator passing = new Elevator(1, 20, 10);
+        system.registerElevator(assigned);
+        system.registerElevator(passing);
+        system.setHeadwayControl(true);
+        // Without any costs, the first elevator is assigned to every call
+        system.setDispatchParameters(new DispatchParameters(0, 0, 0, 0, 0));
+        system.ready();
+
+        system.requestElevator(6, TravelDirection.UP);
+        passing.requestDestinationFloor(6);
+        for (int i = 0; i < 4; i++) {
+            system.moveOneFloor();
+        }
+
+        assertEquals(6, passing.getCurrentFloor());
+        assertEquals(0, assigned.getPendingDestinationCount(),
+                "The call was served by the passing elevator, the assigned one is not supposed to go there anymore.");
+    }
+
+    @Test
+    void testEmptyElevatorsAreHeldInBusyBuilding() {
+        Path scenario = createBusyScenario();
+
+        long heldWithoutControl = countHeldSteps(scenario, false);
+        long heldWithControl = countHeldSteps(scenario, true);
+        assertTrue(heldWithControl > 10 * heldWithoutControl,
+                "Empty elevators are supposed to be held to keep their headway, but stood %d steps, %d without control."
+                        .formatted(heldWithControl, heldWithoutControl));
+    }
+
+    @Test
+    void testHeadwayControlIsIdenticalInBothEngineModes() {
+        Path scenario = createBusyScenario();
+
+        SimulationFixture.assertIdenticalInBothEngineModes(scenario,
+                simulation -> simulation.getElevatorSystem().setHeadwayControl(true), Human.State.WAITING_FOR_ELEVATOR,
+                "Skipping idle steps is not supposed to change which elevators are held.");
+    }
+
+    private Path createBusyScenario() {
+        return SimulationFixture.writeBusyScenario(directory.resolve("busy.bin"), 1, 30, 0, 600, 3);
+    }
+
+    /**
+     * Counts the steps in which an empty elevator stood still although it was on its way somewhere.
+     */
+    private static long countHeldSteps(Path scenario, boolean headwayControl) {
+        Simulation simulation = Simulation.fromFile(scenario);
+        simulation.getElevatorSystem().setHeadwayControl(headwayControl);
+        simulation.start();
+
+        List<Elevator> elevators = simulation.getElevators();
+        int[] floorsBefore = new int[elevators.size()];
+        boolean[] travelingEmptyBefore = new boolean[elevators.size()];
+        long heldSteps = 0;
+        while (!simulation.isDone() && simulation.getStepCount() < 100_000) {
+            for (int i = 0; i < elevators.size(); i++) {
+                floorsBefore[i] = elevators.get(i).getCurrentFloor();
+                travelingEmptyBefore[i] = isTravelingEmpty(elevators.get(i));
+            }
+            simulation.step();
+            for (int i = 0; i < elevators.size(); i++) {
+                Elevator elevator = elevators.get(i);
+                if (travelingEmptyBefore[i] && isTravelingEmpty(elevator)
+                        && elevator.getCurrentFloor() == floorsBefore[i]) {
+                    heldSteps++;
+                }
+            }
+        }
+        return heldSteps;
+    }
+
+    private static boolean isTravelingEmpty(Elevator elevator) {
+        return elevator.getPassengerCount() == 0 && elevator.getTravelDirection().isPresent();
+    }
+}
@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.Test;
+import org.togetherjava.event.elevator.elevators.DispatchParameters;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.HumanMode;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class HumanModeTest {
+    @Test
+    void testVirtualThreadModeMatchesCallbackMode() {
+        long seed = 42;
+        Simulation callbackSimulation =
+                Simulation.createRandomSimulation(seed, 5, 1_000, 30, HumanMode.CALLBACK);
+        Simulation agentSimulation =
+                Simulation.createRandomSimulation(seed, 5, 1_000, 30, HumanMode.VIRTUAL_THREAD);
+        int stepLimit = 10_000;
+
+        callbackSimulation.startAndExecuteUntilDone(stepLimit);
+        agentSimulation.startAndExecuteUntilDone(stepLimit);
+
+        assertEquals(callbackSimulation.getStepCount(), agentSimulation.getStepCount(),
+                "Running humans as virtual threads must not change the amount of steps needed.");
+        for (Human.State state : Human.State.values()) {
+            assertEquals(callbackSimulation.getAverageTimePercentageSpendForState(state),
+                    agentSimulation.getAverageTimePercentageSpendForState(state),
+                    "Running humans as virtual threads must not change the time spend in state %s.".formatted(
+                            state));
+        }
+    }
+
+    @Test
+    void testVirtualThreadModeMatchesCallbackModeWithFullElevators() {
+        Simulation callbackSimulation = createCrowdedSimulation(HumanMode.CALLBACK);
+        Simulation agentSimulation = createCrowdedSimulation(HumanMode.VIRTUAL_THREAD);
+        Simulation repeatedAgentSimulation = createCrowdedSimulation(HumanMode.VIRTUAL_THREAD);
+        int stepLimit = 10_000;
+
+        callbackSimulation.startAndExecuteUntilDone(stepLimit);
+        agentSimulation.startAndExecuteUntilDone(stepLimit);
+        repeatedAgentSimulation.startAndExecuteUntilDone(stepLimit);
+
+        for (Simulation simulation : List.of(agentSimulation, repeatedAgentSimulation)) {
+            assertEquals(callbackSimulation.getStepCount(), simulation.getStepCount(),
+                    "The order humans enter full elevators in must not depend on how agents are scheduled.");
+            for (Human.State state : Human.State.values()) {
+                assertEquals(callbackSimulation.getTotalStepsForState(state), simulation.getTotalStepsForState(state),
+                        "The order humans request elevators in must not depend on how agents are scheduled.");
+            }
+        }
+    }
+
+    @Test
+    void testVirtualThreadModeLeavesIdleOnStart() {
+        Simulation simulation = Simulation.createRandomSimulation(7, 2, 50, 10, HumanMode.VIRTUAL_THREAD);
+
+        simulation.start();
+
+        assertTrue(simulation.getHumans()
+                        .stream()
+                        .noneMatch(human -> human.getCurrentState() == Human.State.IDLE),
+                "Once the simulation started, no human agent is supposed to be IDLE anymore.");
+    }
+
+    /**
+     * Many humans and small elevators, dispatched by their load and stops, so that the order humans act in matters.
+     */
+    private static Simulation createCrowdedSimulation(HumanMode humanMode) {
+        Random random = new Random(5);
+        List<Elevator> elevators = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            elevators.add(new Elevator(1, 20, 1 + random.nextInt(20), 3));
+        }
+        List<Human> humans = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            humans.add(new Human(1 + random.nextInt(20), 1 + random.nextInt(20)));
+        }
+
+        Simulation simulation = new Simulation(elevators, humans, humanMode);
+        simulation.getElevatorSystem().setDispatchParameters(new DispatchParameters(1, 1, 2, 0.5, 0.5));
+        return simulation;
+    }
+}
@@ -0,0 +1,76 @@
+import org.junit.jupiter.api.Test;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.humans.ElevatorListener;
+import org.togetherjava.event.elevator.humans.Human;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+final class IdleElevatorSkippingTest {
+    @Test
+    void testIdleElevatorsCauseNoEvents() {
+        ElevatorSystem system = new ElevatorSystem();
+        system.setSkipIdleElevators(true);
+        Elevator idleElevator = new Elevator(1, 10, 1);
+        Elevator requestedElevator = new Elevator(1, 10, 5);
+        system.registerElevator(idleElevator);
+        system.registerElevator(requestedElevator);
+        ElevatorListener listener = mock(ElevatorListener.class);
+        system.registerElevatorListener(listener);
+        system.ready();
+
+        requestedElevator.requestDestinationFloor(7);
+        for (int i = 0; i < 5; i++) {
+            system.moveOneFloor();
+        }
+
+        verify(listener, never().description("Idle elevators are not supposed to cause arrival events."))
+                .onElevatorArrivedAtFloor(idleElevator);
+        verify(listener, atLeast(2).description("Requested elevators are supposed to cause arrival events."))
+                .onElevatorArrivedAtFloor(requestedElevator);
+        assertEquals(7, requestedElevator.getCurrentFloor());
+
+        long callbackCount = system.getListenerCallbackCount();
+        system.moveOneFloor();
+        assertEquals(callbackCount, system.getListenerCallbackCount(),
+                "Once all elevators settled, a step is not supposed to cause any arrival event.");
+    }
+
+    @Test
+    void testSkippingMatchesMovingAllElevators() {
+        for (long seed = 0; seed < 20; seed++) {
+            assertEquals(stepsUntilAllArrived(seed, false), stepsUntilAllArrived(seed, true),
+                    "Skipping idle elevators must not change the amount of steps needed, seed " + seed);
+        }
+    }
+
+    private static long stepsUntilAllArrived(long seed, boolean skipIdleElevators) {
+        Random random = new Random(seed);
+        int floorsServed = 40;
+        ElevatorSystem system = new ElevatorSystem();
+        system.setSkipIdleElevators(skipIdleElevators);
+        for (int i = 0; i < 20; i++) {
+            system.registerElevator(new Elevator(1, floorsServed, 1 + random.nextInt(floorsServed)));
+        }
+        List<Human> humans = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Human human = new Human(1 + random.nextInt(floorsServed), 1 + random.nextInt(floorsServed));
+            humans.add(human);
+            system.registerElevatorListener(human);
+        }
+        system.ready();
+
+        long steps = 0;
+        while (!humans.stream().allMatch(human -> human.getCurrentState() == Human.State.ARRIVED)) {
+            system.moveOneFloor();
+            steps++;
+            assertTrue(steps < 10_000, "All humans are supposed to arrive eventually.");
+        }
+        return steps;
+    }
+}
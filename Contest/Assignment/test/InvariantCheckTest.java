@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.Test;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorPanel;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.EngineMode;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+final class InvariantCheckTest {
+    @Test
+    void testCorrectSimulationPasses() {
+        Simulation simulation = Simulation.createRandomSimulation(4, 20, 20_000, 50);
+        simulation.enableInvariantChecks();
+
+        assertDoesNotThrow(() -> simulation.startAndExecuteUntilDone(100_000),
+                "A correct simulation is not supposed to break any invariant.");
+    }
+
+    @Test
+    void testEventDrivenSimulationPasses() {
+        Simulation simulation = Simulation.createRandomSimulation(5, 3, 10, 100);
+        simulation.setEngineMode(EngineMode.EVENT_DRIVEN);
+        simulation.enableInvariantChecks();
+
+        assertDoesNotThrow(() -> simulation.startAndExecuteUntilDone(100_000),
+                "Skipping idle steps is not supposed to break any invariant.");
+    }
+
+    @Test
+    void testExitAtWrongFloorIsDetected() {
+        Elevator elevator = new Elevator(1, 10, 1);
+        Human human = new Human(1, 10);
+        Simulation simulation = new Simulation(List.of(elevator), List.of(human));
+        simulation.enableInvariantChecks();
+        simulation.start();
+        simulation.step();
+        assertEquals(Human.State.TRAVELING_WITH_ELEVATOR, human.getCurrentState());
+
+        // An elevator that claims to be at the destination, while the actual one is still at the lobby
+        ElevatorPanel lyingPanel = mock(ElevatorPanel.class);
+        when(lyingPanel.getId()).thenReturn(elevator.getId());
+        when(lyingPanel.getIndex()).thenReturn(elevator.getIndex());
+        when(lyingPanel.getCurrentFloor()).thenReturn(10);
+        when(lyingPanel.isAtFloor(10)).thenReturn(true);
+        human.onElevatorArrivedAtFloor(lyingPanel);
+
+        IllegalStateException violation = assertThrows(IllegalStateException.class, simulation::step,
+                "Exiting an elevator away from the destination is supposed to be detected.");
+        assertTrue(violation.getMessage().contains("destination floor"), violation.getMessage());
+    }
+}
@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorPanel;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+final class LivelockDetectionTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testStuckSimulationIsAbortedEarly() {
+        Human strandedHuman = new Human(5, 8);
+        Simulation simulation = new Simulation(List.of(new Elevator(1, 10, 1)),
+                List.of(strandedHuman, new Human(2, 9)));
+        simulation.enableLivelockDetection();
+        simulation.start();
+
+        // The human believes to ride an elevator that does not exist, hence never arrives
+        ElevatorPanel phantomElevator = mock(ElevatorPanel.class);
+        when(phantomElevator.getId()).thenReturn(Integer.MAX_VALUE);
+        when(phantomElevator.getCurrentFloor()).thenReturn(5);
+        when(phantomElevator.isAtFloor(5)).thenReturn(true);
+        when(phantomElevator.canServe(8)).thenReturn(true);
+        when(phantomElevator.tryEnter()).thenReturn(true);
+        strandedHuman.onElevatorArrivedAtFloor(phantomElevator);
+
+        IllegalStateException livelock = assertThrows(IllegalStateException.class, () -> {
+            while (simulation.getStepCount() < 100_000) {
+                simulation.step();
+            }
+        }, "A simulation that can not make progress anymore is supposed to be aborted.");
+        assertTrue(livelock.getMessage().contains("livelock"), livelock.getMessage());
+        assertTrue(simulation.getStepCount() < 100,
+                "A livelock is supposed to be detected right away, but it took %d steps."
+                        .formatted(simulation.getStepCount()));
+    }
+
+    @Test
+    void testWaitingForLateHumansIsNoLivelock() throws IOException {
+        Path file = directory.resolve("scenario.csv");
+        Files.writeString(file, """
+                elevator,1,10,1,0
+                trip,1,3,0
+                trip,7,2,500
+                """);
+        Simulation simulation = Simulation.fromFile(file);
+        simulation.enableLivelockDetection();
+
+        assertDoesNotThrow(() -> simulation.startAndExecuteUntilDone(1_000),
+                "Standing still until more humans arrive is not supposed to count as livelock.");
+    }
+
+    @Test
+    void testHeldElevatorIsNoLivelock() {
+        Elevator leader = new Elevator(1, 21, 3);
+        Elevator follower = new Elevator(1, 21, 1);
+        Simulation simulation = new Simulation(List.of(leader, follower),
+                List.of(new Human(3, 20), new Human(1, 21), new Human(18, 2)));
+        simulation.getElevatorSystem().setHeadwayControl(true);
+        simulation.enableLivelockDetection();
+        simulation.start();
+
+        boolean followerHeld = false;
+        while (!simulation.isDone()) {
+            int floorBefore = follower.getCurrentFloor();
+            assertDoesNotThrow(simulation::step,
+                    "An elevator held for headway control is not supposed to count as livelock.");
+            followerHeld |= floorBefore == follower.getCurrentFloor() && follower.getPendingDestinationCount() > 0;
+            assertTrue(simulation.getStepCount() < 1_000, "All humans are supposed to arrive.");
+        }
+        assertTrue(followerHeld, "The follower is supposed to be held at least once.");
+    }
+}
@@ -0,0 +1,65 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.togetherjava.event.elevator.simulation.Histogram;
+import org.togetherjava.event.elevator.simulation.MetricsFormat;
+import org.togetherjava.event.elevator.simulation.MetricsRegistry;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class MetricsRegistryTest {
+    @Test
+    void testHistogramPercentiles() {
+        Histogram histogram = new MetricsRegistry().histogram("any");
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(5_000, histogram.getValueAtPercentile(50), 5_000 * 0.02,
+                "The median of the histogram is not within its precision.");
+        assertEquals(9_900, histogram.getValueAtPercentile(99), 9_900 * 0.02,
+                "The 99th percentile of the histogram is not within its precision.");
+        assertEquals(10_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void testHistogramSmallValuesAreExact() {
+        Histogram histogram = new MetricsRegistry().histogram("any");
+        List.of(3L, 3L, 7L, 100L).forEach(histogram::record);
+
+        assertEquals(3, histogram.getValueAtPercentile(50));
+        assertEquals(7, histogram.getValueAtPercentile(75));
+        assertEquals(100, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    void testSimulationMetricsExport(@TempDir Path directory) throws IOException {
+        Simulation simulation = Simulation.createRandomSimulation(3, 2, 20, 10);
+        Path exportFile = directory.resolve("metrics.csv");
+
+        try (MetricsRegistry registry = new MetricsRegistry()) {
+            registry.exportTo(exportFile, MetricsFormat.CSV);
+            simulation.enableMetrics(registry);
+            simulation.startAndExecuteUntilDone(1_000);
+
+            assertEquals(20, registry.histogram("humans.waiting.steps").getCount(),
+                    "Every arrived human is supposed to be recorded in the wait time distribution.");
+            assertEquals(registry.counter("humans.boarded").get(), registry.counter("humans.alighted").get(),
+                    "Every human that boarded an elevator is supposed to also leave it again.");
+            assertEquals(simulation.getStepCount(), registry.histogram("step.duration.nanos").getCount());
+        }
+
+        List<String> lines = Files.readAllLines(exportFile);
+        assertTrue(lines.get(0).startsWith("step,"), "The CSV export is supposed to start with a header.");
+        assertEquals(simulation.getStepCount() + 1, lines.size(),
+                "The CSV export is supposed to contain one line per step.");
+    }
+}
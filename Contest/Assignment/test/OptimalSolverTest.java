@@ -0,0 +1,50 @@
+import org.junit.jupiter.api.Test;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.OptimalSolver;
+import org.togetherjava.event.elevator.simulation.OptimalityGapReport;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class OptimalSolverTest {
+    @Test
+    void testSolvesTrivialInstance() {
+        Simulation simulation = new Simulation(List.of(new Elevator(1, 10, 1)),
+                List.of(new Human(1, 5), new Human(3, 4)));
+
+        OptimalSolver.Solution solution = OptimalSolver.solve(simulation);
+
+        // Stay at floor 1 for the first human, then move up, picking up the second human at floor 3
+        assertEquals(2, solution.minTotalWaitingSteps(),
+                "The second human has to wait while the elevator travels to floor 3.");
+        assertEquals(5, solution.minMakespan(),
+                "Entering takes a step, then 4 more steps are needed to reach floor 5.");
+    }
+
+    @Test
+    void testOptimumIsNeverWorseThanDispatcher() {
+        List<OptimalityGapReport.Entry> entries = new OptimalityGapReport(2, 6, 8).seeds(0, 15).run();
+
+        assertFalse(entries.isEmpty(), "Small simulations are supposed to be solvable.");
+        for (OptimalityGapReport.Entry entry : entries) {
+            assertTrue(entry.optimalTotalWaitingSteps() <= entry.totalWaitingSteps(),
+                    "No dispatcher can let humans wait less than the optimum, but got " + entry);
+            assertTrue(entry.optimalSteps() <= entry.steps(),
+                    "No dispatcher can finish faster than the optimum, but got " + entry);
+        }
+        assertTrue(OptimalityGapReport.format(entries).contains("default"));
+    }
+
+    @Test
+    void testRejectsUnsupportedSimulations() {
+        assertThrows(IllegalArgumentException.class,
+                () -> OptimalSolver.solve(Simulation.createRandomSimulation(1, 4, 5, 10)),
+                "The solver is supposed to reject instances with too many elevators.");
+        assertThrows(IllegalArgumentException.class,
+                () -> OptimalSolver.solve(new Simulation(List.of(new Elevator(1, 10, 1, 2)), List.of(new Human(1, 5)))),
+                "The solver is supposed to reject elevators with limited capacity.");
+    }
+}
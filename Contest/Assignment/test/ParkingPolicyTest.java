@@ -0,0 +1,98 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.elevators.ParkingPolicy;
+import org.togetherjava.event.elevator.elevators.TravelDirection;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.EngineMode;
+import org.togetherjava.event.elevator.simulation.ScenarioFile;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class ParkingPolicyTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testIdleElevatorParksAtBusiestFloor() {
+        ElevatorSystem system = new ElevatorSystem();
+        system.setParkingPolicy(ParkingPolicy.PREDICTED_DEMAND);
+        Elevator elevator = new Elevator(1, 10, 5);
+        system.registerElevator(elevator);
+        system.ready();
+
+        system.requestElevator(2, TravelDirection.UP);
+        system.requestElevator(2, TravelDirection.UP);
+        system.requestElevator(8, TravelDirection.DOWN);
+        for (int i = 0; i < 20; i++) {
+            system.moveOneFloor();
+        }
+
+        assertEquals(2, elevator.getCurrentFloor(), "Idle elevators are supposed to park where most calls come from.");
+        assertEquals(0, elevator.getPendingDestinationCount());
+    }
+
+    @Test
+    void testParkingReducesWaitingInUpPeak() {
+        Path scenario = createUpPeakScenario();
+
+        Simulation staying = SimulationFixture.run(scenario, EngineMode.STEP_BY_STEP, parking(ParkingPolicy.STAY));
+        Simulation parking =
+                SimulationFixture.run(scenario, EngineMode.STEP_BY_STEP, parking(ParkingPolicy.PREDICTED_DEMAND));
+
+        long stayingMedianWait = staying.getStepsForStateAtPercentile(Human.State.WAITING_FOR_ELEVATOR, 0.5);
+        long parkingMedianWait = parking.getStepsForStateAtPercentile(Human.State.WAITING_FOR_ELEVATOR, 0.5);
+        assertTrue(parkingMedianWait < stayingMedianWait,
+                "Parking at the lobby is supposed to reduce waiting in the up-peak, but the median wait went from %d to %d steps."
+                        .formatted(stayingMedianWait, parkingMedianWait));
+
+        assertEquals(0, countElevatorsAtFloor(staying, 1),
+                "Without parking, elevators are supposed to stay at the floors they served last.");
+        assertEquals(1, countElevatorsAtFloor(parking, 1),
+                "One idle elevator is supposed to park at the lobby, where all calls came from.");
+    }
+
+    @Test
+    void testParkingIsIdenticalInBothEngineModes() {
+        Path scenario = createUpPeakScenario();
+
+        SimulationFixture.assertIdenticalInBothEngineModes(scenario, parking(ParkingPolicy.PREDICTED_DEMAND),
+                Human.State.WAITING_FOR_ELEVATOR,
+                "Skipping idle steps is not supposed to change where elevators park.");
+    }
+
+    /**
+     * Humans arrive at the lobby every few steps, while all elevators start somewhere above.
+     */
+    private Path createUpPeakScenario() {
+        Random random = new Random(1);
+        List<ScenarioFile.ElevatorRecord> elevators = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            elevators.add(new ScenarioFile.ElevatorRecord(1, 30, 2 + random.nextInt(29), 0));
+        }
+        List<ScenarioFile.TripRecord> trips = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            trips.add(new ScenarioFile.TripRecord(1, 2 + random.nextInt(29), i * 15 + random.nextInt(10)));
+        }
+
+        Path file = directory.resolve("up-peak.bin");
+        ScenarioFile.writeBinary(file, elevators, trips);
+        return file;
+    }
+
+    private static long countElevatorsAtFloor(Simulation simulation, int floor) {
+        return simulation.getElevators().stream().filter(elevator -> elevator.getCurrentFloor() == floor).count();
+    }
+
+    private static Consumer<Simulation> parking(ParkingPolicy parkingPolicy) {
+        return simulation -> simulation.getElevatorSystem().setParkingPolicy(parkingPolicy);
+    }
+}
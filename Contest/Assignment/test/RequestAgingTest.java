@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.elevators.TravelDirection;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.logging.EventSink;
+import org.togetherjava.event.elevator.simulation.EngineMode;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class RequestAgingTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testOldestHallCallAge() {
+        ElevatorSystem system = new ElevatorSystem();
+        system.registerElevator(new Elevator(1, 30, 30));
+        system.ready();
+        assertEquals(0, system.getOldestHallCallAge(), "Without any hall call, nothing can be old.");
+
+        system.requestElevator(1, TravelDirection.UP);
+        system.moveOneFloor();
+        system.requestElevator(2, TravelDirection.UP);
+        system.moveOneFloor();
+
+        assertEquals(2, system.getOldestHallCallAge());
+    }
+
+    @Test
+    void testOverdueCallIsServedFirst() {
+        ElevatorSystem system = new ElevatorSystem();
+        Elevator elevator = new Elevator(1, 30, 5);
+        system.registerElevator(elevator);
+        system.setMaxWaitSteps(3);
+        system.ready();
+
+        elevator.requestDestinationFloor(30);
+        system.moveOneFloor();
+        // The elevator is on its way up, the call behind it would have to wait for the whole trip
+        system.requestElevator(4, TravelDirection.UP);
+
+        int steps = 0;
+        while (system.getOpenHallCallCount() > 0 && steps < 100) {
+            system.moveOneFloor();
+            steps++;
+        }
+
+        // 3 steps until the call is overdue, then 5 floors back down to it
+        assertEquals(8, steps, "The overdue call is supposed to be served right away.");
+        assertEquals(4, elevator.getCurrentFloor());
+        assertEquals(1, elevator.getPendingDestinationCount(),
+                "The elevator is supposed to still travel to its other destination afterwards.");
+    }
+
+    @Test
+    void testOverdueCallsAreEscalatedInBusyBuilding() {
+        EscalationRecorder escalations = new EscalationRecorder();
+        SimulationFixture.run(createBusyScenario(), EngineMode.STEP_BY_STEP, simulation -> {
+            simulation.getElevatorSystem().setMaxWaitSteps(15);
+            simulation.setEventSink(escalations);
+        });
+
+        assertFalse(escalations.waitedSteps.isEmpty(), "Calls waiting too long are supposed to be escalated.");
+        assertTrue(escalations.waitedSteps.stream().allMatch(waitedSteps -> waitedSteps >= 15),
+                "Only overdue calls are supposed to be escalated, but they waited " + escalations.waitedSteps);
+    }
+
+    @Test
+    void testMaxWaitIsIdenticalInBothEngineModes() {
+        Path scenario = createBusyScenario();
+
+        SimulationFixture.assertIdenticalInBothEngineModes(scenario,
+                simulation -> simulation.getElevatorSystem().setMaxWaitSteps(15), Human.State.WAITING_FOR_ELEVATOR,
+                "Skipping idle steps is not supposed to delay escalating overdue calls.");
+    }
+
+    @Test
+    void testInvalidMaxWait() {
+        ElevatorSystem system = new ElevatorSystem();
+        assertThrows(IllegalArgumentException.class, () -> system.setMaxWaitSteps(0));
+    }
+
+    private Path createBusyScenario() {
+        return SimulationFixture.writeBusyScenario(directory.resolve("busy.bin"), 2, 30, 6, 600, 3);
+    }
+
+    /**
+     * Records how long each escalated hall call waited.
+     */
+    private static final class EscalationRecorder implements EventSink {
+        private static final Pattern ESCALATION = Pattern.compile("waited (\\d+) steps, escalated");
+
+        private final List<Long> waitedSteps = new ArrayList<>();
+
+        @Override
+        public boolean isEnabled(Level level) {
+            return level == Level.DEBUG;
+        }
+
+        @Override
+        public void log(Level level, String message) {
+            Matcher matcher = ESCALATION.matcher(message);
+            if (matcher.find()) {
+                waitedSteps.add(Long.parseLong(matcher.group(1)));
+            }
+        }
+    }
+}
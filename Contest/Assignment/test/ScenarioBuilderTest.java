@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.Test;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.BuildingTemplate;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class ScenarioBuilderTest {
+    @Test
+    void testSameSeedGeneratesSameScenario() {
+        List<Human> firstHumans = BuildingTemplate.HOTEL_TWO_WAY.builder(5).build().getHumans();
+        List<Human> secondHumans = BuildingTemplate.HOTEL_TWO_WAY.builder(5).build().getHumans();
+
+        assertEquals(firstHumans.size(), secondHumans.size());
+        for (int i = 0; i < firstHumans.size(); i++) {
+            assertEquals(firstHumans.get(i).getStartingFloor(), secondHumans.get(i).getStartingFloor());
+            assertEquals(firstHumans.get(i).getDestinationFloor(), secondHumans.get(i).getDestinationFloor());
+        }
+    }
+
+    @Test
+    void testGenerationIsIndependentOfThreadCount() throws Exception {
+        ForkJoinPool singleThread = new ForkJoinPool(1);
+        ForkJoinPool manyThreads = new ForkJoinPool(8);
+        try {
+            List<Human> sequentialHumans = singleThread
+                    .submit(() -> Simulation.createRandomSimulation(9, 5, 50_000, 40).getHumans())
+                    .get();
+            List<Human> parallelHumans = manyThreads
+                    .submit(() -> Simulation.createRandomSimulation(9, 5, 50_000, 40).getHumans())
+                    .get();
+
+            assertSameFloors(sequentialHumans, parallelHumans,
+                    "Generating in parallel is not supposed to change the scenario.");
+        } finally {
+            singleThread.shutdown();
+            manyThreads.shutdown();
+        }
+    }
+
+    @Test
+    void testHumansDoNotDependOnPopulationSize() {
+        List<Human> smallPopulation = Simulation.createRandomSimulation(9, 5, 100, 40).getHumans();
+        List<Human> bigPopulation = Simulation.createRandomSimulation(9, 2, 20_000, 40).getHumans();
+
+        assertSameFloors(smallPopulation, bigPopulation.subList(0, smallPopulation.size()),
+                "Each human is supposed to be generated from its own stream, regardless of the other humans and elevators.");
+    }
+
+    @Test
+    void testUpPeakStartsAtLobby() {
+        Simulation simulation = Simulation.createTemplateSimulation(BuildingTemplate.OFFICE_UP_PEAK, 1);
+
+        long humansFromLobby = simulation.getHumans()
+                .stream()
+                .filter(human -> human.getStartingFloor() == 1)
+                .count();
+
+        assertEquals(0.85, (double) humansFromLobby / simulation.getHumans().size(), 0.05,
+                "In the up-peak, most humans are supposed to start at the lobby.");
+        assertTrue(simulation.getElevators().stream().allMatch(elevator -> elevator.getCurrentFloor() == 1),
+                "In the up-peak, all elevators are supposed to wait at the lobby.");
+    }
+
+    @Test
+    void testDownPeakEndsAtLobby() {
+        Simulation simulation = Simulation.createTemplateSimulation(BuildingTemplate.RESIDENTIAL_DOWN_PEAK, 1);
+
+        long humansToLobby = simulation.getHumans()
+                .stream()
+                .filter(human -> human.getDestinationFloor() == 1)
+                .count();
+
+        assertEquals(0.85, (double) humansToLobby / simulation.getHumans().size(), 0.05,
+                "In the down-peak, most humans are supposed to travel to the lobby.");
+    }
+
+    @Test
+    void testTowerShape() {
+        Simulation simulation = BuildingTemplate.MEGA_TOWER.builder(3).humans(1_000).build();
+
+        assertEquals(50, simulation.getElevators().size());
+        assertEquals(1_000, simulation.getHumans().size());
+        assertTrue(simulation.getHumans()
+                .stream()
+                .allMatch(human -> human.getStartingFloor() != human.getDestinationFloor()
+                        && human.getDestinationFloor() <= 200));
+    }
+
+    private static void assertSameFloors(List<Human> expected, List<Human> actual, String message) {
+        assertEquals(expected.size(), actual.size(), message);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getStartingFloor(), actual.get(i).getStartingFloor(), message);
+            assertEquals(expected.get(i).getDestinationFloor(), actual.get(i).getDestinationFloor(), message);
+        }
+    }
+}
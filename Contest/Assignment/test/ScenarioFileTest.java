@@ -0,0 +1,192 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.ScenarioFile;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class ScenarioFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testBinaryRoundTrip() {
+        Path file = directory.resolve("scenario.bin");
+        ScenarioFile.writeBinary(file,
+                List.of(new ScenarioFile.ElevatorRecord(1, 10, 5, 0),
+                        new ScenarioFile.ElevatorRecord(1, 10, 1, 4)),
+                List.of(new ScenarioFile.TripRecord(1, 10, 0),
+                        new ScenarioFile.TripRecord(9, 2, 0),
+                        new ScenarioFile.TripRecord(3, 7, 0)));
+
+        Simulation simulation = Simulation.fromFile(file);
+
+        List<Elevator> elevators = simulation.getElevators();
+        assertEquals(2, elevators.size());
+        assertEquals(5, elevators.get(0).getCurrentFloor());
+        assertEquals(Elevator.UNLIMITED_CAPACITY, elevators.get(0).getCapacity(),
+                "A capacity of 0 is supposed to stand for an unlimited capacity.");
+        assertEquals(4, elevators.get(1).getCapacity());
+
+        List<Human> humans = simulation.getHumans();
+        assertEquals(3, humans.size());
+        assertEquals(9, humans.get(1).getStartingFloor());
+        assertEquals(2, humans.get(1).getDestinationFloor());
+
+        simulation.startAndExecuteUntilDone(1_000);
+        assertTrue(simulation.isDone());
+    }
+
+    @Test
+    void testCsvImport() throws IOException {
+        Path file = directory.resolve("scenario.csv");
+        Files.writeString(file, """
+                # A small building
+                elevator,1,10,1,2
+
+                trip,1,5,0
+                trip, 8, 2, 0
+                trip,3,9,4
+                """);
+
+        Simulation simulation = Simulation.fromFile(file);
+
+        assertEquals(1, simulation.getElevators().size());
+        assertEquals(2, simulation.getElevators().get(0).getCapacity());
+        assertEquals(3, simulation.getHumans().size());
+
+        simulation.startAndExecuteUntilDone(1_000);
+        assertTrue(simulation.isDone());
+    }
+
+    @Test
+    void testDelayedArrival() throws IOException {
+        Path file = directory.resolve("scenario.csv");
+        Files.writeString(file, """
+                elevator,1,10,1,0
+                trip,1,2,0
+                trip,5,1,3
+                """);
+
+        Simulation simulation = Simulation.fromFile(file);
+        Human latecomer = simulation.getHumans().get(1);
+        simulation.start();
+
+        for (int i = 0; i < 3; i++) {
+            simulation.step();
+            assertEquals(Human.State.IDLE, latecomer.getCurrentState(),
+                    "A human is not supposed to enter the simulation before its arrival step.");
+        }
+        simulation.step();
+        assertNotEquals(Human.State.IDLE, latecomer.getCurrentState(),
+                "A human is supposed to enter the simulation at its arrival step.");
+
+        while (!simulation.isDone()) {
+            simulation.step();
+            assertTrue(simulation.getStepCount() < 1_000, "The simulation is supposed to finish.");
+        }
+    }
+
+    @Test
+    void testCsvToBinaryConversion() throws IOException {
+        Path csvFile = directory.resolve("scenario.csv");
+        Path binaryFile = directory.resolve("scenario.bin");
+        StringBuilder csv = new StringBuilder("elevator,1,20,10,0\nelevator,1,20,1,8\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append("trip,%d,%d,%d%n".formatted(1 + i % 20, 1 + (i * 7) % 20, i % 10));
+        }
+        Files.writeString(csvFile, csv);
+
+        ScenarioFile.convertCsvToBinary(csvFile, binaryFile);
+
+        List<Integer> fromCsv = tripFloors(Simulation.fromFile(csvFile));
+        List<Integer> fromBinary = tripFloors(Simulation.fromFile(binaryFile));
+        assertEquals(fromCsv, fromBinary, "The converted file is supposed to contain the same trips.");
+    }
+
+    @Test
+    void testMalformedFiles() throws IOException {
+        Path file = directory.resolve("scenario.csv");
+        Files.writeString(file, "elevator,1,10\n");
+        assertThrows(IllegalArgumentException.class, () -> Simulation.fromFile(file));
+
+        Files.writeString(file, "escalator,1,10,1,0\n");
+        assertThrows(IllegalArgumentException.class, () -> Simulation.fromFile(file));
+
+        Path binaryFile = directory.resolve("scenario.bin");
+        ScenarioFile.writeBinary(binaryFile, List.of(new ScenarioFile.ElevatorRecord(1, 10, 1, 0)),
+                List.of(new ScenarioFile.TripRecord(1, 10, 0)));
+        byte[] content = Files.readAllBytes(binaryFile);
+        Files.write(binaryFile, Arrays.copyOf(content, content.length - 4));
+        assertThrows(IllegalArgumentException.class, () -> Simulation.fromFile(binaryFile),
+                "A truncated file is supposed to be rejected.");
+    }
+
+    @Test
+    void testImplausibleElevators() throws IOException {
+        Path file = directory.resolve("scenario.csv");
+        for (String elevator : List.of("elevator,1,2147483647,1,0", "elevator,2147483647,2,2147483647,0",
+                "elevator,0,10,1,0", "elevator,1,10,11,0", "elevator,1,10,1,-1")) {
+            Files.writeString(file, elevator + "\ntrip,1,5,0\n");
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> Simulation.fromFile(file), "The elevator " + elevator + " is supposed to be rejected.");
+            assertTrue(exception.getMessage().contains("line 1"),
+                    "The message is supposed to name the line of the elevator, but was: " + exception.getMessage());
+        }
+
+        Path binaryFile = directory.resolve("scenario.bin");
+        ScenarioFile.writeBinary(binaryFile, List.of(new ScenarioFile.ElevatorRecord(1, 10, 1, 0),
+                        new ScenarioFile.ElevatorRecord(1, Integer.MAX_VALUE, 1, 0)),
+                List.of(new ScenarioFile.TripRecord(1, 5, 0)));
+        IllegalArgumentException binaryException =
+                assertThrows(IllegalArgumentException.class, () -> Simulation.fromFile(binaryFile),
+                        "An elevator serving billions of floors is supposed to be rejected.");
+        assertTrue(binaryException.getMessage().contains("record 1"),
+                "The message is supposed to name the index of the elevator, but was: "
+                        + binaryException.getMessage());
+    }
+
+    @Test
+    void testTripsToUnservedFloors() throws IOException {
+        Path file = directory.resolve("scenario.csv");
+        Files.writeString(file, """
+                elevator,1,10,1,0
+                trip,1,5,0
+                # The building has no 12th floor
+                trip,12,3,0
+                """);
+        IllegalArgumentException csvException =
+                assertThrows(IllegalArgumentException.class, () -> Simulation.fromFile(file),
+                        "A trip from a floor no elevator serves is supposed to be rejected.");
+        assertTrue(csvException.getMessage().contains("line 4"),
+                "The message is supposed to name the line of the trip, but was: " + csvException.getMessage());
+
+        Path binaryFile = directory.resolve("scenario.bin");
+        ScenarioFile.writeBinary(binaryFile, List.of(new ScenarioFile.ElevatorRecord(5, 6, 5, 0)),
+                List.of(new ScenarioFile.TripRecord(5, 10, 0),
+                        new ScenarioFile.TripRecord(6, 2, 0)));
+        IllegalArgumentException binaryException =
+                assertThrows(IllegalArgumentException.class, () -> Simulation.fromFile(binaryFile),
+                        "A trip to a floor no elevator serves is supposed to be rejected.");
+        assertTrue(binaryException.getMessage().contains("record 1"),
+                "The message is supposed to name the index of the trip, but was: " + binaryException.getMessage());
+    }
+
+    private static List<Integer> tripFloors(Simulation simulation) {
+        List<Integer> floors = new ArrayList<>();
+        for (Human human : simulation.getHumans()) {
+            floors.add(human.getStartingFloor());
+            floors.add(human.getDestinationFloor());
+        }
+        return floors;
+    }
+}
@@ -0,0 +1,72 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.togetherjava.event.elevator.simulation.SeedFuzzer;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class SeedFuzzTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRandomBuildingsFinish() {
+        List<SeedFuzzer.Failure> failures = new SeedFuzzer(2022).runs(300)
+                .maxElevators(10)
+                .maxHumans(300)
+                .maxFloorsServed(50)
+                .stepBudget(10_000)
+                .outlierBand(0.99, 3)
+                .run();
+
+        assertTrue(failures.isEmpty(), () -> "Randomly generated simulations failed, minimal reproducers:\n"
+                + failures.stream()
+                .map(failure -> "%s %s: %s".formatted(failure.kind(), failure.minimalCase(), failure.detail()))
+                .collect(Collectors.joining("\n")));
+    }
+
+    @Test
+    void testFailuresAreShrunk() throws IOException {
+        List<SeedFuzzer.Failure> failures = new SeedFuzzer(1).runs(20)
+                .maxElevators(5)
+                .maxHumans(100)
+                .maxFloorsServed(40)
+                .stepBudget(5)
+                .run();
+
+        assertFalse(failures.isEmpty(), "With a tiny step budget, runs are supposed to fail.");
+        for (SeedFuzzer.Failure failure : failures) {
+            assertEquals(SeedFuzzer.FailureKind.EXCEEDED_STEP_BUDGET, failure.kind());
+
+            SeedFuzzer.FuzzCase originalCase = failure.originalCase();
+            SeedFuzzer.FuzzCase minimalCase = failure.minimalCase();
+            assertTrue(minimalCase.amountOfHumans() <= originalCase.amountOfHumans()
+                    && minimalCase.amountOfElevators() <= originalCase.amountOfElevators(),
+                    "Shrinking is not supposed to grow the case, but %s became %s.".formatted(originalCase,
+                            minimalCase));
+
+            Simulation reproduced = minimalCase.createSimulation();
+            reproduced.start();
+            for (int i = 0; i < 5 && !reproduced.isDone(); i++) {
+                reproduced.step();
+            }
+            assertFalse(reproduced.isDone(), "The minimal case %s is supposed to fail as well.".formatted(minimalCase));
+        }
+        assertTrue(failures.stream()
+                        .anyMatch(failure -> failure.minimalCase().amountOfHumans()
+                                < failure.originalCase().amountOfHumans()),
+                "Failing cases are supposed to be shrunk to fewer humans.");
+
+        Path file = directory.resolve("reproducers.csv");
+        SeedFuzzer.writeReproducers(file, failures);
+        SeedFuzzer.FuzzCase firstCase = failures.get(0).minimalCase();
+        assertTrue(Files.readString(file).contains("EXCEEDED_STEP_BUDGET,%d,%d,%d,%d".formatted(firstCase.seed(),
+                firstCase.amountOfElevators(), firstCase.amountOfHumans(), firstCase.floorsServed())));
+    }
+}
@@ -0,0 +1,88 @@
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.EngineMode;
+import org.togetherjava.event.elevator.simulation.ScenarioFile;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Scenarios and runs shared by the tests of features that have to behave the same in both engine modes.
+ */
+final class SimulationFixture {
+    private static final int STEP_LIMIT = 100_000;
+    private static final int AMOUNT_OF_ELEVATORS = 4;
+
+    private SimulationFixture() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Writes a scenario where humans arrive all over the building every few steps, keeping the elevators busy.
+     *
+     * @param file            the file to write the scenario to
+     * @param seed            the seed to generate the scenario with
+     * @param floorsServed    the amount of floors of the building, all of them served by every elevator
+     * @param capacity        the capacity of each elevator, 0 if unlimited
+     * @param amountOfTrips   the amount of humans
+     * @param arrivalInterval the amount of steps per human arriving
+     * @return the written file
+     */
+    static Path writeBusyScenario(Path file, long seed, int floorsServed, int capacity, int amountOfTrips,
+            int arrivalInterval) {
+        Random random = new Random(seed);
+        List<ScenarioFile.ElevatorRecord> elevators = new ArrayList<>();
+        for (int i = 0; i < AMOUNT_OF_ELEVATORS; i++) {
+            elevators.add(new ScenarioFile.ElevatorRecord(1, floorsServed, 1 + random.nextInt(floorsServed),
+                    capacity));
+        }
+        List<ScenarioFile.TripRecord> trips = new ArrayList<>();
+        for (int i = 0; i < amountOfTrips; i++) {
+            trips.add(new ScenarioFile.TripRecord(1 + random.nextInt(floorsServed), 1 + random.nextInt(floorsServed),
+                    i * arrivalInterval + random.nextInt(arrivalInterval)));
+        }
+
+        ScenarioFile.writeBinary(file, elevators, trips);
+        return file;
+    }
+
+    /**
+     * Runs the given scenario until all humans arrived, with invariant checks enabled.
+     *
+     * @param scenario      the scenario file to run
+     * @param engineMode    the engine mode to run in
+     * @param configuration configures the feature under test before the simulation starts
+     * @return the finished simulation
+     */
+    static Simulation run(Path scenario, EngineMode engineMode, Consumer<Simulation> configuration) {
+        Simulation simulation = Simulation.fromFile(scenario);
+        configuration.accept(simulation);
+        simulation.setEngineMode(engineMode);
+        simulation.enableInvariantChecks();
+        simulation.startAndExecuteUntilDone(STEP_LIMIT);
+        assertTrue(simulation.isDone(), "All humans are supposed to arrive.");
+        return simulation;
+    }
+
+    /**
+     * Runs the given scenario in both engine modes and asserts that skipping idle steps did not change the result.
+     *
+     * @param scenario      the scenario file to run
+     * @param configuration configures the feature under test before the simulation starts
+     * @param state         the state whose total steps are compared
+     * @param message       the message if the total steps in the state differ
+     */
+    static void assertIdenticalInBothEngineModes(Path scenario, Consumer<Simulation> configuration,
+            Human.State state, String message) {
+        Simulation stepByStep = run(scenario, EngineMode.STEP_BY_STEP, configuration);
+        Simulation eventDriven = run(scenario, EngineMode.EVENT_DRIVEN, configuration);
+
+        assertEquals(stepByStep.getStepCount(), eventDriven.getStepCount());
+        assertEquals(stepByStep.getTotalStepsForState(state), eventDriven.getTotalStepsForState(state), message);
+    }
+}
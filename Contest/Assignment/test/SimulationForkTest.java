@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.Test;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.Simulation;
+import org.togetherjava.event.elevator.simulation.SimulationFork;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class SimulationForkTest {
+    @Test
+    void testForkBehavesLikeSimulation() {
+        Simulation simulation = Simulation.createRandomSimulation(3, 4, 300, 20);
+        simulation.start();
+        for (int i = 0; i < 10; i++) {
+            simulation.step();
+        }
+
+        long arrivedBeforeFork = countHumans(simulation, Human.State.ARRIVED);
+        SimulationFork fork = simulation.fork();
+        assertEquals(countHumans(simulation, Human.State.WAITING_FOR_ELEVATOR), fork.getWaitingHumanCount());
+        assertEquals(countHumans(simulation, Human.State.TRAVELING_WITH_ELEVATOR), fork.getRidingHumanCount());
+
+        while (!simulation.isDone()) {
+            assertFalse(fork.isDone(), "The fork is not supposed to finish before the simulation.");
+            simulation.step();
+            fork.step();
+
+            assertEquals(simulation.getStepCount(), fork.getStepCount());
+            for (int i = 0; i < simulation.getElevators().size(); i++) {
+                Elevator elevator = simulation.getElevators().get(i);
+                Elevator forkedElevator = fork.getElevators().get(i);
+                assertEquals(elevator.getCurrentFloor(), forkedElevator.getCurrentFloor(),
+                        "Elevators of the fork are supposed to move exactly like in the simulation.");
+                assertEquals(elevator.getPassengerCount(), forkedElevator.getPassengerCount());
+            }
+            assertEquals(countHumans(simulation, Human.State.WAITING_FOR_ELEVATOR), fork.getWaitingHumanCount(),
+                    "Humans of the fork are supposed to wait exactly like in the simulation.");
+            assertEquals(countHumans(simulation, Human.State.ARRIVED) - arrivedBeforeFork, fork.getArrivedHumanCount());
+        }
+        assertTrue(fork.isDone(), "The fork is supposed to finish together with the simulation.");
+    }
+
+    @Test
+    void testForksAreIndependent() {
+        Simulation simulation = new Simulation(List.of(new Elevator(1, 10, 1), new Elevator(1, 10, 10)),
+                List.of(new Human(5, 8)));
+        simulation.start();
+        simulation.step();
+
+        SimulationFork fork = simulation.fork();
+        SimulationFork nestedFork = fork.fork();
+        fork.getElevators().get(1).requestDestinationFloor(2);
+        for (int i = 0; i < 3; i++) {
+            fork.step();
+        }
+
+        assertEquals(1, simulation.getStepCount(), "Stepping a fork is not supposed to step the simulation.");
+        assertEquals(10, simulation.getElevators().get(1).getCurrentFloor(),
+                "Requests within a fork are not supposed to affect the simulation.");
+        assertEquals(0, simulation.getElevators().get(1).getPendingDestinationCount());
+        assertEquals(10, nestedFork.getElevators().get(1).getCurrentFloor(),
+                "Requests within a fork are not supposed to affect other forks.");
+        assertEquals(7, fork.getElevators().get(1).getCurrentFloor());
+        // The first elevator reaches the human at floor 5 in the third step of the fork
+        assertEquals(2, fork.getTotalWaitingSteps(), "The human is supposed to wait in the fork as in the simulation.");
+        assertEquals(1, fork.getRidingHumanCount());
+    }
+
+    private static long countHumans(Simulation simulation, Human.State state) {
+        return simulation.getHumans().stream().filter(human -> human.getCurrentState() == state).count();
+    }
+}
@@ -0,0 +1,140 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.ElevatorPanel;
+import org.togetherjava.event.elevator.elevators.ElevatorSystem;
+import org.togetherjava.event.elevator.elevators.FloorPanelSystem;
+import org.togetherjava.event.elevator.elevators.SpeedProfile;
+import org.togetherjava.event.elevator.humans.ElevatorListener;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.EngineMode;
+import org.togetherjava.event.elevator.simulation.Simulation;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class SpeedProfileTest {
+    private static final SpeedProfile EXPRESS = new SpeedProfile(8, 2);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testExpressRunOnlyStopsAtDestination() {
+        ElevatorSystem system = new ElevatorSystem();
+        Elevator elevator = new Elevator(1, 100, 1);
+        elevator.setSpeedProfile(EXPRESS);
+        system.registerElevator(elevator);
+        StopRecorder stopRecorder = new StopRecorder();
+        system.registerElevatorListener(stopRecorder);
+        system.ready();
+
+        system.moveOneFloor();
+        stopRecorder.stopFloors.clear();
+        elevator.requestDestinationFloor(100);
+        int steps = 0;
+        while (elevator.getPendingDestinationCount() > 0 && steps < 100) {
+            system.moveOneFloor();
+            steps++;
+        }
+
+        assertEquals(100, elevator.getCurrentFloor());
+        assertTrue(steps < 20, "An express run over 99 floors is supposed to take few steps, but took " + steps);
+        assertEquals(List.of(100), stopRecorder.stopFloors, "Floors passed on the way are not supposed to cause events.");
+    }
+
+    @Test
+    void testDestinationTooCloseToStopIsServedOnTheWayBack() {
+        ElevatorSystem system = new ElevatorSystem();
+        Elevator elevator = new Elevator(1, 100, 1);
+        elevator.setSpeedProfile(EXPRESS);
+        system.registerElevator(elevator);
+        StopRecorder stopRecorder = new StopRecorder();
+        system.registerElevatorListener(stopRecorder);
+        system.ready();
+
+        elevator.requestDestinationFloor(100);
+        // Speeds 2, 4, 6 and 8 floors per step
+        for (int i = 0; i < 4; i++) {
+            system.moveOneFloor();
+        }
+        assertEquals(21, elevator.getCurrentFloor());
+        elevator.requestDestinationFloor(23);
+        for (int i = 0; i < 100; i++) {
+            system.moveOneFloor();
+        }
+
+        assertEquals(List.of(100, 23), stopRecorder.stopFloors.stream().distinct().toList(),
+                "The elevator is too fast to stop 2 floors ahead and is supposed to return there afterwards.");
+    }
+
+    @Test
+    void testDefaultProfileStopsAtEveryFloor() {
+        ElevatorSystem system = new ElevatorSystem();
+        Elevator elevator = new Elevator(1, 10, 1);
+        system.registerElevator(elevator);
+        StopRecorder stopRecorder = new StopRecorder();
+        system.registerElevatorListener(stopRecorder);
+        system.ready();
+
+        elevator.requestDestinationFloor(10);
+        for (int i = 0; i < 9; i++) {
+            system.moveOneFloor();
+        }
+
+        assertEquals(List.of(2, 3, 4, 5, 6, 7, 8, 9, 10), stopRecorder.stopFloors);
+    }
+
+    @Test
+    void testExpressElevatorsInBothEngineModes() {
+        Path scenario = createScenario();
+
+        Simulation stepByStep = run(scenario, SpeedProfile.ONE_FLOOR_PER_STEP, EngineMode.STEP_BY_STEP);
+        Simulation express = run(scenario, EXPRESS, EngineMode.STEP_BY_STEP);
+        Simulation expressEventDriven = run(scenario, EXPRESS, EngineMode.EVENT_DRIVEN);
+
+        assertTrue(express.getElevatorSystem().getListenerCallbackCount()
+                        < stepByStep.getElevatorSystem().getListenerCallbackCount(),
+                "Express elevators are supposed to cause fewer events than elevators stopping at every floor.");
+        long travelingSteps = stepByStep.getTotalStepsForState(Human.State.TRAVELING_WITH_ELEVATOR);
+        long expressTravelingSteps = express.getTotalStepsForState(Human.State.TRAVELING_WITH_ELEVATOR);
+        assertTrue(2 * expressTravelingSteps < travelingSteps,
+                "Express runs are supposed to at least halve the time humans travel, but it went from %d to %d steps."
+                        .formatted(travelingSteps, expressTravelingSteps));
+        assertEquals(express.getStepCount(), expressEventDriven.getStepCount());
+        assertEquals(express.getTotalStepsForState(Human.State.TRAVELING_WITH_ELEVATOR),
+                expressEventDriven.getTotalStepsForState(Human.State.TRAVELING_WITH_ELEVATOR),
+                "Skipping idle steps is not supposed to change how express elevators travel.");
+    }
+
+    @Test
+    void testInvalidProfile() {
+        assertThrows(IllegalArgumentException.class, () -> new SpeedProfile(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SpeedProfile(4, 0));
+    }
+
+    private Path createScenario() {
+        return SimulationFixture.writeBusyScenario(directory.resolve("high-rise.bin"), 3, 80, 0, 300, 5);
+    }
+
+    private static Simulation run(Path scenario, SpeedProfile speedProfile, EngineMode engineMode) {
+        return SimulationFixture.run(scenario, engineMode,
+                simulation -> simulation.getElevators().forEach(elevator -> elevator.setSpeedProfile(speedProfile)));
+    }
+
+    private static final class StopRecorder implements ElevatorListener {
+        private final List<Integer> stopFloors = new ArrayList<>();
+
+        @Override
+        public void onElevatorSystemReady(FloorPanelSystem floorPanelSystem) {
+        }
+
+        @Override
+        public void onElevatorArrivedAtFloor(ElevatorPanel elevatorPanel) {
+            stopFloors.add(elevatorPanel.getCurrentFloor());
+        }
+    }
+}
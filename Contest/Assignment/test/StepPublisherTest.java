@@ -0,0 +1,145 @@
+import org.junit.jupiter.api.Test;
+import org.togetherjava.event.elevator.elevators.Elevator;
+import org.togetherjava.event.elevator.elevators.HallCallChange;
+import org.togetherjava.event.elevator.humans.Human;
+import org.togetherjava.event.elevator.simulation.EngineMode;
+import org.togetherjava.event.elevator.simulation.Simulation;
+import org.togetherjava.event.elevator.simulation.StepDelta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class StepPublisherTest {
+    @Test
+    void testDeltasReplayTheSimulation() throws Exception {
+        for (EngineMode engineMode : EngineMode.values()) {
+            Simulation simulation = Simulation.createRandomSimulation(3, 4, 200, 30);
+            simulation.setEngineMode(engineMode);
+            Recorder recorder = new Recorder(Long.MAX_VALUE);
+            simulation.getStepPublisher().subscribe(recorder);
+            int[] floors = simulation.getElevators().stream().mapToInt(Elevator::getCurrentFloor).toArray();
+
+            simulation.startAndExecuteUntilDone(10_000);
+            List<StepDelta> deltas = recorder.completion.get(10, TimeUnit.SECONDS);
+
+            assertReplays(simulation, floors, deltas);
+        }
+    }
+
+    @Test
+    void testSlowSubscriberReceivesEveryDelta() throws Exception {
+        Simulation simulation = Simulation.createRandomSimulation(5, 2, 50, 20);
+        Recorder slow = new Recorder(1);
+        Recorder fast = new Recorder(Long.MAX_VALUE);
+        simulation.getStepPublisher().subscribe(slow);
+        simulation.getStepPublisher().subscribe(fast);
+        int[] floors = simulation.getElevators().stream().mapToInt(Elevator::getCurrentFloor).toArray();
+
+        simulation.startAndExecuteUntilDone(10_000);
+        List<StepDelta> slowDeltas = slow.completion.get(10, TimeUnit.SECONDS);
+
+        assertEquals(fast.completion.get(10, TimeUnit.SECONDS), slowDeltas,
+                "A subscriber requesting one delta at a time is supposed to miss none of them.");
+        assertReplays(simulation, floors, slowDeltas);
+    }
+
+    @Test
+    void testEmptySimulationCompletesSubscribers() throws Exception {
+        Simulation simulation = new Simulation(List.of(new Elevator(1, 10, 1)), List.of());
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        simulation.getStepPublisher().subscribe(recorder);
+
+        simulation.startAndExecuteUntilDone(10);
+
+        assertEquals(List.of(), recorder.completion.get(10, TimeUnit.SECONDS),
+                "Subscribers are supposed to be completed even if the simulation never had to step.");
+    }
+
+    @Test
+    void testAbortedSimulationFailsSubscribers() {
+        Simulation simulation = new Simulation(List.of(new Elevator(1, 10, 1)), List.of(new Human(1, 10)));
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        simulation.getStepPublisher().subscribe(recorder);
+
+        assertThrows(IllegalStateException.class, () -> simulation.startAndExecuteUntilDone(3));
+        Exception e = assertThrows(Exception.class, () -> recorder.completion.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause(),
+                "Subscribers are supposed to learn why the simulation was aborted.");
+    }
+
+    private static void assertReplays(Simulation simulation, int[] floors, List<StepDelta> deltas) {
+        long lastStep = 0;
+        long arrivedHumans = 0;
+        int openHallCalls = 0;
+        for (StepDelta delta : deltas) {
+            assertTrue(delta.step() > lastStep, "Deltas are supposed to be published in order of their steps.");
+            assertFalse(delta.isEmpty(), "Steps without any change are not supposed to be published.");
+            lastStep = delta.step();
+
+            for (StepDelta.CarMove move : delta.carMoves()) {
+                assertEquals(floors[move.elevatorIndex()], move.fromFloor());
+                floors[move.elevatorIndex()] = move.toFloor();
+            }
+            arrivedHumans += delta.transitions().stream()
+                    .filter(transition -> transition.state() == Human.State.ARRIVED)
+                    .count();
+            for (HallCallChange change : delta.hallCallChanges()) {
+                openHallCalls += change.opened() ? 1 : -1;
+            }
+        }
+
+        assertEquals(simulation.getStepCount(), lastStep, "The last step is supposed to have changed something.");
+        for (Elevator elevator : simulation.getElevators()) {
+            assertEquals(elevator.getCurrentFloor(), floors[elevator.getIndex()],
+                    "Replaying all car moves is supposed to end at the floor of each elevator.");
+        }
+        assertEquals(simulation.getHumans().size(), arrivedHumans, "Every human is supposed to arrive once.");
+        assertEquals(0, openHallCalls, "Every hall call is supposed to be closed again.");
+    }
+
+    /**
+     * Records all deltas, requesting the given amount at a time.
+     */
+    private static final class Recorder implements Flow.Subscriber<StepDelta> {
+        private final long batchSize;
+        private final List<StepDelta> deltas = new ArrayList<>();
+        private final CompletableFuture<List<StepDelta>> completion = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+        private long remaining;
+
+        Recorder(long batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            remaining = batchSize;
+            subscription.request(batchSize);
+        }
+
+        @Override
+        public void onNext(StepDelta delta) {
+            deltas.add(delta);
+            if (--remaining == 0) {
+                remaining = batchSize;
+                subscription.request(batchSize);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completion.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completion.complete(deltas);
+        }
+    }
+}